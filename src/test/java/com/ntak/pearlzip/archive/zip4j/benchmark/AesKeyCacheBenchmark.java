@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.zip4j.util.AesKeyCache;
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader;
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+import com.ntak.pearlzip.archive.zip4j.util.EntryDecoder;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jEncryption;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ *  Per entry cost of decoding every entry of a 10k entry AES-256 archive, deriving keys for each entry versus taking
+ *  them from a session key cache warmed by an earlier operation on the archive.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AesKeyCacheBenchmark {
+
+    private static final int ENTRY_COUNT = 10000;
+
+    @Param({"256"})
+    public int fileSize;
+
+    private CentralDirectoryReader reader;
+    private List<CentralDirectoryEntry> entries;
+    private AesKeyCache keyCache;
+    private char[] password;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path archive = Zip4jCorpusGenerator.corpus(Zip4jBenchmarkUtil.corpusSpec(Zip4jEncryption.AES_256,
+                                                                                 ENTRY_COUNT, fileSize));
+        reader = new CentralDirectoryReader(archive);
+        entries = reader.stream()
+                        .filter(e -> !e.isDirectory())
+                        .toList();
+        password = Zip4jCorpusGenerator.PASSWORD.toCharArray();
+        buffer = new byte[fileSize];
+        keyCache = new AesKeyCache();
+        for (CentralDirectoryEntry entry : entries) {
+            decode(entry, keyCache, (t) -> {});
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        keyCache.close();
+        reader.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRY_COUNT)
+    public void decodeUncached(Blackhole blackhole) throws IOException {
+        for (CentralDirectoryEntry entry : entries) {
+            decode(entry, null, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRY_COUNT)
+    public void decodeCached(Blackhole blackhole) throws IOException {
+        for (CentralDirectoryEntry entry : entries) {
+            decode(entry, keyCache, blackhole::consume);
+        }
+    }
+
+    private void decode(CentralDirectoryEntry entry, AesKeyCache cache,
+            LongConsumer sink) throws IOException {
+        try(InputStream stream = EntryDecoder.open(reader, entry, password, cache)) {
+            long total = 0;
+            for (int read; (read = stream.read(buffer)) != -1; ) {
+                total += read;
+            }
+            sink.accept(total);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.util.ArchiveEntryIndex;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Scaling of name lookup, folder expansion and sorting over the entries of an archive, by scanning the entry list
+ *  (as the TestFX assertions and folder navigation do) versus through an {@link ArchiveEntryIndex}. Entries are
+ *  synthetic, with names laid out as in the generated corpora, so that a million entries do not require an archive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ArchiveEntryIndexBenchmark {
+
+    private static final int LOOKUPS = 100;
+    private static final String FOLDER = "d0-3/d1-4";
+
+    @Param({"10000", "100000", "1000000"})
+    public int entryCount;
+
+    private List<FileInfo> files;
+    private ArchiveEntryIndex index;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Zip4jCorpusGenerator.CorpusSpec spec = Zip4jCorpusGenerator.CorpusSpec.of(entryCount, 64)
+                                                                                    .withFolders(2, 32);
+        final Random random = new Random(Zip4jBenchmarkUtil.SEED);
+        final LocalDateTime epoch = LocalDateTime.of(2021, 1, 1, 0, 0);
+        files = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            final long size = random.nextInt(1 << 20);
+            files.add(new FileInfo(i, 2, spec.entryName(i), 0, size / 2, size,
+                                   epoch.plusSeconds(random.nextInt(1 << 25)), null, null, null, null, 0, "", false,
+                                   false, new HashMap<>()));
+        }
+        index = new ArchiveEntryIndex(files);
+
+        names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            names[i] = spec.entryName(random.nextInt(entryCount));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookupLinear(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(files.stream()
+                                   .filter(f -> f.getFileName().equals(name))
+                                   .findFirst()
+                                   .orElse(null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookupIndexed(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(index.get(name));
+        }
+    }
+
+    @Benchmark
+    public List<FileInfo> expandFolderLinear() {
+        final String prefix = String.format("%s/", FOLDER);
+        return files.stream()
+                    .filter(f -> f.getFileName().startsWith(prefix) &&
+                            f.getFileName().indexOf('/', prefix.length()) < 0)
+                    .sorted(Comparator.comparingLong(FileInfo::getRawSize))
+                    .toList();
+    }
+
+    @Benchmark
+    public List<FileInfo> expandFolderIndexed() {
+        return index.children(FOLDER, ArchiveEntryIndex.SortKey.RAW_SIZE, true);
+    }
+
+    @Benchmark
+    public FileInfo sortLinear() {
+        return files.stream()
+                    .sorted(Comparator.comparing(FileInfo::getLastWriteTime))
+                    .toList()
+                    .get(entryCount / 2);
+    }
+
+    @Benchmark
+    public FileInfo sortIndexed() {
+        return index.sorted(ArchiveEntryIndex.SortKey.LAST_MODIFIED, true)
+                    .get(entryCount / 2);
+    }
+
+    @Benchmark
+    public ArchiveEntryIndex build() {
+        return new ArchiveEntryIndex(files);
+    }
+}
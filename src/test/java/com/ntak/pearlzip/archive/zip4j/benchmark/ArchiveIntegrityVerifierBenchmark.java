@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.zip4j.util.ArchiveIntegrityVerifier;
+import com.ntak.pearlzip.archive.zip4j.util.ParallelExtractor;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jEncryption;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Testing the integrity of a large archive (256MB by default): extracting it to a scratch directory and deleting
+ *  the output, with Zip4j and with the parallel extractor, versus verifying checksums without writing to disk on one
+ *  core and on all cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveIntegrityVerifierBenchmark {
+
+    @Param({"NONE", "AES_256"})
+    public Zip4jEncryption encryption;
+
+    @Param({"256"})
+    public int entryCount;
+
+    @Param({"1048576"})
+    public int fileSize;
+
+    private Path archive;
+    private Path scratch;
+    private char[] password;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        archive = Zip4jCorpusGenerator.corpus(Zip4jBenchmarkUtil.corpusSpec(encryption, entryCount, fileSize));
+        scratch = Files.createTempDirectory("pz-bench");
+        password = encryption.isEncrypted() ? Zip4jCorpusGenerator.PASSWORD.toCharArray() : null;
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearScratch() throws IOException {
+        Zip4jBenchmarkUtil.deleteRecursively(scratch);
+        Files.createDirectories(scratch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Zip4jBenchmarkUtil.deleteRecursively(scratch);
+    }
+
+    @Benchmark
+    public void zip4jExtractThenDelete() throws IOException {
+        final Path target = scratch.resolve("zip4j");
+        new net.lingala.zip4j.ZipFile(archive.toFile(), password).extractAll(target.toString());
+        Zip4jBenchmarkUtil.deleteRecursively(target);
+    }
+
+    @Benchmark
+    public ParallelExtractor.CompletedEvent parallelExtractThenDelete() throws IOException {
+        final Path target = scratch.resolve("parallel");
+        final ParallelExtractor.CompletedEvent result = new ParallelExtractor(Runtime.getRuntime()
+                                                                                     .availableProcessors())
+                .extract(archive, target, password);
+        Zip4jBenchmarkUtil.deleteRecursively(target);
+        return result;
+    }
+
+    @Benchmark
+    public ArchiveIntegrityVerifier.CompletedEvent verifySingleThreaded() throws IOException {
+        return new ArchiveIntegrityVerifier(1).verify(archive, password);
+    }
+
+    @Benchmark
+    public ArchiveIntegrityVerifier.CompletedEvent verifyParallel() throws IOException {
+        return new ArchiveIntegrityVerifier(Runtime.getRuntime().availableProcessors()).verify(archive, password);
+    }
+}
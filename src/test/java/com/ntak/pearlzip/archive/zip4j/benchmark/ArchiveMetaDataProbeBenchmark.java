@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveReadService;
+import com.ntak.pearlzip.archive.zip4j.util.ArchiveMetaDataProbe;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jEncryption;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.ntak.pearlzip.archive.zip4j.constants.Zip4jConstants.KEY_ENCRYPTION_ENABLE;
+
+/**
+ *  Per archive cost of determining whether each archive of a large directory is encrypted (e.g. to show icons), by
+ *  generating the archive metadata through the read service versus probing the end record and a header sample.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ArchiveMetaDataProbeBenchmark {
+
+    private static final int ARCHIVE_COUNT = 2000;
+
+    @Param({"NONE", "AES_256"})
+    public Zip4jEncryption encryption;
+
+    @Param({"10", "1000"})
+    public int entryCount;
+
+    private Zip4jArchiveReadService readService;
+    private ArchiveMetaDataProbe cachedProbe;
+    private Path workingDir;
+    private List<Path> archives;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Zip4jBenchmarkUtil.initialiseLogging();
+        readService = new Zip4jArchiveReadService();
+        workingDir = Files.createTempDirectory("pz-bench");
+
+        final Path archive = Zip4jCorpusGenerator.corpus(Zip4jBenchmarkUtil.corpusSpec(encryption, entryCount, 64));
+        archives = new ArrayList<>(ARCHIVE_COUNT);
+        for (int i = 0; i < ARCHIVE_COUNT; i++) {
+            archives.add(Files.copy(archive, workingDir.resolve(String.format("archive-%04d.zip", i))));
+        }
+
+        cachedProbe = new ArchiveMetaDataProbe();
+        for (Path path : archives) {
+            cachedProbe.probe(path);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Zip4jBenchmarkUtil.deleteRecursively(workingDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCHIVE_COUNT)
+    public void generateArchiveMetaData(Blackhole blackhole) {
+        for (Path path : archives) {
+            blackhole.consume(readService.generateArchiveMetaData(path.toString())
+                                         .getProperty(KEY_ENCRYPTION_ENABLE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCHIVE_COUNT)
+    public void probeUncached(Blackhole blackhole) throws IOException {
+        final ArchiveMetaDataProbe probe = new ArchiveMetaDataProbe();
+        for (Path path : archives) {
+            blackhole.consume(probe.probe(path).encrypted());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCHIVE_COUNT)
+    public void probeCached(Blackhole blackhole) throws IOException {
+        for (Path path : archives) {
+            blackhole.consume(cachedProbe.probe(path).encrypted());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.zip4j.util.ParallelZipWriter;
+import com.ntak.pearlzip.archive.zip4j.util.ParallelZipWriter.EntrySource;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jEncryption;
+import net.lingala.zip4j.io.outputstream.ZipOutputStream;
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.model.enums.CompressionMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ *  Bulk add of many files: serial Zip4j stream versus the parallel writer on one core and on all cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelZipWriterBenchmark {
+
+    @Param({"NONE", "AES_256"})
+    public Zip4jEncryption encryption;
+
+    @Param({"1000", "5000"})
+    public int entryCount;
+
+    @Param({"16384"})
+    public int fileSize;
+
+    private Path workingDir;
+    private Path archive;
+    private List<EntrySource> sources;
+    private char[] password;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workingDir = Files.createTempDirectory("pz-bench");
+        archive = workingDir.resolve("archive.zip");
+        password = encryption.isEncrypted() ? Zip4jCorpusGenerator.PASSWORD.toCharArray() : null;
+        sources = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            Path file = Zip4jCorpusGenerator.generateFile(workingDir.resolve(String.format("file-%d.bin", i)),
+                                                          fileSize, 0.5, Zip4jBenchmarkUtil.SEED ^ i);
+            sources.add(EntrySource.of(file, String.format("added/file-%d.bin", i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Zip4jBenchmarkUtil.deleteRecursively(workingDir);
+    }
+
+    @Benchmark
+    public void zip4jSerial() throws IOException {
+        final byte[] buffer = new byte[65536];
+        try(ZipOutputStream zipStream = new ZipOutputStream(Files.newOutputStream(archive), password)) {
+            for (EntrySource source : sources) {
+                ZipParameters parameters = encryption.apply(new ZipParameters());
+                parameters.setCompressionMethod(CompressionMethod.DEFLATE);
+                parameters.setFileNameInZip(source.name());
+                parameters.setLastModifiedFileTime(source.lastModified());
+                zipStream.putNextEntry(parameters);
+                copy(source.file(), zipStream, buffer);
+                zipStream.closeEntry();
+            }
+        }
+    }
+
+    @Benchmark
+    public long parallelSingleCore() throws IOException {
+        return new ParallelZipWriter(1, Deflater.DEFAULT_COMPRESSION, encryption, password).write(archive, sources);
+    }
+
+    @Benchmark
+    public long parallelAllCores() throws IOException {
+        return new ParallelZipWriter(Runtime.getRuntime().availableProcessors(), Deflater.DEFAULT_COMPRESSION,
+                                     encryption, password).write(archive, sources);
+    }
+
+    private static void copy(Path file, OutputStream stream, byte[] buffer) throws IOException {
+        try(InputStream input = Files.newInputStream(file)) {
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                stream.write(buffer, 0, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.pub.ArchiveInfo;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveReadService;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jEncryption;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Measures the read paths used when PearlZip opens, lists and extracts from an archive through the Zip4j plugin.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Zip4jArchiveReadServiceBenchmark {
+
+    @Param({"NONE", "AES_128", "AES_256"})
+    public Zip4jEncryption encryption;
+
+    @Param({"10", "1000"})
+    public int entryCount;
+
+    @Param({"1024", "65536"})
+    public int fileSize;
+
+    private Zip4jArchiveReadService readService;
+    private Path workingDir;
+    private Path archive;
+    private ArchiveInfo archiveInfo;
+    private List<FileInfo> entries;
+    private int nextEntry;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Zip4jBenchmarkUtil.initialiseLogging();
+        readService = new Zip4jArchiveReadService();
+        workingDir = Files.createTempDirectory("pz-bench");
+        archive = Zip4jCorpusGenerator.corpus(Zip4jBenchmarkUtil.corpusSpec(encryption, entryCount, fileSize));
+        archiveInfo = Zip4jBenchmarkUtil.openArchive(readService, archive, encryption);
+        entries = readService.listFiles(System.currentTimeMillis(), archiveInfo)
+                             .stream()
+                             .filter(f -> !f.isFolder())
+                             .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Zip4jBenchmarkUtil.deleteRecursively(workingDir);
+    }
+
+    @Benchmark
+    public ArchiveInfo generateArchiveMetaData() {
+        return readService.generateArchiveMetaData(archive.toString());
+    }
+
+    @Benchmark
+    public List<FileInfo> listFiles() {
+        return readService.listFiles(System.currentTimeMillis(), archiveInfo);
+    }
+
+    @Benchmark
+    public void extractFile() {
+        final FileInfo entry = entries.get(nextEntry++ % entries.size());
+        readService.extractFile(System.currentTimeMillis(), workingDir.resolve("extracted.bin"), archiveInfo,
+                                       entry);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.pub.ArchiveInfo;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveReadService;
+import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveWriteService;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jEncryption;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Measures add and delete through the Zip4j plugin. Each invocation works on a fresh copy of the archive; the copy
+ *  is made in an invocation level set up and so is excluded from the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Zip4jArchiveWriteServiceBenchmark {
+
+    @Param({"NONE", "AES_128", "AES_256"})
+    public Zip4jEncryption encryption;
+
+    @Param({"10", "1000"})
+    public int entryCount;
+
+    @Param({"1024", "65536"})
+    public int fileSize;
+
+    private Zip4jArchiveReadService readService;
+    private Zip4jArchiveWriteService writeService;
+    private Path workingDir;
+    private Path pristineArchive;
+    private Path archive;
+    private FileInfo payload;
+    private ArchiveInfo archiveInfo;
+    private FileInfo deletionTarget;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Zip4jBenchmarkUtil.initialiseLogging();
+        readService = new Zip4jArchiveReadService();
+        writeService = new Zip4jArchiveWriteService();
+        workingDir = Files.createTempDirectory("pz-bench");
+        pristineArchive = Zip4jCorpusGenerator.corpus(Zip4jBenchmarkUtil.corpusSpec(encryption, entryCount,
+                                                                                     fileSize));
+        archive = workingDir.resolve("archive.zip");
+        payload = Zip4jBenchmarkUtil.newFileInfo(Zip4jCorpusGenerator.generateFile(workingDir.resolve("payload.bin"),
+                                                                                   fileSize, 0.5,
+                                                                                   Zip4jBenchmarkUtil.SEED),
+                                                 "added/payload.bin");
+    }
+
+    @Setup(Level.Invocation)
+    public void resetArchive() throws IOException {
+        Files.copy(pristineArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+        archiveInfo = Zip4jBenchmarkUtil.openArchive(readService, archive, encryption);
+        deletionTarget = readService.listFiles(System.currentTimeMillis(), archiveInfo)
+                                    .stream()
+                                    .filter(f -> !f.isFolder())
+                                    .findFirst()
+                                    .orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Zip4jBenchmarkUtil.deleteRecursively(workingDir);
+    }
+
+    @Benchmark
+    public void addFile() {
+        writeService.addFile(System.currentTimeMillis(), archiveInfo, payload);
+    }
+
+    @Benchmark
+    public void deleteFile() {
+        writeService.deleteFile(System.currentTimeMillis(), archiveInfo, deletionTarget);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.benchmark;
+
+import com.ntak.pearlzip.archive.constants.LoggingConstants;
+import com.ntak.pearlzip.archive.pub.ArchiveInfo;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveReadService;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jEncryption;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.stream.Stream;
+
+import static com.ntak.pearlzip.archive.constants.ArchiveConstants.KEY_FILE_PATH;
+import static com.ntak.pearlzip.archive.zip4j.constants.Zip4jConstants.KEY_ENCRYPTION_PW;
+
+public class Zip4jBenchmarkUtil {
+    public static final long SEED = 0x5EEDL;
+
+    public static void initialiseLogging() {
+        LoggingConstants.LOG_BUNDLE = ResourceBundle.getBundle("pearlzip",
+                                                               Locale.getDefault());
+        LoggingConstants.CUSTOM_BUNDLE = ResourceBundle.getBundle("custom",
+                                                                  Locale.getDefault());
+    }
+
+    public static Zip4jCorpusGenerator.CorpusSpec corpusSpec(Zip4jEncryption encryption, int entryCount,
+            int fileSize) {
+        return Zip4jCorpusGenerator.CorpusSpec.of(entryCount, fileSize)
+                                              .withSeed(SEED)
+                                              .withFolders(1, 10)
+                                              .withEncryption(encryption);
+    }
+
+    public static ArchiveInfo openArchive(Zip4jArchiveReadService readService, Path archive, Zip4jEncryption encryption) {
+        ArchiveInfo archiveInfo = readService.generateArchiveMetaData(archive.toString());
+        if (encryption.isEncrypted()) {
+            archiveInfo.addProperty(KEY_ENCRYPTION_PW, Zip4jCorpusGenerator.PASSWORD.toCharArray());
+        }
+        return archiveInfo;
+    }
+
+    public static FileInfo newFileInfo(Path file, String entryName) throws IOException {
+        final LocalDateTime lastModified = LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(),
+                                                                   ZoneId.systemDefault());
+        final Map<String,Object> additionalInfo = new HashMap<>();
+        additionalInfo.put(KEY_FILE_PATH, file.toAbsolutePath().toString());
+
+        return new FileInfo(0, entryName.split("/").length - 1, entryName, -1, 0, Files.size(file), lastModified,
+                            lastModified, lastModified, null, null, 0, "", false, false, additionalInfo);
+    }
+
+    public static void deleteRecursively(Path path) throws IOException {
+        if (Files.notExists(path)) {
+            return;
+        }
+        try(Stream<Path> paths = Files.walk(path)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
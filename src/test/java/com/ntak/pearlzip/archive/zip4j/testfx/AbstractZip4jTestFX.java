@@ -4,15 +4,23 @@
 
 package com.ntak.pearlzip.archive.zip4j.testfx;
 
+import com.ntak.pearlzip.archive.constants.LoggingConstants;
+import com.ntak.pearlzip.archive.pub.ArchiveReadService;
+import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
 import com.ntak.pearlzip.archive.util.LoggingUtil;
 import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveReadService;
 import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveWriteService;
+import com.ntak.pearlzip.archive.zip4j.util.ArchiveIntegrityCommand;
+import com.ntak.pearlzip.archive.zip4j.util.PerformanceBudgetExtension;
+import com.ntak.pearlzip.archive.zip4j.util.SettingsStore;
+import com.ntak.pearlzip.archive.zip4j.util.TimingReportExtension;
 import com.ntak.pearlzip.ui.constants.ZipConstants;
 import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
 import com.ntak.pearlzip.ui.mac.MacPearlZipApplication;
 import com.ntak.pearlzip.ui.pub.SysMenuController;
 import com.ntak.pearlzip.ui.util.AbstractPearlZipTestFX;
 import com.ntak.pearlzip.ui.util.ErrorAlertConsumer;
+import com.ntak.pearlzip.ui.util.JFXUtil;
 import com.ntak.pearlzip.ui.util.PearlZipFXUtil;
 import de.jangassen.MenuToolkit;
 import de.jangassen.model.AppearanceMode;
@@ -22,46 +30,204 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeoutException;
 
+import static com.ntak.pearlzip.archive.constants.ArchiveConstants.CURRENT_SETTINGS;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.LOG_BUNDLE;
+import static com.ntak.pearlzip.archive.pub.ArchiveService.CUSTOM_MENUS;
 import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static com.ntak.pearlzip.ui.UITestSuite.clearDirectory;
 import static com.ntak.pearlzip.ui.constants.ZipConstants.CNS_NTAK_PEARL_ZIP_APP_NAME;
 import static com.ntak.pearlzip.ui.constants.ZipConstants.CNS_SYSMENU_WINDOW_TEXT;
 import static com.ntak.pearlzip.ui.mac.MacZipConstants.*;
+import static com.ntak.pearlzip.ui.pub.PearlZipApplication.genFrmAbout;
 
+@ExtendWith({TimingReportExtension.class, PerformanceBudgetExtension.class})
 public abstract class AbstractZip4jTestFX extends AbstractPearlZipTestFX {
 
+    public static final String CNS_TESTFX_SEED_SETTINGS = "configuration.ntak.pearl-zip.testfx.seed-settings";
+    public static final String CNS_TESTFX_WARM_APPLICATION = "configuration.ntak.pearl-zip.testfx.warm-application";
+
+    /*
+     *  Warm application mode: the stage, services, system menu and error consumer are initialised by the first test
+     *  of the JVM only. Later tests start from the same primary window with only per-test state reset: secondary
+     *  windows and the archives they hold are closed, and the scratch directory and settings are restored. The
+     *  primary window is not reinitialised; tests open their archive into it. The error consumer is unregistered
+     *  after each test class and registered again by the first test of the next.
+     */
+    private static final boolean WARM_APPLICATION = Boolean.getBoolean(CNS_TESTFX_WARM_APPLICATION);
+    private static List<ArchiveWriteService> writeServices;
+    private static List<ArchiveReadService> readServices;
+    private static Stage warmStage;
+    private static Properties warmSettings;
+
+    private static Stage sysMenuAboutStage;
+    static Menu sysMenuZip4jMenu;
+
+    Path STORE_TEMP;
+    Path SETTINGS_FILE;
+    SettingsStore settingsStore;
+
+    @BeforeAll
+    public static void setUpOnce() {
+        LoggingConstants.LOG_BUNDLE = ResourceBundle.getBundle("pearlzip",
+                                                               Locale.getDefault());
+        LoggingConstants.CUSTOM_BUNDLE = ResourceBundle.getBundle("custom",
+                                                                  Locale.getDefault());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        STORE_TEMP = InternalContextCache.GLOBAL_CONFIGURATION_CACHE.<Path>getAdditionalConfig(CK_STORE_TEMP).get();
+        SETTINGS_FILE = InternalContextCache.INTERNAL_CONFIGURATION_CACHE.<Path>getAdditionalConfig(CK_SETTINGS_FILE).get();
+        settingsStore = new SettingsStore(SETTINGS_FILE, CURRENT_SETTINGS);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // Persists any pending change and rethrows a failed background write
+        settingsStore.close();
+    }
+
     @Override
     public void start(Stage stage) throws IOException, TimeoutException {
+        if (WARM_APPLICATION && stage == warmStage) {
+            resetApplicationState(stage);
+            return;
+        }
+
         System.setProperty("configuration.ntak.pearl-zip.no-files-history", "5");
         if (!InternalContextCache.INTERNAL_CONFIGURATION_CACHE.getAdditionalConfig(CK_MENU_TOOLKIT).isPresent()) {
             InternalContextCache.INTERNAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_MENU_TOOLKIT, MenuToolkit.toolkit(Locale.getDefault()));
         }
 
-        PearlZipFXUtil.initialise(stage, List.of(new Zip4jArchiveWriteService()),List.of(new Zip4jArchiveReadService()));
+        // Paths are set before initialisation so that each surefire fork (with its own user.home) only ever touches
+        // its own temporary store and settings file
+        initialiseContextPaths();
+        if (!WARM_APPLICATION || Objects.isNull(writeServices)) {
+            writeServices = List.of(new Zip4jArchiveWriteService());
+            readServices = List.of(new Zip4jArchiveReadService());
+        }
+        PearlZipFXUtil.initialise(stage, writeServices, readServices);
 
-        InternalContextCache.GLOBAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_LOCAL_TEMP, Paths.get(System.getProperty("user.home"),
-                                                                                  ".pz", "temp"));
-        InternalContextCache.GLOBAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_STORE_TEMP,
-                                                                                    Paths.get(System.getProperty(
-                                                                                            "user.home"), ".pz", "temp"));
-        Path SETTINGS_FILE = Paths.get(System.getProperty(CNS_SETTINGS_FILE, Paths.get(System.getProperty("user.home"),
-                                                                                       ".pz",
-                                                                                       "settings.properties").toString()));
-        InternalContextCache.INTERNAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_SETTINGS_FILE, SETTINGS_FILE);
         DEFAULT_BUS.register(ErrorAlertConsumer.getErrorAlertConsumer());
+        if (WARM_APPLICATION) {
+            warmStage = stage;
+            warmSettings = new Properties();
+            warmSettings.putAll(CURRENT_SETTINGS);
+        }
+    }
+
+    /**
+     *  Returns a warm application to the state of a fresh start: windows other than the primary stage are closed
+     *  (releasing their archive info), the scratch directory is emptied and the settings are restored to those at
+     *  initialisation. The primary stage keeps its content, as PearlZipFXUtil.initialise is only run on first start.
+     */
+    private static void resetApplicationState(Stage stage) throws IOException {
+        new ArrayList<>(Window.getWindows()).stream()
+                                            .filter(w -> w != stage)
+                                            .forEach(Window::hide);
+
+        initialiseContextPaths();
+        final Path scratch = InternalContextCache.GLOBAL_CONFIGURATION_CACHE.<Path>getAdditionalConfig(CK_STORE_TEMP)
+                                                                            .get()
+                                                                            .resolve("pz1234567890");
+        if (Files.exists(scratch)) {
+            clearDirectory(scratch);
+        }
+
+        CURRENT_SETTINGS.clear();
+        CURRENT_SETTINGS.putAll(warmSettings);
+
+        if (!DEFAULT_BUS.isRegistered(ErrorAlertConsumer.getErrorAlertConsumer())) {
+            DEFAULT_BUS.register(ErrorAlertConsumer.getErrorAlertConsumer());
+        }
+    }
+
+    public static synchronized void initialiseContextPaths() throws IOException {
+        final Path pzHome = Paths.get(System.getProperty("user.home"), ".pz");
+        final Path tempStore = pzHome.resolve("temp");
+        Files.createDirectories(tempStore);
+
+        InternalContextCache.GLOBAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_LOCAL_TEMP, tempStore);
+        InternalContextCache.GLOBAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_STORE_TEMP, tempStore);
+
+        Path SETTINGS_FILE = Paths.get(System.getProperty(CNS_SETTINGS_FILE, pzHome.resolve("settings.properties")
+                                                                                    .toString()));
+        // A fork starts from the checked-in seed settings rather than those of the developer
+        final String seedSettings = System.getProperty(CNS_TESTFX_SEED_SETTINGS);
+        if (Objects.nonNull(seedSettings) && !Files.exists(SETTINGS_FILE)) {
+            Files.createDirectories(SETTINGS_FILE.getParent());
+            Files.copy(Paths.get(seedSettings), SETTINGS_FILE);
+        }
+        InternalContextCache.INTERNAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_SETTINGS_FILE, SETTINGS_FILE);
     }
 
     @Override
     public void stop() {
-        DEFAULT_BUS.unregister(ErrorAlertConsumer.getErrorAlertConsumer());
+        if (!WARM_APPLICATION) {
+            DEFAULT_BUS.unregister(ErrorAlertConsumer.getErrorAlertConsumer());
+        }
+    }
+
+    @AfterAll
+    public static void releaseWarmApplication() {
+        if (WARM_APPLICATION && DEFAULT_BUS.isRegistered(ErrorAlertConsumer.getErrorAlertConsumer())) {
+            DEFAULT_BUS.unregister(ErrorAlertConsumer.getErrorAlertConsumer());
+        }
+    }
+
+    public static void initialiseSystemMenu() throws InterruptedException, IOException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        JFXUtil.runLater(() -> {
+            try {
+                // In warm application mode the about form and Zip4j menu are loaded from FXML once and reused
+                if (!WARM_APPLICATION || Objects.isNull(sysMenuAboutStage)) {
+                    sysMenuAboutStage = genFrmAbout();
+                    Menu menu = new Menu();
+                    final MenuBar menuBar = (MenuBar) new Zip4jArchiveWriteService().getFXFormByIdentifier(CUSTOM_MENUS)
+                                                                                    .get()
+                                                                                    .getContent();
+                    menu.getItems()
+                        .addAll(menuBar.getMenus()
+                                       .get(0)
+                                       .getItems());
+                    menu.setText(menuBar.getMenus()
+                                        .get(0)
+                                        .getText());
+                    // Appended so that the positions of the Zip4j menu items are unchanged
+                    menu.getItems()
+                        .add(ArchiveIntegrityCommand.menuItem());
+                    sysMenuZip4jMenu = menu;
+                }
+                createSystemMenu(sysMenuAboutStage,
+                                 Collections.singletonList(sysMenuZip4jMenu));
+            } catch(IOException e) {
+
+            } finally {
+                latch.countDown();
+            }
+        });
+        latch.await();
     }
 
     public static void createSystemMenu(Stage aboutStage, List<javafx.scene.control.Menu> customMenus) throws IOException {
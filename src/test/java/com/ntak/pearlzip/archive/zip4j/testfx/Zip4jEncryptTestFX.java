@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.testfx;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveReadService;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jTestUtil;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jWaitUtil;
+import com.ntak.pearlzip.ui.model.FXArchiveInfo;
+import com.ntak.pearlzip.ui.util.JFXUtil;
+import com.ntak.pearlzip.ui.util.PearlZipFXUtil;
+import com.ntak.testfx.FormUtil;
+import com.ntak.testfx.TypeUtil;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.control.*;
+import javafx.scene.input.MouseButton;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.ntak.pearlzip.archive.zip4j.constants.Zip4jConstants.KEY_ENCRYPTION_ENABLE;
+import static com.ntak.pearlzip.ui.constants.ResourceConstants.DSV;
+import static com.ntak.pearlzip.ui.util.PearlZipFXUtil.*;
+
+public class Zip4jEncryptTestFX extends AbstractZip4jTestFX {
+
+    /*
+     *  Test cases:
+     *  + Create encrypted zip archive - AES 256-bit
+     *  + Create encrypted zip archive - AES 128-bit
+     *  + New archive - length validation check
+     *  + Encrypt an unencrypted zip archive - success
+     *  + Encrypt a temporary zip archive - failure
+     */
+    @Test
+    @DisplayName("Test: Create zip archive with AES-256 bit encryption successfully")
+    public void testFX_CreateEncryptedArchiveAES256_Success() throws IOException {
+        // Set up
+        Path archive = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "ea.zip");
+        Files.createDirectories(archive.getParent());
+        Path file = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "additional_file");
+        Files.createFile(file);
+
+        try {
+            Map<String,Object> params = Map.of("#comboEncryptionAlgorithm", "AES", "#comboEncryptionStrength", "256-bit");
+            Zip4jTestUtil.simNewEncryptedArchive(this, archive, true, params, "pass");
+            simAddFile(this, file);
+
+            FXArchiveInfo fxArchiveInfo = Zip4jWaitUtil.waitForArchiveInfo(archive.toAbsolutePath()
+                                                                                  .toString());
+            Zip4jWaitUtil.waitForFileName(fxArchiveInfo, file.getFileName().toString());
+
+            // Checks
+            Assertions.assertTrue(Files.exists(archive), "Archive does not exist");
+            Assertions.assertTrue(fxArchiveInfo.getFiles()
+                                               .stream()
+                                               .anyMatch((f) -> f.getFileName()
+                                                                 .equals(file.getFileName()
+                                                                             .toString())
+                                               ), "File does not exist in archive");
+           FileInfo fileInfo = fxArchiveInfo.getFiles()
+                                            .stream()
+                                            .filter((f) -> f.getFileName()
+                                                             .equals(file.getFileName()
+                                                                         .toString())
+                                            ).findFirst().get();
+
+           Assertions.assertTrue(fileInfo.isEncrypted(), "File was not encrypted as expected");
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(archive.getParent());
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Create zip archive with AES-128 bit encryption successfully")
+    public void testFX_CreateEncryptedArchiveAES128_Success() throws IOException {
+        // Set up
+        Path archive = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "ea.zip");
+        Files.createDirectories(archive.getParent());
+        Path file = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "additional_file");
+        Files.createFile(file);
+
+        try {
+            Map<String,Object> params = Map.of("#comboEncryptionAlgorithm", "AES", "#comboEncryptionStrength", "128-bit");
+            Zip4jTestUtil.simNewEncryptedArchive(this, archive, true, params, "pass");
+            simAddFile(this, file);
+
+            FXArchiveInfo fxArchiveInfo = Zip4jWaitUtil.waitForArchiveInfo(archive.toAbsolutePath()
+                                                                                  .toString());
+            Zip4jWaitUtil.waitForFileName(fxArchiveInfo, file.getFileName().toString());
+
+            // Checks
+            Assertions.assertTrue(Files.exists(archive), "Archive does not exist");
+            Assertions.assertTrue(fxArchiveInfo.getFiles()
+                                               .stream()
+                                               .anyMatch((f) -> f.getFileName()
+                                                                 .equals(file.getFileName()
+                                                                             .toString())
+                                               ), "File does not exist in archive");
+            FileInfo fileInfo = fxArchiveInfo.getFiles()
+                                             .stream()
+                                             .filter((f) -> f.getFileName()
+                                                             .equals(file.getFileName()
+                                                                         .toString())
+                                             ).findFirst().get();
+
+            Assertions.assertTrue(fileInfo.isEncrypted(), "File was not encrypted as expected");
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(archive.getParent());
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Create zip archive with AES-256 bit encryption with no password fails")
+    public void testFX_CreateEncryptedArchiveAES256NoPassword_Fails() throws IOException {
+        // Set up
+        Path archive = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "ea.zip");
+        Files.createDirectories(archive.getParent());
+
+        try {
+            Map<String,Object> params = Map.of("#comboEncryptionAlgorithm", "AES", "#comboEncryptionStrength", "256-bit");
+
+            // Open New dialog...
+            clickOn("#btnNew", MouseButton.PRIMARY);
+            Zip4jWaitUtil.waitForNode(this, "#mnuNewArchive");
+            clickOn("#mnuNewArchive", MouseButton.PRIMARY);
+
+            clickOn((t) -> Optional.ofNullable(t.getId()).orElse("")
+                                         .equals("com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveWriteService.new-options"));
+
+            // Set options on Zip4j tab
+            clickOn("#checkEnableEncryption");
+            Zip4jWaitUtil.waitForFxEvents();
+
+            for (String k : params.keySet()) {
+                ComboBox field = lookup(k)
+                                      .queryAs(ComboBox.class);
+
+                if (Objects.nonNull(field)) {
+                    FormUtil.selectComboBoxEntry(this, field, params.get(k));
+                }
+            }
+
+            // Click on first tab
+            clickOn((Node)lookup(".tab-pane > .tab-header-area > .headers-region > .tab").query());
+
+            final String[] nameSplit = DSV.split(archive.getFileName()
+                                                        .toString());
+            final String archiveFormat = nameSplit[nameSplit.length-1];
+            ComboBox<String> cmbArchiveFormat = FormUtil.lookupNode(s -> s.isShowing() && s.getTitle().equals("Create new archive..."), "#comboArchiveFormat");
+            FormUtil.selectComboBoxEntry(this, cmbArchiveFormat, archiveFormat);
+
+            clickOn("#btnCreate", MouseButton.PRIMARY);
+
+            DialogPane dialogPane = Zip4jWaitUtil.waitForDialog(this, d -> Objects.nonNull(d.getContentText()));
+            Assertions.assertTrue(dialogPane.getContentText()
+                                            .contains("validation-issue"));
+            Assertions.assertTrue(JFXUtil.getMainStageInstances().stream().noneMatch(s->s.getTitle().contains(archive.toString())), "The archive was open unexpectedly");
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(archive.getParent());
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Encrypt an unencrypted zip archive successfully")
+    public void testFX_EncryptUnencryptedZipArchive_Success() throws IOException, InterruptedException {
+        Path srcArchive = Paths.get("src", "test", "resources", "unencryptedArchive.zip").toAbsolutePath();
+        Path archive = Paths.get("tempArchive.zip").toAbsolutePath();
+        try {
+            Files.copy(srcArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+            // Hard coded movement to open MenuItem
+            clickOn(Point2D.ZERO.add(110, 10)).clickOn(Point2D.ZERO.add(110, 80));
+            PearlZipFXUtil.simOpenArchive(this, archive, false, false);
+
+            initialiseSystemMenu();
+
+            this.clickOn(325, 20)
+                .clickOn(325,60);
+
+            PasswordField pwField = Zip4jWaitUtil.waitForNode(this, "#textPassword");
+            this.clickOn(pwField);
+            Zip4jWaitUtil.waitForFxEvents();
+            TypeUtil.typeString(this, "password");
+            Button btnContinue = this.lookup("#btnContinue").queryAs(Button.class);
+            this.clickOn(btnContinue);
+            // The plugin's completion messages are not visible to the test, so completion is the rewritten central
+            // directory flagging every file as encrypted
+            Zip4jWaitUtil.waitForPath(archive, "archive to be encrypted", Zip4jEncryptTestFX::isFullyEncrypted);
+
+            Assertions.assertTrue((Boolean) new Zip4jArchiveReadService().generateArchiveMetaData(archive.toString()).getProperty(KEY_ENCRYPTION_ENABLE).orElse(false), "Generated file was not encrypted");
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Encrypt an temporary zip archive is not possible")
+    public void testFX_EncryptTemporaryZipArchive_Failure() throws IOException,InterruptedException {
+        try {
+            Path archive = Paths.get(STORE_TEMP.toAbsolutePath().toString(), "temp.zip");
+            simNewArchive(this, archive, true);
+
+            initialiseSystemMenu();
+
+            Zip4jWaitUtil.waitForFxEvents();
+            this.clickOn(325, 20)
+                .clickOn(325,60);
+
+            DialogPane dialogPane = Zip4jWaitUtil.waitForDialog(this, d -> Objects.nonNull(d.getContentText()));
+            Assertions.assertTrue(dialogPane.getContentText()
+                                            .matches(String.format(".*incompatible-encrypt.*")));
+        } finally {
+        }
+    }
+
+    private static boolean isFullyEncrypted(Path archive) {
+        try {
+            List<net.lingala.zip4j.model.FileHeader> headers = new net.lingala.zip4j.ZipFile(archive.toFile())
+                    .getFileHeaders();
+            return headers.stream().anyMatch(h -> !h.isDirectory()) &&
+                    headers.stream().allMatch(h -> h.isDirectory() || h.isEncrypted());
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
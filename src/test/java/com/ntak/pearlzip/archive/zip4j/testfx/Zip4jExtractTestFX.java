@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.testfx;
+
+import com.ntak.pearlzip.archive.zip4j.util.ArchiveIntegrityCommand;
+import com.ntak.pearlzip.archive.zip4j.util.ArchiveIntegrityVerifier;
+import com.ntak.pearlzip.archive.zip4j.util.RecoveryScanner;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jWaitUtil;
+import com.ntak.pearlzip.ui.util.JFXUtil;
+import com.ntak.pearlzip.ui.util.PearlZipFXUtil;
+import javafx.geometry.Point2D;
+import javafx.scene.control.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.ntak.pearlzip.archive.zip4j.util.ArchiveIntegrityCommand.CNS_TEST_ARCHIVE_FAILED_HEADER;
+import static com.ntak.pearlzip.archive.zip4j.util.ArchiveIntegrityCommand.CNS_TEST_ARCHIVE_PASSED_HEADER;
+
+public class Zip4jExtractTestFX extends AbstractZip4jTestFX {
+
+    /*
+     *  Test cases:
+     *  + Test archive menu item - entries verified in parallel, corruption reported without extraction
+     */
+    @Test
+    @DisplayName("Test: Test archive menu item verifies every entry in parallel and reports corruption")
+    public void testFX_TestArchiveMenuItem_VerifiesEntries() throws IOException, InterruptedException {
+        CorpusSpec spec = CorpusSpec.of(200, 16384)
+                                    .withFolders(1, 4);
+        Path source = Zip4jCorpusGenerator.corpus(spec);
+        Path archive = Paths.get("verifyArchive.zip").toAbsolutePath();
+        try {
+            Files.copy(source, archive, StandardCopyOption.REPLACE_EXISTING);
+            // Hard coded movement to open MenuItem
+            clickOn(Point2D.ZERO.add(110, 10)).clickOn(Point2D.ZERO.add(110, 80));
+            PearlZipFXUtil.simOpenArchive(this, archive, false, false);
+            Zip4jWaitUtil.waitForArchiveInfo(archive.toString());
+            initialiseSystemMenu();
+
+            // Intact archive passes
+            ArchiveIntegrityVerifier.CompletedEvent intact = fireTestArchive(archive);
+            Assertions.assertTrue(intact.isSuccess(), String.format("Intact archive failed: %s",
+                                                                    intact.entryFailures()));
+            Assertions.assertEquals(spec.entryCount(), intact.entriesVerified(), "Not every entry was verified");
+            DialogPane passed = Zip4jWaitUtil.waitForDialog(this, d -> Objects.nonNull(d.getContentText()) &&
+                    d.getContentText().contains(archive.toString()));
+            Assertions.assertEquals(ArchiveIntegrityCommand.resolveTextKey(CNS_TEST_ARCHIVE_PASSED_HEADER),
+                                    passed.getHeaderText(), "Unexpected result of archive test");
+            JFXUtil.runLater(() -> passed.getScene().getWindow().hide());
+            Zip4jWaitUtil.waitForFxEvents();
+
+            // A flipped payload byte fails the test of that entry only
+            RecoveryScanner.RecoveredEntry corrupted = RecoveryScanner.scan(archive)
+                                                                      .entries()
+                                                                      .get(100);
+            flipByte(archive, corrupted.dataOffset() + 10);
+            ArchiveIntegrityVerifier.CompletedEvent failed = fireTestArchive(archive);
+            Assertions.assertFalse(failed.isSuccess(), "Corrupted archive passed");
+            Assertions.assertEquals(List.of(corrupted.entry().name()),
+                                    failed.entryFailures()
+                                          .stream()
+                                          .map(ArchiveIntegrityVerifier.EntryFailure::name)
+                                          .toList(),
+                                    "Unexpected entries failed verification");
+            DialogPane failedDialog = Zip4jWaitUtil.waitForDialog(this, d -> Objects.nonNull(d.getContentText()) &&
+                    d.getContentText().contains(corrupted.entry().name()));
+            Assertions.assertEquals(ArchiveIntegrityCommand.resolveTextKey(CNS_TEST_ARCHIVE_FAILED_HEADER),
+                                    failedDialog.getHeaderText(), "Unexpected result of archive test");
+            JFXUtil.runLater(() -> failedDialog.getScene().getWindow().hide());
+            Zip4jWaitUtil.waitForFxEvents();
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    private static ArchiveIntegrityVerifier.CompletedEvent fireTestArchive(Path archive) {
+        try(Zip4jWaitUtil.BusEventWaiter<ArchiveIntegrityVerifier.CompletedEvent> completed =
+                    Zip4jWaitUtil.expectBusEvent(ArchiveIntegrityVerifier.CompletedEvent.class,
+                                                 e -> e.archive().equals(archive))) {
+            JFXUtil.runLater(() -> sysMenuZip4jMenu.getItems()
+                                                   .stream()
+                                                   .filter(i -> ArchiveIntegrityCommand.MENU_ITEM_ID.equals(i.getId()))
+                                                   .findFirst()
+                                                   .orElseThrow()
+                                                   .fire());
+            return completed.await("archive to be tested");
+        }
+    }
+
+    private static void flipByte(Path archive, long position) throws IOException {
+        byte[] content = Files.readAllBytes(archive);
+        content[(int) position] ^= (byte) 0xFF;
+        Files.write(archive, content);
+    }
+}
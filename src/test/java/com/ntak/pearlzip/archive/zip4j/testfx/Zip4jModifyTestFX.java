@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.testfx;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jTestUtil;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jWaitUtil;
+import com.ntak.pearlzip.ui.model.FXArchiveInfo;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.ntak.pearlzip.ui.util.PearlZipFXUtil.*;
+
+public class Zip4jModifyTestFX extends AbstractZip4jTestFX {
+
+    /*
+     *  Test cases:
+     *  + Add file to encrypted archive - success
+     *  + Delete file from encrypted archive - success
+     */
+    @Test
+    @DisplayName("Test: Add file to encrypted archive successfully")
+    public void testFX_AddFileEncryptedArchive_Success() throws IOException {
+        // Set up
+        Path archive = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "ea.zip");
+        Path srcArchive = Path.of("src", "test", "resources", "ea.zip").toAbsolutePath();
+        Files.createDirectories(archive.getParent());
+        Files.copy(srcArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+        Path file = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "additional_file");
+        Files.deleteIfExists(file);
+        Files.createFile(file);
+
+        try {
+            // Open encrypted archive
+            Zip4jTestUtil.simOpenEncryptedArchive(this, archive, true, false, "password");
+            FXArchiveInfo fxArchiveInfo = Zip4jWaitUtil.waitForArchiveInfo(archive.toAbsolutePath()
+                                                                                  .toString());
+            Zip4jWaitUtil.waitForFileCount(fxArchiveInfo, 3);
+            Assertions.assertTrue(fxArchiveInfo.getFiles()
+                                               .stream()
+                                               .noneMatch((f) -> f.getFileName()
+                                                                  .matches(
+                                                                          String.format(".*%s",
+                                                                                        file.getFileName()
+                                                                                            .toString())
+                                                                  )
+                                               ), "File already exists in archive unexpectedly");
+
+            // Add file
+            simAddFile(this, file);
+            Zip4jWaitUtil.waitForFileName(fxArchiveInfo, file.getFileName().toString());
+
+            // Checks
+            Assertions.assertTrue(fxArchiveInfo.getFiles()
+                                               .stream()
+                                               .anyMatch((f) -> f.getFileName()
+                                                                 .equals(file.getFileName()
+                                                                             .toString())
+                                               ), "File does not exist in archive");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(archive.getParent());
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Delete file from encrypted archive successfully")
+    public void testFX_DeleteFileEncryptedArchive_Success() throws IOException {
+        // Set up
+        Path archive = Path.of(STORE_TEMP.toAbsolutePath().toString(), "pz1234567890", "ea.zip");
+        Path srcArchive = Path.of("src", "test", "resources", "ea.zip").toAbsolutePath();
+        Files.createDirectories(archive.getParent());
+        Files.copy(srcArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+
+        try {
+            // Open encrypted archive
+            Zip4jTestUtil.simOpenEncryptedArchive(this, archive, true, false, "password");
+            FXArchiveInfo fxArchiveInfo = Zip4jWaitUtil.waitForArchiveInfo(archive.toAbsolutePath()
+                                                                                  .toString());
+            Zip4jWaitUtil.waitForFileCount(fxArchiveInfo, 3);
+            Assertions.assertTrue(fxArchiveInfo.getFiles()
+                                               .stream()
+                                               .anyMatch((f) -> f.getFileName()
+                                                                  .equals("folder/enc_file_2")
+                                                                  )
+                                               , "File does not exists in archive");
+            Zip4jWaitUtil.waitForFxEvents();
+            // Add file
+            simTraversalArchive(this, archive.toAbsolutePath().toString(), "#fileContentsView", (r)->{}, "folder",
+                                "enc_file_2");
+            simDelete(this);
+            Zip4jWaitUtil.waitForFiles(fxArchiveInfo, "folder/enc_file_2 to be removed",
+                                       (i) -> i.getFiles()
+                                               .stream()
+                                               .noneMatch((f) -> f.getFileName().equals("folder/enc_file_2")));
+
+            // Checks
+            Assertions.assertTrue(fxArchiveInfo.getFiles()
+                                               .stream()
+                                               .noneMatch((f) -> f.getFileName()
+                                                                 .equals("folder/enc_file_2")
+                                               )
+                    , "File was not deleted from archive");
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(archive.getParent());
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.testfx;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jTestUtil;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jWaitUtil;
+import com.ntak.pearlzip.ui.model.FXArchiveInfo;
+import com.ntak.pearlzip.ui.util.JFXUtil;
+import javafx.geometry.Point2D;
+import javafx.scene.control.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class Zip4jOpenTestFX extends AbstractZip4jTestFX {
+
+    /*
+     *  Test cases:
+     *  + Open encrypted Zip archive - success
+     *  + Open encrypted Zip archive - failure
+     *  + Open archive - length validation check
+     */
+    @Test
+    @DisplayName("Test: Open encrypted archive successfully")
+    public void testFX_OpenEncryptedArchive_Success() {
+        Path archive = Paths.get("src", "test", "resources", "ea.zip").toAbsolutePath();
+        Zip4jTestUtil.simOpenEncryptedArchive(this, archive, true, false, "password");
+
+        FXArchiveInfo fxArchiveInfo = Zip4jWaitUtil.waitForArchiveInfo(archive.toAbsolutePath().toString());
+        Zip4jWaitUtil.waitForFileCount(fxArchiveInfo, 3);
+        Assertions.assertEquals(3, fxArchiveInfo.getFiles().size(), "The expected number of files were not as anticipated");
+        Assertions.assertTrue(fxArchiveInfo.getFiles().stream().anyMatch(f-> f.getFileName().equals("folder")), "folder was not found in archive");
+        Assertions.assertTrue(fxArchiveInfo.getFiles().stream().anyMatch(f-> f.getFileName().equals("folder/enc_file_1")), "enc_file_1 was not found in archive");
+        Assertions.assertTrue(fxArchiveInfo.getFiles().stream().anyMatch(f-> f.getFileName().equals("folder/enc_file_2")), "enc_file_2 was not found in archive");
+
+        clickOn(Point2D.ZERO.add(110, 10)).clickOn(Point2D.ZERO.add(110, 160));
+        Zip4jWaitUtil.waitForFxEvents();
+    }
+
+    @Test
+    @DisplayName("Test: Open encrypted archive with wrong password yields error message")
+    public void testFX_OpenEncryptedArchiveWrongPassword_Fails() {
+        Path archive = Paths.get("src", "test", "resources", "ea.zip").toAbsolutePath();
+        Zip4jTestUtil.simOpenEncryptedArchive(this, archive, true, false, "p");
+
+        DialogPane dialogPane = Zip4jWaitUtil.waitForDialog(this, d -> Objects.nonNull(d.getHeaderText()));
+        Assertions.assertTrue(dialogPane.getHeaderText()
+                                        .matches(String.format(".*issue-extracting-file.*%s.*", archive)));
+        Assertions.assertTrue(JFXUtil.getMainStageInstances().stream().noneMatch(s->s.getTitle().contains(archive.toString())), "The archive was open unexpectedly");
+    }
+
+    @Test
+    @DisplayName("Test: Open encrypted archive with no password yields error message")
+    public void testFX_OpenEncryptedArchiveNoPassword_Fails() {
+        Path archive = Paths.get("src", "test", "resources", "ea.zip").toAbsolutePath();
+        Zip4jTestUtil.simOpenEncryptedArchive(this, archive, true, false, "");
+
+        DialogPane dialogPane = Zip4jWaitUtil.waitForDialog(this, d -> Objects.nonNull(d.getHeaderText()));
+        Assertions.assertTrue(dialogPane.getHeaderText()
+                                        .matches(String.format(".*issue-extracting-file.*%s.*", archive)));
+        Assertions.assertTrue(JFXUtil.getMainStageInstances().stream().noneMatch(s->s.getTitle().contains(archive.toString())), "The archive was open unexpectedly");
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.testfx;
+
+import com.ntak.pearlzip.archive.zip4j.util.SettingsStore;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jWaitUtil;
+import com.ntak.testfx.FormUtil;
+import javafx.geometry.Point2D;
+import javafx.scene.control.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.ntak.testfx.FormUtil.resetComboBox;
+
+public class Zip4jOptionsTestFX extends AbstractZip4jTestFX {
+
+    /*
+     *  Test cases:
+     *  + Zip4j options persistence (Apply,Cancel)
+     *  + Zip4j options persistence (Ok)
+     *  + Zip4j options no persistence (Cancel)
+     */
+    @Test
+    @DisplayName("Test: Change Zip4j Options while selecting Apply, Cancel buttons will persist configuration changes")
+    public void testFX_Zip4jOptionsApplyCancel_MatchExpectations() throws IOException {
+        // Current configuration is restored on completion
+        Path configFile = SETTINGS_FILE;
+
+        try(SettingsStore.FileSnapshot backupConfig = SettingsStore.snapshot(configFile)) {
+            // Navigate to Zip4J Options tab
+            this.clickOn(Point2D.ZERO.add(160, 10))
+                .clickOn(Point2D.ZERO.add(160, 30))
+                .clickOn(Point2D.ZERO.add(925, 200))
+                .doubleClickOn(Point2D.ZERO.add(925, 375));
+
+            this.clickOn("#comboDefaultCompressionLevel");
+
+            // Make changes
+            ComboBox comboDefaultCompressionLevel =
+                    this.lookup("#comboDefaultCompressionLevel").queryAs(ComboBox.class);
+            ComboBox comboDefaultCompressionMethod =
+                    this.lookup("#comboDefaultCompressionMethod").queryAs(ComboBox.class);
+
+            resetComboBox(this, comboDefaultCompressionLevel);
+            resetComboBox(this, comboDefaultCompressionMethod);
+
+            FormUtil.selectComboBoxEntry(this, comboDefaultCompressionMethod, "STORE");
+            FormUtil.selectComboBoxEntry(this, comboDefaultCompressionLevel, 4);
+
+            // Click Apply, Cancel
+            this.clickOn("#btnApply");
+            Zip4jWaitUtil.waitForFxEvents();
+            this.clickOn("#btnCancel");
+
+            // Check options have been persisted to settings file
+            List<String> configs = Files.readAllLines(configFile);
+            Assertions.assertTrue(
+                    configs.stream().anyMatch(s-> s.equals("configuration.zip4j.default-compression-level=4")),
+                    "Default compression level was not set as expected");
+            Assertions.assertTrue(
+                    configs.stream().anyMatch(s-> s.equals("configuration.zip4j.default-compression-method=STORE")),
+                    "Default compression level was not set as expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Change Zip4j Options while selecting ok button will persist configuration changes")
+    public void testFX_Zip4jOptionsOk_MatchExpectations() throws IOException {
+        // Current configuration is restored on completion
+        Path configFile = SETTINGS_FILE;
+
+        try(SettingsStore.FileSnapshot backupConfig = SettingsStore.snapshot(configFile)) {
+            // Navigate to Zip4J Options tab
+            this.clickOn(Point2D.ZERO.add(160, 10))
+                .clickOn(Point2D.ZERO.add(160, 30))
+                .clickOn(Point2D.ZERO.add(925, 200))
+                .doubleClickOn(Point2D.ZERO.add(925, 375));
+
+            this.clickOn("#comboDefaultCompressionLevel");
+
+            // Make changes
+            ComboBox comboDefaultCompressionLevel =
+                    this.lookup("#comboDefaultCompressionLevel").queryAs(ComboBox.class);
+            ComboBox comboDefaultCompressionMethod =
+                    this.lookup("#comboDefaultCompressionMethod").queryAs(ComboBox.class);
+
+            resetComboBox(this, comboDefaultCompressionLevel);
+            resetComboBox(this, comboDefaultCompressionMethod);
+
+            FormUtil.selectComboBoxEntry(this, comboDefaultCompressionMethod, "STORE");
+            FormUtil.selectComboBoxEntry(this, comboDefaultCompressionLevel, 4);
+
+            // Click Ok
+            this.clickOn("#btnOk");
+
+            // Check options have been persisted to settings file
+            List<String> configs = Files.readAllLines(configFile);
+            Assertions.assertTrue(
+                    configs.stream().anyMatch(s-> s.equals("configuration.zip4j.default-compression-level=4")),
+                    "Default compression level was not set as expected");
+            Assertions.assertTrue(
+                    configs.stream().anyMatch(s-> s.equals("configuration.zip4j.default-compression-method=STORE")),
+                    "Default compression level was not set as expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Change Zip4j Options while selecting cancel button will not persist configuration changes")
+    public void testFX_Zip4jOptionsCancel_MatchExpectations() throws IOException {
+        // Current configuration is restored on completion
+        Path configFile = SETTINGS_FILE;
+
+        try(SettingsStore.FileSnapshot backupConfig = SettingsStore.snapshot(configFile)) {
+            // Navigate to Zip4J Options tab
+            this.clickOn(Point2D.ZERO.add(160, 10))
+                .clickOn(Point2D.ZERO.add(160, 30))
+                .clickOn(Point2D.ZERO.add(925, 200))
+                .doubleClickOn(Point2D.ZERO.add(925, 375));
+
+            this.clickOn("#comboDefaultCompressionLevel");
+
+            // Make changes
+            ComboBox comboDefaultCompressionLevel =
+                    this.lookup("#comboDefaultCompressionLevel").queryAs(ComboBox.class);
+            ComboBox comboDefaultCompressionMethod =
+                    this.lookup("#comboDefaultCompressionMethod").queryAs(ComboBox.class);
+
+            resetComboBox(this, comboDefaultCompressionLevel);
+            resetComboBox(this, comboDefaultCompressionMethod);
+
+            FormUtil.selectComboBoxEntry(this, comboDefaultCompressionMethod, "STORE");
+            FormUtil.selectComboBoxEntry(this, comboDefaultCompressionLevel, 4);
+
+            // Click Cancel
+            this.clickOn("#btnCancel");
+
+            // Check options have been persisted to settings file
+            List<String> configs = Files.readAllLines(configFile);
+            List<String> backupConfigs = backupConfig.lines();
+            for (int i = 0; i < backupConfigs.size(); i++) {
+                Assertions.assertEquals(configs.get(i), backupConfigs.get(i), "Line does not match from settings files. No change expected");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.testfx;
+
+import com.ntak.pearlzip.archive.zip4j.util.SettingsStore;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jTestUtil;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jWaitUtil;
+import com.ntak.pearlzip.ui.model.FXArchiveInfo;
+import com.ntak.pearlzip.ui.util.PearlZipFXUtil;
+import com.ntak.testfx.NativeFileChooserUtil;
+import com.ntak.testfx.TestFXConstants;
+import javafx.geometry.Point2D;
+import javafx.scene.control.DialogPane;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.ntak.pearlzip.archive.zip4j.constants.Zip4jConstants.KEY_SPLIT_ARCHIVE_SIZE;
+import static com.ntak.pearlzip.ui.UITestSuite.clearDirectory;
+import static com.ntak.pearlzip.ui.util.PearlZipFXUtil.*;
+
+public class Zip4jSplitTestFX extends AbstractZip4jTestFX {
+
+    /*
+     *  Test cases:
+     *  + Split an unencrypted zip archive - success
+     *  + Split an encrypted zip archive - failure
+     */
+    @Test
+    @DisplayName("Test: Split an unencrypted zip archive successfully")
+    public void testFX_SplitUnencryptedZipArchive_Success() throws IOException, InterruptedException {
+        // Set split size to minimum value...
+        SettingsStore.Overlay splitSize = settingsStore.overlay(Map.of(KEY_SPLIT_ARCHIVE_SIZE, "65536"));
+
+        Path srcArchive = Paths.get("src", "test", "resources", "unencryptedArchive.zip").toAbsolutePath();
+        Path archive = Paths.get("tempArchive.zip").toAbsolutePath();
+
+        Path tgtArchive = Files.createTempDirectory("pz");
+        Path filePath = Zip4jCorpusGenerator.generateFile(Files.createTempDirectory("pz").resolve("megFile.bin"),
+                                                          1048576, 0, Zip4jCorpusGenerator.DEFAULT_SEED);
+        try {
+            Files.copy(srcArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+            // Hard coded movement to open MenuItem
+            clickOn(Point2D.ZERO.add(110, 10)).clickOn(Point2D.ZERO.add(110, 80));
+            PearlZipFXUtil.simOpenArchive(this, archive, false, false);
+            simAddFile(this, filePath);
+
+            FXArchiveInfo info = Zip4jWaitUtil.waitForArchiveInfo(archive.toString());
+            Zip4jWaitUtil.waitForFileCount(info, 4);
+            initialiseSystemMenu();
+            Zip4jWaitUtil.waitForFxEvents();
+            this.clickOn(325, 10)
+                .clickOn(325,40);
+            Zip4jWaitUtil.waitForFxEvents();
+
+            NativeFileChooserUtil.chooseFile(TestFXConstants.PLATFORM, this, tgtArchive);
+            // The final volume holds the central directory, so is readable only once the split is complete
+            Zip4jWaitUtil.waitForPath(tgtArchive, "split archive to be complete",
+                                      (d) -> isCompleteSplitArchive(d, 4));
+            Assertions.assertTrue(Files.list(tgtArchive).count() > 1, String.format("Archive was not split as " +
+                                                                                            "expected. Number of " +
+                                                                                            "files detected: %s",
+                                                                                    Files.list(tgtArchive).count()));
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(filePath);
+            Files.deleteIfExists(filePath.getParent());
+            clearDirectory(tgtArchive);
+            splitSize.close();
+            System.out.println(tgtArchive);
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Split an encrypted zip archive fails")
+    public void testFX_SplitEncryptedZipArchive_Fails() throws IOException, InterruptedException {
+        // Set split size to minimum value...
+        SettingsStore.Overlay splitSize = settingsStore.overlay(Map.of(KEY_SPLIT_ARCHIVE_SIZE, "65536"));
+
+        Path srcArchive = Paths.get("src", "test", "resources", "ea.zip").toAbsolutePath();
+        Path archive = Paths.get("tempencryptedarchive.zip").toAbsolutePath();
+
+        Path tgtArchive = Files.createTempDirectory("pz");
+        try {
+            Files.copy(srcArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+            // Hard coded movement to open MenuItem
+            clickOn(Point2D.ZERO.add(110, 10)).clickOn(Point2D.ZERO.add(110, 80));
+            Zip4jTestUtil.simOpenEncryptedArchive(this, archive, false, false,"password");
+
+            FXArchiveInfo info = Zip4jWaitUtil.waitForArchiveInfo(archive.toString());
+            Zip4jWaitUtil.waitForFileCount(info, 3);
+            initialiseSystemMenu();
+            Zip4jWaitUtil.waitForFxEvents();
+            this.clickOn(325, 10)
+                .clickOn(325,40);
+
+            DialogPane dialogPane = Zip4jWaitUtil.waitForDialog(this, d -> Objects.nonNull(d.getContentText()));
+            Assertions.assertTrue(dialogPane.getContentText()
+                                            .matches(String.format(".*incompatible-split.*")));
+        } finally {
+            Files.deleteIfExists(archive);
+            clearDirectory(tgtArchive);
+            splitSize.close();
+            System.out.println(tgtArchive);
+        }
+    }
+
+    private static boolean isCompleteSplitArchive(Path directory, int entryCount) {
+        try(Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".zip")).toList()) {
+                net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(file.toFile());
+                if (zipFile.isSplitArchive() && zipFile.getFileHeaders().size() >= entryCount) {
+                    return true;
+                }
+            }
+            return false;
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
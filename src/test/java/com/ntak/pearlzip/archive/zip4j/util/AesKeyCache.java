@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  Session scoped cache of AES keys derived by PBKDF2, keyed by archive, salt, key strength and a hash of the
+ *  password. Keys and password hashes are held in memory only and wiped on eviction and on close. Cached keys are
+ *  shared and must not be wiped by callers.
+ */
+public class AesKeyCache implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_ENTRIES = 65536;
+
+    private final int maxEntries;
+    private final Map<CacheKey,WinZipAes.DerivedKey> keys;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private boolean closed;
+
+    private record CacheKey(String archive, String salt, int strength, byte[] passwordHash) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CacheKey k && archive.equals(k.archive) && salt.equals(k.salt) &&
+                    strength == k.strength && MessageDigest.isEqual(passwordHash, k.passwordHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(archive, salt, strength, Arrays.hashCode(passwordHash));
+        }
+
+        // Only once removed from the map, as wiping changes the hash code
+        private void wipe() {
+            Arrays.fill(passwordHash, (byte) 0);
+        }
+    }
+
+    public AesKeyCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public AesKeyCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.keys = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    /**
+     *  Returns the cached key or derives it. Derivation happens outside of the lock, so concurrent misses for
+     *  different entries derive in parallel.
+     */
+    public WinZipAes.DerivedKey derive(Path archive, char[] password, byte[] salt, int strength) {
+        final CacheKey key = new CacheKey(archive.toAbsolutePath().normalize().toString(),
+                                          HexFormat.of().formatHex(salt), strength, hash(password));
+        synchronized(this) {
+            checkOpen();
+            final WinZipAes.DerivedKey cached = keys.get(key);
+            if (cached != null) {
+                key.wipe();
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        final WinZipAes.DerivedKey derived = WinZipAes.derive(password, salt, strength);
+        synchronized(this) {
+            if (closed) {
+                key.wipe();
+                derived.wipe();
+            }
+            checkOpen();
+            final WinZipAes.DerivedKey existing = keys.putIfAbsent(key, derived);
+            if (existing != null) {
+                key.wipe();
+                derived.wipe();
+                return existing;
+            }
+            evict();
+            return derived;
+        }
+    }
+
+    /**
+     *  Wipes and removes all keys held for the archive, e.g. once it has been closed or its password changed.
+     */
+    public synchronized void invalidate(Path archive) {
+        final String path = archive.toAbsolutePath().normalize().toString();
+        for (Iterator<Map.Entry<CacheKey,WinZipAes.DerivedKey>> it = keys.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<CacheKey,WinZipAes.DerivedKey> entry = it.next();
+            if (entry.getKey().archive().equals(path)) {
+                it.remove();
+                wipe(entry);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        final List<Map.Entry<CacheKey,WinZipAes.DerivedKey>> entries = new ArrayList<>(keys.entrySet());
+        keys.clear();
+        entries.forEach(AesKeyCache::wipe);
+        closed = true;
+    }
+
+    /**
+     *  The password hashes currently held, for verifying that they are wiped.
+     */
+    synchronized List<byte[]> passwordHashes() {
+        return keys.keySet().stream().map(CacheKey::passwordHash).toList();
+    }
+
+    private void evict() {
+        for (Iterator<Map.Entry<CacheKey,WinZipAes.DerivedKey>> it = keys.entrySet().iterator();
+             keys.size() > maxEntries; ) {
+            final Map.Entry<CacheKey,WinZipAes.DerivedKey> eldest = it.next();
+            it.remove();
+            wipe(eldest);
+        }
+    }
+
+    private static void wipe(Map.Entry<CacheKey,WinZipAes.DerivedKey> entry) {
+        entry.getKey().wipe();
+        entry.getValue().wipe();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("AES key cache has been closed");
+        }
+    }
+
+    private static byte[] hash(char[] password) {
+        final ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        final byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+            if (encoded.hasArray()) {
+                Arrays.fill(encoded.array(), (byte) 0);
+            }
+        }
+    }
+}
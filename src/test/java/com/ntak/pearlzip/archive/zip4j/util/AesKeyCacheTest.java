@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class AesKeyCacheTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Extract an encrypted archive twice - keys derived once and reused, then wiped on close
+     */
+    @Test
+    @DisplayName("Test: AES keys are derived once per session and wiped on close")
+    public void test_AesKeyCache_ReusedAcrossOperations() throws IOException {
+        // Set up
+        Path archive = Paths.get("src", "test", "resources", "ea.zip").toAbsolutePath();
+        AesKeyCache keyCache = new AesKeyCache();
+        List<byte[]> passwordHashes;
+
+        try {
+            // First extraction derives a key per entry, the second reuses them. The key of the first entry is
+            // derived by the up front password check, so its extraction is served from the cache
+            ParallelExtractor extractor = new ParallelExtractor(2, ParallelExtractor.DEFAULT_MAX_IN_FLIGHT_BYTES,
+                                                                keyCache);
+            extractor.extract(archive, workingDir, Zip4jCorpusGenerator.PASSWORD.toCharArray());
+            Assertions.assertEquals(2, keyCache.getMisses(), "Keys were not derived for each encrypted entry");
+            Assertions.assertEquals(1, keyCache.getHits(), "Key of the verified entry was not reused");
+            extractor.extract(archive, workingDir, Zip4jCorpusGenerator.PASSWORD.toCharArray());
+            Assertions.assertEquals(2, keyCache.getMisses(), "Keys were derived again");
+            Assertions.assertEquals(4, keyCache.getHits(), "Cached keys were not reused");
+
+            // A different password is not served from the cache
+            Assertions.assertThrows(EntryDecoder.WrongPasswordException.class,
+                                    () -> extractor.extract(archive, workingDir, "p".toCharArray()));
+            Assertions.assertTrue(keyCache.getMisses() > 2, "Key for a different password was not derived");
+            passwordHashes = keyCache.passwordHashes();
+        } finally {
+            keyCache.close();
+        }
+
+        Assertions.assertEquals(0, keyCache.size(), "Keys were retained after close");
+        Assertions.assertFalse(passwordHashes.isEmpty(), "No password hashes were held");
+        for (byte[] passwordHash : passwordHashes) {
+            Assertions.assertArrayEquals(new byte[passwordHash.length], passwordHash,
+                                         "Password hash was not wiped on close");
+        }
+    }
+}
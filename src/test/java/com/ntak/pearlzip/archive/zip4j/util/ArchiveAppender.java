@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.EndOfCentralDirectory;
+import com.ntak.pearlzip.archive.zip4j.util.ParallelZipWriter.EntrySource;
+import com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.EntryRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import static com.ntak.pearlzip.archive.zip4j.util.ParallelZipWriter.writeFully;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.centralDirectoryRecord;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.endOfCentralDirectory;
+
+/**
+ *  Appends entries to an existing archive in place: the new local entries are written over the old central directory,
+ *  followed by the old central directory records (copied verbatim, as existing entries do not move), the records of
+ *  the new entries and a new end record. The bytes written are therefore the new entries and the central directory,
+ *  regardless of the size of the existing entries.
+ *
+ *  Before the archive is modified, the old central directory and end record are saved to a journal
+ *  ({@code <archive>}{@value #JOURNAL_SUFFIX}) which is forced to disk and deleted once the append is complete. An
+ *  append that fails is rolled back from the journal. A journal left by an interrupted append (e.g. a crash) is
+ *  applied by {@link #recover(Path)}, which restores the archive to its state before the append; this is done
+ *  automatically before the next append. {@link ArchiveCompactor} journals its in place deletes the same way.
+ *
+ *  New entries are written by the given {@link ParallelZipWriter}, so cannot use Zip standard encryption. The archive
+ *  comment (if any) is not retained and split archives are not supported.
+ */
+public class ArchiveAppender {
+
+    public static final String JOURNAL_SUFFIX = ".pzjournal";
+
+    private static final int JOURNAL_MAGIC = 0x4a5a5031; // PZJ1
+    private static final int JOURNAL_HEADER_SIZE = 4 + 8 + 8 + 8;
+
+    private final Path archive;
+    private final ParallelZipWriter writer;
+
+    public record AppendResult(long entriesAdded, long bytesWritten, long journalBytes, long archiveSize) {
+    }
+
+    public ArchiveAppender(Path archive, ParallelZipWriter writer) {
+        this.archive = archive;
+        this.writer = writer;
+    }
+
+    public static Path journal(Path archive) {
+        return archive.resolveSibling(String.format("%s%s", archive.getFileName(), JOURNAL_SUFFIX));
+    }
+
+    /**
+     *  Appends the entries to the archive, after recovering any interrupted append.
+     *
+     *  @throws IllegalArgumentException if an entry of the same name already exists in the archive
+     */
+    public synchronized AppendResult append(List<EntrySource> entries) throws IOException {
+        recover(archive);
+
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.ADD)) {
+            final EndOfCentralDirectory eocd;
+            final ByteBuffer tail;
+            final long originalSize;
+            try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+                eocd = reader.endOfCentralDirectory();
+                if (eocd.diskNumber() != 0 || eocd.centralDirectoryDisk() != 0) {
+                    throw new IOException(String.format("%s is a split archive", archive));
+                }
+                final Set<String> existing = reader.stream()
+                                                   .map(CentralDirectoryEntry::name)
+                                                   .collect(Collectors.toSet());
+                for (EntrySource entry : entries) {
+                    if (existing.contains(entry.name())) {
+                        throw new IllegalArgumentException(String.format("%s already exists in %s", entry.name(),
+                                                                         archive));
+                    }
+                }
+
+                // The central directory, any zip64 end records and the end record, which are overwritten
+                originalSize = reader.getChannel()
+                                     .size();
+                tail = reader.read(eocd.centralDirectoryOffset(),
+                                   Math.toIntExact(originalSize - eocd.centralDirectoryOffset()));
+            }
+            if (entries.isEmpty()) {
+                return new AppendResult(0, 0, 0, originalSize);
+            }
+
+            final long journalBytes = writeJournal(archive, eocd.centralDirectoryOffset(), originalSize, tail);
+
+            long written;
+            try(FileChannel channel = FileChannel.open(archive, StandardOpenOption.WRITE)) {
+                channel.position(eocd.centralDirectoryOffset());
+                final List<EntryRecord> records = writer.writeEntries(channel, entries);
+
+                final long centralDirectoryOffset = channel.position();
+                writeFully(channel, tail.slice(0, Math.toIntExact(eocd.centralDirectorySize())));
+                for (EntryRecord record : records) {
+                    writeFully(channel, centralDirectoryRecord(record));
+                }
+                writeFully(channel, endOfCentralDirectory(eocd.entryCount() + records.size(),
+                                                          centralDirectoryOffset,
+                                                          channel.position() - centralDirectoryOffset));
+                channel.truncate(channel.position());
+                channel.force(false);
+                written = channel.position() - eocd.centralDirectoryOffset();
+            } catch(IOException | RuntimeException e) {
+                recover(archive);
+                throw e;
+            }
+            Files.delete(journal(archive));
+
+            return new AppendResult(entries.size(), written, journalBytes, Files.size(archive));
+        }
+    }
+
+    /**
+     *  Restores the archive from the journal of an interrupted append or delete, if there is one. A journal that is
+     *  incomplete was not forced to disk, in which case the archive was not modified and the journal is discarded.
+     *
+     *  @return true if the archive was restored
+     */
+    public static boolean recover(Path archive) throws IOException {
+        final Path journal = journal(archive);
+        if (!Files.exists(journal)) {
+            return false;
+        }
+
+        final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(journal));
+        final boolean complete = content.remaining() >= JOURNAL_HEADER_SIZE &&
+                content.getInt(0) == JOURNAL_MAGIC &&
+                content.remaining() - JOURNAL_HEADER_SIZE == content.getLong(12) - content.getLong(4);
+        final ByteBuffer tail = content.slice(Math.min(JOURNAL_HEADER_SIZE, content.remaining()),
+                                              Math.max(0, content.remaining() - JOURNAL_HEADER_SIZE));
+        if (!complete || crc(tail.duplicate()) != content.getLong(20)) {
+            Files.delete(journal);
+            return false;
+        }
+
+        try(FileChannel channel = FileChannel.open(archive, StandardOpenOption.WRITE)) {
+            channel.position(content.getLong(4));
+            writeFully(channel, tail);
+            channel.truncate(content.getLong(12));
+            channel.force(false);
+        }
+        Files.delete(journal);
+        return true;
+    }
+
+    /**
+     *  Saves the tail of the archive from the central directory onwards, which is about to be overwritten in place,
+     *  and forces it to disk.
+     *
+     *  @return the size of the journal
+     */
+    static long writeJournal(Path archive, long centralDirectoryOffset, long originalSize,
+            ByteBuffer tail) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE)
+                                            .putInt(JOURNAL_MAGIC)
+                                            .putLong(centralDirectoryOffset)
+                                            .putLong(originalSize)
+                                            .putLong(crc(tail.duplicate()))
+                                            .flip();
+        final long length = header.remaining() + tail.remaining();
+        try(FileChannel channel = FileChannel.open(journal(archive), StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, tail.duplicate());
+            channel.force(true);
+        }
+        return length;
+    }
+
+    private static long crc(ByteBuffer buffer) {
+        final CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.Deflater;
+
+public class ArchiveAppenderTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Incremental append to encrypted archive - bytes written bounded by new entry and central directory
+     */
+    @Test
+    @DisplayName("Test: Incremental append to an encrypted archive only writes the new entry and central directory")
+    public void test_AppendEncryptedArchive_BytesWritten(TestReporter reporter) throws IOException {
+        // Set up
+        CorpusSpec spec = CorpusSpec.of(500, 65536)
+                                    .withFolders(1, 5)
+                                    .withEncryption(Zip4jEncryption.AES_256);
+        Path archive = workingDir.resolve("append.zip");
+        Path file = workingDir.resolve("additional_file");
+        Path missing = workingDir.resolve("missing_file");
+        Files.copy(Zip4jCorpusGenerator.corpus(spec), archive, StandardCopyOption.REPLACE_EXISTING);
+        Files.writeString(file, "additional content");
+        ArchiveAppender appender = new ArchiveAppender(archive,
+                                                       new ParallelZipWriter(1, Deflater.DEFAULT_COMPRESSION,
+                                                                             Zip4jEncryption.AES_256,
+                                                                             Zip4jCorpusGenerator.PASSWORD
+                                                                                     .toCharArray()));
+
+        // Append writes no more than the new entry, the central directory and end record
+        long entryCount;
+        long centralDirectorySize;
+        try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            entryCount = reader.endOfCentralDirectory().entryCount();
+            centralDirectorySize = reader.endOfCentralDirectory().centralDirectorySize();
+        }
+        ArchiveAppender.AppendResult result =
+                appender.append(List.of(ParallelZipWriter.EntrySource.of(file, "additional_file")));
+        reporter.publishEntry("append", String.format("%d bytes written (journal %d bytes) of a %d byte archive",
+                                                      result.bytesWritten(), result.journalBytes(),
+                                                      result.archiveSize()));
+        Assertions.assertEquals(1, result.entriesAdded(), "Entry was not added");
+        // Local header, AES salt, verifier and MAC, and central directory record of the new entry are within 1 KiB
+        Assertions.assertTrue(result.bytesWritten() <= centralDirectorySize + 98 + 1024,
+                              String.format("Append wrote %d bytes", result.bytesWritten()));
+        Assertions.assertFalse(Files.exists(ArchiveAppender.journal(archive)), "Journal was not removed");
+
+        // Archive is readable by Zip4j
+        net.lingala.zip4j.ZipFile zip4jFile = new net.lingala.zip4j.ZipFile(archive.toFile(),
+                                                                            Zip4jCorpusGenerator.PASSWORD
+                                                                                    .toCharArray());
+        Assertions.assertTrue(zip4jFile.isValidZipFile(), "Archive is not valid after append");
+        Assertions.assertEquals(entryCount + 1, zip4jFile.getFileHeaders().size(), "Unexpected number of entries");
+        try(InputStream stream = zip4jFile.getInputStream(zip4jFile.getFileHeader("additional_file"))) {
+            Assertions.assertEquals("additional content", new String(stream.readAllBytes()),
+                                    "Appended entry not readable");
+        }
+        try(InputStream stream = zip4jFile.getInputStream(zip4jFile.getFileHeader(spec.entryName(0)))) {
+            Assertions.assertEquals(65536, stream.readAllBytes().length, "Existing entry not readable");
+        }
+
+        // A failed append is rolled back from the journal, after its first entry has been written
+        byte[] appended = Files.readAllBytes(archive);
+        Assertions.assertThrows(IOException.class, () -> appender.append(
+                List.of(ParallelZipWriter.EntrySource.of(file, "second_file"),
+                        new ParallelZipWriter.EntrySource("missing_file", missing, 0))));
+        Assertions.assertArrayEquals(appended, Files.readAllBytes(archive), "Archive was not rolled back");
+        Assertions.assertFalse(Files.exists(ArchiveAppender.journal(archive)), "Journal was not removed");
+
+        // A journal that was not completed (i.e. a crash before the archive was modified) is discarded
+        Files.write(ArchiveAppender.journal(archive), new byte[]{1, 2, 3});
+        Assertions.assertFalse(ArchiveAppender.recover(archive), "Incomplete journal was applied");
+        Assertions.assertFalse(Files.exists(ArchiveAppender.journal(archive)), "Journal was not removed");
+        Assertions.assertArrayEquals(appended, Files.readAllBytes(archive), "Archive was modified");
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.EndOfCentralDirectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ntak.pearlzip.archive.zip4j.util.ParallelZipWriter.writeFully;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.endOfCentralDirectory;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.relocate;
+
+/**
+ *  Deletes entries by rewriting only the central directory: the records of surviving entries are copied verbatim
+ *  over the old central directory and the archive is truncated after the new end record. The payloads of deleted
+ *  entries remain in the file as dead space until compaction, which copies the surviving ranges into a new file
+ *  with {@link FileChannel#transferTo} and is batched onto a background thread once the dead space exceeds a
+ *  threshold. The archive comment, if any, is retained by both.
+ *
+ *  The central directory and end record overwritten by a delete are first saved to the journal used by
+ *  {@link ArchiveAppender}, so a delete that fails is rolled back and one that is interrupted is recovered by
+ *  {@link ArchiveAppender#recover(Path)}, which is applied automatically before the next delete or compaction.
+ *
+ *  Split archives are not supported.
+ */
+public class ArchiveCompactor implements AutoCloseable {
+
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.25;
+    public static final long DEFAULT_COMPACTION_DELAY = 2000;
+
+    private final Path archive;
+    private final double compactionThreshold;
+    private final long compactionDelay;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private Future<?> pendingCompaction;
+    private long deadBytes = -1;
+
+    public record DeleteResult(long entriesRemoved, long bytesWritten, long deadBytes, long archiveSize) {
+        public double deadRatio() {
+            return archiveSize == 0 ? 0 : (double) deadBytes / archiveSize;
+        }
+    }
+
+    public ArchiveCompactor(Path archive) {
+        this(archive, DEFAULT_COMPACTION_THRESHOLD, DEFAULT_COMPACTION_DELAY);
+    }
+
+    public ArchiveCompactor(Path archive, double compactionThreshold, long compactionDelay) {
+        this.archive = archive;
+        this.compactionThreshold = compactionThreshold;
+        this.compactionDelay = compactionDelay;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread thread = new Thread(r, String.format("pz-compact-%s", archive.getFileName()));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     *  Total bytes written to disk by deletes and compactions of this instance.
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     *  Removes the named entries (and the contents of named folders) from the central directory. Compaction is
+     *  scheduled if the dead space then exceeds the compaction threshold.
+     */
+    public synchronized DeleteResult delete(Collection<String> names) throws IOException {
+        if (ArchiveAppender.recover(archive)) {
+            deadBytes = -1;
+        }
+
+        final List<CentralDirectoryEntry> survivors = new ArrayList<>();
+        final EndOfCentralDirectory eocd;
+        final ByteBuffer records;
+        final ByteBuffer tail;
+        final byte[] comment;
+        final long originalSize;
+        long removed = 0;
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.DELETE);
+            CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            eocd = checkSingleVolume(reader);
+            comment = comment(reader, eocd);
+            final List<CentralDirectoryEntry> entries = reader.stream().toList();
+            if (deadBytes < 0) {
+                deadBytes = measureDeadBytes(reader, entries, eocd);
+            }
+            for (CentralDirectoryEntry entry : entries) {
+                if (names.stream().anyMatch(n -> matches(entry, n))) {
+                    deadBytes += spanEnd(reader, entry, Long.MAX_VALUE) - entry.localHeaderOffset();
+                    removed++;
+                } else {
+                    survivors.add(entry);
+                }
+            }
+
+            // Surviving records are buffered ahead of the write, as they are read from the region being overwritten
+            records = ByteBuffer.allocate(survivors.stream().mapToInt(CentralDirectoryEntry::recordLength).sum());
+            if (removed > 0) {
+                for (CentralDirectoryEntry entry : survivors) {
+                    records.put(reader.read(entry.recordOffset(), entry.recordLength()));
+                }
+            }
+            records.flip();
+
+            // The central directory, any zip64 end records and the end record, which are overwritten
+            originalSize = reader.getChannel()
+                                 .size();
+            tail = removed > 0 ? reader.read(eocd.centralDirectoryOffset(),
+                                             Math.toIntExact(originalSize - eocd.centralDirectoryOffset())) : null;
+        }
+        if (removed == 0) {
+            return new DeleteResult(0, 0, deadBytes, originalSize);
+        }
+
+        ArchiveAppender.writeJournal(archive, eocd.centralDirectoryOffset(), originalSize, tail);
+        long written = records.remaining();
+        try(FileChannel channel = FileChannel.open(archive, StandardOpenOption.WRITE)) {
+            channel.position(eocd.centralDirectoryOffset());
+            writeFully(channel, records);
+            final ByteBuffer end = endOfCentralDirectory(survivors.size(), eocd.centralDirectoryOffset(), written,
+                                                         comment);
+            written += end.remaining();
+            writeFully(channel, end);
+            channel.truncate(channel.position());
+            channel.force(false);
+        } catch(IOException | RuntimeException e) {
+            deadBytes = -1;
+            ArchiveAppender.recover(archive);
+            throw e;
+        }
+        Files.delete(ArchiveAppender.journal(archive));
+        bytesWritten.addAndGet(written);
+
+        final DeleteResult result = new DeleteResult(removed, written, deadBytes, Files.size(archive));
+        if (result.deadRatio() > compactionThreshold) {
+            scheduleCompaction();
+        }
+        return result;
+    }
+
+    /**
+     *  Schedules a compaction after the compaction delay, unless one is already pending. Deletes within the delay
+     *  are therefore compacted together.
+     */
+    public synchronized Future<?> scheduleCompaction() {
+        if (Objects.isNull(pendingCompaction) || pendingCompaction.isDone()) {
+            pendingCompaction = scheduler.schedule(() -> {
+                compact();
+                return null;
+            }, compactionDelay, TimeUnit.MILLISECONDS);
+        }
+        return pendingCompaction;
+    }
+
+    /**
+     *  Waits for a pending compaction, if any.
+     */
+    public void awaitCompaction() throws IOException {
+        final Future<?> compaction;
+        synchronized(this) {
+            compaction = pendingCompaction;
+        }
+        if (Objects.isNull(compaction)) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted whilst awaiting compaction", e);
+        } catch(ExecutionException e) {
+            throw new IOException(String.format("Compaction of %s failed", archive), e.getCause());
+        }
+    }
+
+    /**
+     *  Copies the surviving entries into a new file, removing all dead space, and atomically replaces the archive.
+     *
+     *  @return the bytes written
+     */
+    public synchronized long compact() throws IOException {
+        // A journal left by an interrupted delete must not be applied to the compacted archive
+        ArchiveAppender.recover(archive);
+
+        final Path staging = Files.createTempFile(archive.toAbsolutePath().getParent(), "compact", ".tmp");
+        long written;
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.DELETE);
+            CentralDirectoryReader reader = new CentralDirectoryReader(archive);
+            FileChannel target = FileChannel.open(staging, StandardOpenOption.WRITE)) {
+            final EndOfCentralDirectory eocd = checkSingleVolume(reader);
+            final FileChannel source = reader.getChannel();
+            final List<CentralDirectoryEntry> entries = reader.stream().toList();
+            final List<CentralDirectoryEntry> byOffset = entries.stream()
+                                                                .sorted(Comparator.comparingLong(
+                                                                        CentralDirectoryEntry::localHeaderOffset))
+                                                                .toList();
+
+            // Any prefix (e.g. a self extracting stub) is retained
+            final long prefix = prefixLength(reader, entries);
+            transfer(source, 0, prefix, target);
+
+            final long[] newOffsets = new long[entries.size()];
+            for (int i = 0; i < byOffset.size(); i++) {
+                final CentralDirectoryEntry entry = byOffset.get(i);
+                final long end = i + 1 < byOffset.size() ? byOffset.get(i + 1).localHeaderOffset() :
+                        eocd.centralDirectoryOffset();
+                newOffsets[(int) entry.index()] = target.position();
+                transfer(source, entry.localHeaderOffset(), spanEnd(reader, entry, end) - entry.localHeaderOffset(),
+                         target);
+            }
+
+            final long centralDirectoryOffset = target.position();
+            for (CentralDirectoryEntry entry : entries) {
+                final ByteBuffer record = reader.read(entry.recordOffset(), entry.recordLength());
+                writeFully(target, relocate(record, newOffsets[(int) entry.index()], 0));
+            }
+            writeFully(target, endOfCentralDirectory(entries.size(), centralDirectoryOffset,
+                                                     target.position() - centralDirectoryOffset,
+                                                     comment(reader, eocd)));
+            target.force(false);
+            written = target.position();
+        } catch(IOException | RuntimeException e) {
+            Files.deleteIfExists(staging);
+            throw e;
+        }
+
+        Files.move(staging, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deadBytes = 0;
+        bytesWritten.addAndGet(written);
+        return written;
+    }
+
+    /**
+     *  Bytes of the archive before the central directory not referenced by any surviving entry.
+     */
+    public synchronized long deadBytes() throws IOException {
+        if (deadBytes < 0) {
+            try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+                deadBytes = measureDeadBytes(reader, reader.stream().toList(), reader.endOfCentralDirectory());
+            }
+        }
+        return deadBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitCompaction();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static boolean matches(CentralDirectoryEntry entry, String name) {
+        return entry.name().equals(name) || (name.endsWith("/") && entry.name().startsWith(name));
+    }
+
+    private EndOfCentralDirectory checkSingleVolume(CentralDirectoryReader reader) throws IOException {
+        final EndOfCentralDirectory eocd = reader.endOfCentralDirectory();
+        if (eocd.diskNumber() != 0 || eocd.centralDirectoryDisk() != 0) {
+            throw new IOException(String.format("%s is a split archive", archive));
+        }
+        return eocd;
+    }
+
+    /**
+     *  Archive comment following the end record.
+     */
+    private static byte[] comment(CentralDirectoryReader reader, EndOfCentralDirectory eocd) throws IOException {
+        final long commentOffset = eocd.offset() + CentralDirectoryReader.END_OF_CENTRAL_DIRECTORY_SIZE;
+        // A comment length overrunning the file is truncated, as by other readers
+        final int length = (int) Math.min(Short.toUnsignedInt(reader.read(eocd.offset() + 20, 2).getShort(0)),
+                                          reader.getChannel().size() - commentOffset);
+        final byte[] comment = new byte[length];
+        reader.read(commentOffset, length).get(comment);
+        return comment;
+    }
+
+    /**
+     *  End of the local header, payload and data descriptor of the entry. Entries are expected to be contiguous, so
+     *  this is normally the start of the following entry; a gap (e.g. an earlier tombstoned entry) is excluded by
+     *  bounding the span by the size of the entry.
+     */
+    private static long spanEnd(CentralDirectoryReader reader, CentralDirectoryEntry entry,
+            long nextOffset) throws IOException {
+        final long dataEnd = reader.dataOffset(entry) + entry.compressedSize();
+        if (!entry.hasDataDescriptor()) {
+            return Math.min(nextOffset, dataEnd);
+        }
+        // Data descriptor: optional signature, CRC and sizes (4 or 8 bytes each)
+        final boolean zip64 = entry.compressedSize() >= 0xFFFFFFFFL || entry.uncompressedSize() >= 0xFFFFFFFFL;
+        final ByteBuffer signature = reader.read(dataEnd, 4);
+        final long descriptorLength = (signature.getInt(0) == CentralDirectoryReader.SIG_DATA_DESCRIPTOR ? 4 : 0) +
+                4 + (zip64 ? 16 : 8);
+        return Math.min(nextOffset, dataEnd + descriptorLength);
+    }
+
+    private static long measureDeadBytes(CentralDirectoryReader reader, List<CentralDirectoryEntry> entries,
+            EndOfCentralDirectory eocd) throws IOException {
+        long live = prefixLength(reader, entries);
+        for (CentralDirectoryEntry entry : entries) {
+            live += spanEnd(reader, entry, Long.MAX_VALUE) - entry.localHeaderOffset();
+        }
+        return Math.max(0, eocd.centralDirectoryOffset() - live);
+    }
+
+    /**
+     *  Length of any data preceding the entries, such as a self extracting stub. An archive starting with a local
+     *  header has no prefix, and anything ahead of the first surviving entry is then a deleted entry.
+     */
+    private static long prefixLength(CentralDirectoryReader reader,
+            List<CentralDirectoryEntry> entries) throws IOException {
+        final long firstOffset = entries.stream().mapToLong(CentralDirectoryEntry::localHeaderOffset).min().orElse(0);
+        if (firstOffset < 4 || reader.read(0, 4).getInt(0) == CentralDirectoryReader.SIG_LOCAL_FILE_HEADER) {
+            return 0;
+        }
+        return firstOffset;
+    }
+
+    private static void transfer(FileChannel source, long position, long length,
+            FileChannel target) throws IOException {
+        final long start = System.nanoTime();
+        for (long end = position + length; position < end; ) {
+            position += source.transferTo(position, end - position, target);
+        }
+        METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, length, 0);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class ArchiveCompactorTest {
+
+    private static final String ARCHIVE_COMMENT = "PearlZip compaction test";
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Compacting delete from encrypted archive - bytes written per delete bounded by central directory, dead
+     *    space reclaimed on compaction and archive comment retained
+     */
+    @Test
+    @DisplayName("Test: Compacting delete from an encrypted archive only rewrites the central directory")
+    public void test_CompactingDeleteEncryptedArchive_BytesWritten(TestReporter reporter) throws IOException {
+        // Set up
+        CorpusSpec spec = CorpusSpec.of(500, 65536)
+                                    .withFolders(1, 5)
+                                    .withEncryption(Zip4jEncryption.AES_256);
+        Path archive = workingDir.resolve("compact.zip");
+        Path zip4jArchive = workingDir.resolve("zip4j-remove.zip");
+        Files.copy(Zip4jCorpusGenerator.corpus(spec), archive, StandardCopyOption.REPLACE_EXISTING);
+        setComment(archive, ARCHIVE_COMMENT);
+        Files.copy(archive, zip4jArchive, StandardCopyOption.REPLACE_EXISTING);
+        long originalSize = Files.size(archive);
+        long deletedBytes = 0;
+
+        try(ArchiveCompactor compactor = new ArchiveCompactor(archive, 1.0, 0)) {
+            // Each delete writes no more than the central directory, end record and comment
+            for (int i = 0; i < 5; i++) {
+                final String name = spec.entryName(i * 50);
+                long centralDirectorySize;
+                try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+                    centralDirectorySize = reader.endOfCentralDirectory().centralDirectorySize();
+                    deletedBytes += reader.stream()
+                                          .filter(e -> e.name().equals(name))
+                                          .mapToLong(CentralDirectoryReader.CentralDirectoryEntry::compressedSize)
+                                          .sum();
+                }
+                ArchiveCompactor.DeleteResult result = compactor.delete(List.of(name));
+                reporter.publishEntry(String.format("compacting-delete-%d", i),
+                                      String.format("%d bytes written of a %d byte archive", result.bytesWritten(),
+                                                    result.archiveSize()));
+                Assertions.assertEquals(1, result.entriesRemoved(), "Entry was not removed");
+                Assertions.assertFalse(Files.exists(ArchiveAppender.journal(archive)),
+                                       "Journal was not removed after the delete");
+                // End record of 22 bytes, preceded by 76 bytes of zip64 record and locator where required
+                Assertions.assertTrue(result.bytesWritten() <= centralDirectorySize + 98 + ARCHIVE_COMMENT.length(),
+                                      String.format("Delete wrote %d bytes", result.bytesWritten()));
+            }
+            net.lingala.zip4j.ZipFile deleted = new net.lingala.zip4j.ZipFile(archive.toFile());
+            Assertions.assertNull(deleted.getFileHeader(spec.entryName(0)), "Deleted entry is still listed");
+            Assertions.assertEquals(ARCHIVE_COMMENT, deleted.getComment(), "Comment was not retained on delete");
+
+            // Zip4j rewrites the whole archive for the same delete
+            new net.lingala.zip4j.ZipFile(zip4jArchive.toFile(), Zip4jCorpusGenerator.PASSWORD.toCharArray())
+                    .removeFile(spec.entryName(0));
+            reporter.publishEntry("zip4j-delete-bytes", String.valueOf(Files.size(zip4jArchive)));
+
+            // Payloads of deleted entries (AES ciphertext included) remain in the file until compaction reclaims
+            // the dead space, after which the archive remains readable
+            long deadBytes = compactor.deadBytes();
+            Assertions.assertTrue(deadBytes >= deletedBytes, String.format("Unexpected dead space %d", deadBytes));
+            compactor.scheduleCompaction();
+            compactor.awaitCompaction();
+            Assertions.assertEquals(0, compactor.deadBytes(), "Dead space remains after compaction");
+            Assertions.assertTrue(Files.size(archive) < originalSize - deadBytes + 1,
+                                  "Archive did not shrink on compaction");
+            net.lingala.zip4j.ZipFile compacted = new net.lingala.zip4j.ZipFile(archive.toFile());
+            Assertions.assertTrue(compacted.isValidZipFile(), "Compacted archive is not valid");
+            Assertions.assertEquals(ARCHIVE_COMMENT, compacted.getComment(),
+                                    "Comment was not retained on compaction");
+            try(CentralDirectoryReader reader = new CentralDirectoryReader(archive);
+                InputStream stream = EntryDecoder.open(reader, reader.stream()
+                                                                     .filter(e -> !e.isDirectory())
+                                                                     .findFirst()
+                                                                     .orElseThrow(),
+                                                       Zip4jCorpusGenerator.PASSWORD.toCharArray())) {
+                Assertions.assertEquals(65536, stream.readAllBytes().length, "Entry not readable after compaction");
+            }
+        }
+    }
+
+    private static void setComment(Path archive, String comment) throws IOException {
+        final long endRecordOffset;
+        try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            endRecordOffset = reader.endOfCentralDirectory().offset();
+        }
+        final long commentOffset = endRecordOffset + CentralDirectoryReader.END_OF_CENTRAL_DIRECTORY_SIZE;
+        final byte[] encoded = comment.getBytes(StandardCharsets.UTF_8);
+        try(FileChannel channel = FileChannel.open(archive, StandardOpenOption.WRITE)) {
+            channel.truncate(commentOffset);
+            channel.write(ByteBuffer.allocate(2)
+                                    .order(ByteOrder.LITTLE_ENDIAN)
+                                    .putShort(0, (short) encoded.length), endRecordOffset + 20);
+            channel.write(ByteBuffer.wrap(encoded), commentOffset);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+import com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.EntryRecord;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.METHOD_AES;
+import static com.ntak.pearlzip.archive.zip4j.util.ParallelZipWriter.writeFully;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.*;
+
+/**
+ *  Encrypts an unencrypted archive with WinZip AES (AE-2) by wrapping the existing compressed payloads, so nothing is
+ *  inflated or deflated again. Payloads flow through a read, encrypt and write pipeline, each stage on its own
+ *  thread, connected by bounded queues of pooled buffers; memory use is therefore fixed by the queue depth and the
+ *  source archive is read in a single sequential pass.
+ *
+ *  Progress ({@link ProgressEvent}) and completion ({@link CompletedEvent}) are posted on the default event bus.
+ *  Folders are copied unencrypted, as Zip4j does. Zip standard encryption is not supported.
+ */
+public class ArchiveEncryptor {
+
+    public static final int DEFAULT_QUEUE_DEPTH = 16;
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final int PROGRESS_STEPS = 100;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int strength;
+    private final char[] password;
+    private final int queueDepth;
+
+    public record ProgressEvent(Path archive, String entryName, long entriesCompleted, long entryCount,
+            long bytesCompleted, long totalBytes) {
+    }
+
+    public record CompletedEvent(Path archive, long entryCount, long bytesRead, long bytesWritten,
+            long durationNanos, Throwable failure) {
+        public boolean isSuccess() {
+            return Objects.isNull(failure);
+        }
+    }
+
+    /**
+     *  Unit of work passed between stages. Segments of an entry are queued in order; pooled buffers are returned to
+     *  the pool once written. A segment carrying a failure terminates the pipeline.
+     */
+    private record Segment(int index, byte[] buffer, int length, boolean pooled, boolean last, Throwable failure) {
+        static final Segment END = new Segment(-1, null, 0, false, true, null);
+
+        static Segment failed(Throwable failure) {
+            return new Segment(-1, null, 0, false, true, failure);
+        }
+    }
+
+    private record EntryKey(byte[] salt, WinZipAes.DerivedKey key) {
+    }
+
+    public ArchiveEncryptor(Zip4jEncryption encryption, char[] password) {
+        this(encryption, password, DEFAULT_QUEUE_DEPTH);
+    }
+
+    public ArchiveEncryptor(Zip4jEncryption encryption, char[] password, int queueDepth) {
+        if (encryption.getKeyStrength() == null) {
+            throw new IllegalArgumentException(String.format("Encryption %s cannot wrap existing payloads",
+                                                             encryption));
+        }
+        if (password == null || password.length == 0) {
+            throw new IllegalArgumentException("A password is required for encrypted archives");
+        }
+        if (queueDepth < 2) {
+            throw new IllegalArgumentException(String.format("Queue depth %d must be at least 2", queueDepth));
+        }
+        this.strength = encryption.getKeyStrength().getRawCode();
+        this.password = password;
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     *  Encrypts the archive in place: the encrypted archive is staged alongside and atomically replaces the source.
+     */
+    public CompletedEvent encrypt(Path archive) throws IOException {
+        final Path staging = Files.createTempFile(archive.toAbsolutePath().getParent(), "encrypt", ".tmp");
+        try {
+            final CompletedEvent completed = encrypt(archive, staging, archive);
+            Files.move(staging, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return completed;
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    /**
+     *  Writes an encrypted copy of the source archive to the target, replacing any existing file.
+     */
+    public CompletedEvent encrypt(Path source, Path target) throws IOException {
+        return encrypt(source, target, source);
+    }
+
+    private CompletedEvent encrypt(Path source, Path target, Path archive) throws IOException {
+        final long start = System.nanoTime();
+        final BlockingQueue<byte[]> pool = new ArrayBlockingQueue<>(queueDepth);
+        final BlockingQueue<Segment> plain = new ArrayBlockingQueue<>(queueDepth);
+        final BlockingQueue<Segment> encrypted = new ArrayBlockingQueue<>(queueDepth);
+        final ExecutorService stages = Executors.newFixedThreadPool(2, threadFactory());
+        long entriesCompleted = 0;
+        long bytesRead = 0;
+        long bytesWritten = 0;
+        Throwable failure = null;
+
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.ENCRYPT);
+            CentralDirectoryReader reader = new CentralDirectoryReader(source);
+            FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (reader.endOfCentralDirectory().diskNumber() != 0) {
+                throw new IOException(String.format("%s is a split archive", source));
+            }
+            final List<CentralDirectoryEntry> entries = reader.stream().toList();
+            for (CentralDirectoryEntry entry : entries) {
+                if (entry.isEncrypted()) {
+                    throw new IOException(String.format("Entry %s of %s is already encrypted", entry.name(),
+                                                        source));
+                }
+            }
+            for (int i = 0; i < queueDepth; i++) {
+                pool.add(new byte[BUFFER_SIZE]);
+            }
+
+            stages.execute(METRICS.wrap(() -> read(reader, entries, pool, plain)));
+            stages.execute(METRICS.wrap(() -> encrypt(entries, plain, encrypted)));
+
+            final long entryCount = entries.size();
+            final long totalBytes = entries.stream().mapToLong(CentralDirectoryEntry::compressedSize).sum();
+            final long progressStep = Math.max(1, entryCount / PROGRESS_STEPS);
+            final List<EntryRecord> records = new ArrayList<>(entries.size());
+            int current = -1;
+            for (Segment segment = encrypted.take(); segment != Segment.END; segment = encrypted.take()) {
+                METRICS.queueDepth(plain.size() + encrypted.size());
+                if (Objects.nonNull(segment.failure())) {
+                    throw segment.failure() instanceof IOException e ? e :
+                            new IOException(String.format("Encryption of %s failed", source), segment.failure());
+                }
+                if (segment.index() != current) {
+                    if (current >= 0) {
+                        entriesCompleted++;
+                        bytesRead += entries.get(current).compressedSize();
+                        if (entriesCompleted % progressStep == 0) {
+                            DEFAULT_BUS.post(new ProgressEvent(archive, entries.get(current).name(),
+                                                               entriesCompleted, entryCount, bytesRead,
+                                                               totalBytes));
+                        }
+                    }
+                    current = segment.index();
+                    final EntryRecord record = record(entries.get(current)).withLocalHeaderOffset(channel.position(),
+                                                                                                  0);
+                    writeFully(channel, localHeader(record));
+                    records.add(record);
+                }
+                writeFully(channel, ByteBuffer.wrap(segment.buffer(), 0, segment.length()));
+                if (segment.pooled()) {
+                    pool.offer(segment.buffer());
+                }
+            }
+            if (current >= 0) {
+                entriesCompleted++;
+                bytesRead += entries.get(current).compressedSize();
+                DEFAULT_BUS.post(new ProgressEvent(archive, entries.get(current).name(), entriesCompleted,
+                                                   entryCount, bytesRead, totalBytes));
+            }
+
+            final long centralDirectoryOffset = channel.position();
+            for (EntryRecord record : records) {
+                writeFully(channel, centralDirectoryRecord(record));
+            }
+            writeFully(channel, endOfCentralDirectory(records.size(), centralDirectoryOffset,
+                                                      channel.position() - centralDirectoryOffset));
+            channel.force(false);
+            bytesWritten = channel.position();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch(IOException | RuntimeException e) {
+            failure = e;
+        } finally {
+            stages.shutdownNow();
+        }
+
+        final CompletedEvent completed = new CompletedEvent(archive, entriesCompleted, bytesRead, bytesWritten,
+                                                            System.nanoTime() - start, failure);
+        DEFAULT_BUS.post(completed);
+        if (!completed.isSuccess()) {
+            Files.deleteIfExists(target);
+            if (completed.failure() instanceof IOException e) {
+                throw e;
+            }
+            throw new IOException(String.format("Encryption of %s failed", source), completed.failure());
+        }
+        return completed;
+    }
+
+    /**
+     *  Central directory record of the encrypted entry: the compressed size grows by the AES overhead, the
+     *  compression method moves into the AES extra field and data descriptors are dropped as sizes are known.
+     */
+    private EntryRecord record(CentralDirectoryEntry entry) {
+        final int flags = (entry.flags() & ~0x8) | FLAG_UTF8;
+        if (entry.isDirectory()) {
+            return new EntryRecord(entry.name(), flags, entry.method(), entry.dosTime(), entry.crc(),
+                                   entry.compressedSize(), entry.uncompressedSize(), 0, 0, new byte[0],
+                                   entry.externalAttributes());
+        }
+        return new EntryRecord(entry.name(), flags | FLAG_ENCRYPTED, METHOD_AES, entry.dosTime(), 0,
+                               entry.compressedSize() + WinZipAes.overhead(strength), entry.uncompressedSize(), 0,
+                               0, aesExtra(WinZipAes.VENDOR_VERSION_AE2, strength, entry.method()),
+                               entry.externalAttributes());
+    }
+
+    /**
+     *  Read stage: copies the compressed payload of each entry into pooled buffers. Every entry yields at least one
+     *  segment, so empty entries pass through the pipeline too.
+     */
+    private static void read(CentralDirectoryReader reader, List<CentralDirectoryEntry> entries,
+            BlockingQueue<byte[]> pool, BlockingQueue<Segment> plain) {
+        try {
+            for (int index = 0; index < entries.size(); index++) {
+                final CentralDirectoryEntry entry = entries.get(index);
+                long position = reader.dataOffset(entry);
+                long remaining = entry.compressedSize();
+                do {
+                    final byte[] buffer = pool.take();
+                    final int length = (int) Math.min(buffer.length, remaining);
+                    final ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+                    final long start = System.nanoTime();
+                    while (target.hasRemaining()) {
+                        if (reader.getChannel().read(target, position + target.position()) < 0) {
+                            throw new EOFException(String.format("Payload of %s is truncated", entry.name()));
+                        }
+                    }
+                    METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, length, 0);
+                    position += length;
+                    remaining -= length;
+                    plain.put(new Segment(index, buffer, length, true, remaining == 0, null));
+                } while (remaining > 0);
+            }
+            plain.put(Segment.END);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(IOException | RuntimeException e) {
+            fail(plain, e);
+        }
+    }
+
+    /**
+     *  Encrypt stage: prefixes each file with a fresh salt and password verifier, encrypts its segments in place and
+     *  appends the authentication code. Salts are random and independent of the payload, so the keys of upcoming
+     *  files are derived ahead on the common pool rather than stalling the pipeline on PBKDF2 for every file.
+     */
+    private void encrypt(List<CentralDirectoryEntry> entries, BlockingQueue<Segment> plain,
+            BlockingQueue<Segment> encrypted) {
+        final Deque<CompletableFuture<EntryKey>> keys = new ArrayDeque<>();
+        final Zip4jMetrics.Operation operation = METRICS.currentOperation();
+        long pendingKeys = entries.stream()
+                                  .filter(e -> !e.isDirectory())
+                                  .count();
+        try {
+            int current = -1;
+            WinZipAes.Engine engine = null;
+            for (Segment segment = plain.take(); ; segment = plain.take()) {
+                if (segment == Segment.END || Objects.nonNull(segment.failure())) {
+                    encrypted.put(segment);
+                    return;
+                }
+                if (entries.get(segment.index()).isDirectory()) {
+                    encrypted.put(segment);
+                    continue;
+                }
+
+                if (segment.index() != current) {
+                    current = segment.index();
+                    for (; pendingKeys > 0 && keys.size() < queueDepth; pendingKeys--) {
+                        keys.add(CompletableFuture.supplyAsync(() -> {
+                            try(Zip4jMetrics.Scope scope = METRICS.operation(operation)) {
+                                return deriveKey();
+                            }
+                        }));
+                    }
+                    final EntryKey entryKey = keys.poll().join();
+                    try {
+                        engine = new WinZipAes.Engine(entryKey.key());
+                        final byte[] header = new byte[entryKey.salt().length + WinZipAes.VERIFIER_LENGTH];
+                        System.arraycopy(entryKey.salt(), 0, header, 0, entryKey.salt().length);
+                        System.arraycopy(entryKey.key().verifier(), 0, header, entryKey.salt().length,
+                                         WinZipAes.VERIFIER_LENGTH);
+                        encrypted.put(new Segment(current, header, header.length, false, false, null));
+                    } finally {
+                        entryKey.key().wipe();
+                    }
+                }
+                engine.encrypt(segment.buffer(), 0, segment.length());
+                encrypted.put(segment);
+                if (segment.last()) {
+                    encrypted.put(new Segment(current, engine.finish(), WinZipAes.MAC_LENGTH, false, true, null));
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(RuntimeException e) {
+            fail(encrypted, e);
+        } finally {
+            keys.forEach(f -> f.thenAccept(k -> k.key().wipe()));
+        }
+    }
+
+    private EntryKey deriveKey() {
+        final byte[] salt = new byte[WinZipAes.saltLength(strength)];
+        RANDOM.nextBytes(salt);
+        return new EntryKey(salt, WinZipAes.derive(password, salt, strength));
+    }
+
+    private static void fail(BlockingQueue<Segment> queue, Throwable failure) {
+        try {
+            queue.put(Segment.failed(failure));
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+        return (r) -> {
+            Thread thread = new Thread(r, String.format("pz-encrypt-%d", count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
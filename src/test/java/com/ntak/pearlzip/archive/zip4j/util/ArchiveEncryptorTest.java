@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class ArchiveEncryptorTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Streaming encryption of an unencrypted zip archive - payloads wrapped without recompression
+     */
+    @Test
+    @DisplayName("Test: Encrypt an unencrypted zip archive by wrapping its compressed payloads in a single pass")
+    public void test_StreamingEncryptUnencryptedZipArchive_Success() throws IOException {
+        // Set up
+        Path srcArchive = Zip4jCorpusGenerator.corpus(CorpusSpec.of(64, 65536)
+                                                                .withCompressibility(0.6)
+                                                                .withFolders(1, 4));
+        Path archive = workingDir.resolve("tempArchive.zip");
+        char[] password = Zip4jCorpusGenerator.PASSWORD.toCharArray();
+        try(Zip4jWaitUtil.BusEventWaiter<ArchiveEncryptor.ProgressEvent> progress =
+                    Zip4jWaitUtil.expectBusEvent(ArchiveEncryptor.ProgressEvent.class,
+                                                 e -> e.archive().equals(archive) &&
+                                                         e.entriesCompleted() == e.entryCount())) {
+            Files.copy(srcArchive, archive);
+            ArchiveEncryptor.CompletedEvent completed = new ArchiveEncryptor(Zip4jEncryption.AES_256,
+                                                                             password).encrypt(archive);
+
+            ArchiveEncryptor.ProgressEvent last = progress.await("encryption progress");
+            Assertions.assertEquals(last.totalBytes(), last.bytesCompleted(), "Progress did not cover all bytes");
+            Assertions.assertTrue(new net.lingala.zip4j.ZipFile(archive.toFile()).isEncrypted(),
+                                  "Generated file was not encrypted");
+
+            try(CentralDirectoryReader source = new CentralDirectoryReader(srcArchive);
+                CentralDirectoryReader target = new CentralDirectoryReader(archive)) {
+                List<CentralDirectoryReader.CentralDirectoryEntry> sourceEntries = source.stream().toList();
+                List<CentralDirectoryReader.CentralDirectoryEntry> targetEntries = target.stream().toList();
+                Assertions.assertEquals(sourceEntries.size(), targetEntries.size(), "Unexpected number of entries");
+
+                // One pass over the compressed payloads of the source
+                Assertions.assertEquals(sourceEntries.stream()
+                                                     .mapToLong(CentralDirectoryReader.CentralDirectoryEntry
+                                                                        ::compressedSize)
+                                                     .sum(),
+                                        completed.bytesRead(), "Unexpected number of bytes read");
+
+                for (int i = 0; i < sourceEntries.size(); i++) {
+                    CentralDirectoryReader.CentralDirectoryEntry expected = sourceEntries.get(i);
+                    CentralDirectoryReader.CentralDirectoryEntry actual = targetEntries.get(i);
+                    if (expected.isDirectory()) {
+                        continue;
+                    }
+
+                    // Payloads are not recompressed: only the AES salt, verifier and authentication code are added
+                    Assertions.assertTrue(actual.isAes(), String.format("%s was not encrypted", actual.name()));
+                    Assertions.assertEquals(expected.method(), actual.actualMethod(),
+                                            String.format("Compression of %s changed", actual.name()));
+                    Assertions.assertEquals(expected.compressedSize() + 28, actual.compressedSize(),
+                                            String.format("%s was recompressed", actual.name()));
+                    try(InputStream expectedStream = EntryDecoder.open(source, expected, null);
+                        InputStream actualStream = EntryDecoder.open(target, actual, password)) {
+                        Assertions.assertArrayEquals(expectedStream.readAllBytes(), actualStream.readAllBytes(),
+                                                     String.format("Content of %s differs", actual.name()));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ *  Indexed view of the entries of an archive (e.g. {@code FXArchiveInfo.getFiles()}), so that lookups by name and
+ *  folder expansion do not scan the entry list:
+ *  <ul>
+ *      <li>entries by full name in a hash map (O(1) lookup)</li>
+ *      <li>a prefix tree with a node per folder, holding the indices of the entries directly within it (O(depth)
+ *      to find a folder, O(k) to expand it)</li>
+ *      <li>raw sizes, packed sizes and timestamps in primitive arrays, from which a sort order per key is derived
+ *      once (O(n log n)) and cached until the entries change. Sorted views of the archive are then O(1) and the
+ *      contents of a folder are sorted by rank in O(k log k)</li>
+ *  </ul>
+ *
+ *  An index {@link #watch(ObservableList) watching} a list follows entries appended to it (e.g. pages pushed by
+ *  {@link AsyncArchiveOpener}) incrementally and is rebuilt on any other change.
+ */
+public class ArchiveEntryIndex implements AutoCloseable {
+
+    public enum SortKey {
+        NAME, RAW_SIZE, PACKED_SIZE, LAST_MODIFIED
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int[] NO_ENTRIES = new int[0];
+
+    private final ObservableList<FileInfo> source;
+    private final ListChangeListener<FileInfo> listener = this::onChanged;
+
+    private FileInfo[] entries;
+    private long[] rawSizes;
+    private long[] packedSizes;
+    private long[] lastModified;
+    private int count;
+    private Map<String,Integer> byName;
+    private Folder root;
+    private final Map<SortKey,Order> orders = new EnumMap<>(SortKey.class);
+
+    /**
+     *  Folder node of the prefix tree, keyed by path segment. Nodes exist for folders with entries of their own and
+     *  for those implied by the names of their contents.
+     */
+    private static final class Folder {
+        private final String path;
+        private Map<String,Folder> subFolders;
+        private int[] members = NO_ENTRIES;
+        private int memberCount;
+
+        Folder(String path) {
+            this.path = path;
+        }
+
+        void addMember(int index) {
+            if (memberCount == members.length) {
+                members = Arrays.copyOf(members, Math.max(4, members.length * 2));
+            }
+            members[memberCount++] = index;
+        }
+    }
+
+    /**
+     *  Entry indices in ascending order of a key, and the rank of each entry in that order.
+     */
+    private record Order(int[] indices, int[] ranks) {
+    }
+
+    @FunctionalInterface
+    private interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    public ArchiveEntryIndex(Collection<FileInfo> files) {
+        this(null, files);
+    }
+
+    private ArchiveEntryIndex(ObservableList<FileInfo> source, Collection<FileInfo> files) {
+        this.source = source;
+        rebuild(files);
+    }
+
+    /**
+     *  Indexes the list and follows subsequent changes to it until closed. The index may be read from any thread.
+     */
+    public static ArchiveEntryIndex watch(ObservableList<FileInfo> files) {
+        final ArchiveEntryIndex index = new ArchiveEntryIndex(files, List.of());
+        // Listening first, so a change made while the list is copied is applied (by rebuilding) rather than lost
+        files.addListener(index.listener);
+        synchronized(index) {
+            index.rebuild(List.copyOf(files));
+        }
+        return index;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized boolean contains(String name) {
+        return byName.containsKey(name);
+    }
+
+    /**
+     *  @return the entry of the given name, or null if there is none
+     */
+    public synchronized FileInfo get(String name) {
+        final Integer index = byName.get(name);
+        return Objects.isNull(index) ? null : entries[index];
+    }
+
+    /**
+     *  @return true if the folder has an entry or contains entries
+     */
+    public synchronized boolean isFolder(String folder) {
+        return Objects.nonNull(folder(folder));
+    }
+
+    /**
+     *  Entries directly within the folder ("" for the root), in the order they were added.
+     */
+    public synchronized List<FileInfo> children(String folder) {
+        final Folder node = folder(folder);
+        if (Objects.isNull(node)) {
+            return List.of();
+        }
+        final List<FileInfo> children = new ArrayList<>(node.memberCount);
+        for (int i = 0; i < node.memberCount; i++) {
+            children.add(entries[node.members[i]]);
+        }
+        return children;
+    }
+
+    /**
+     *  Entries directly within the folder ("" for the root), sorted by the key.
+     */
+    public synchronized List<FileInfo> children(String folder, SortKey key, boolean ascending) {
+        final Folder node = folder(folder);
+        if (Objects.isNull(node)) {
+            return List.of();
+        }
+        final Order order = order(key);
+        final int[] ranks = new int[node.memberCount];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = order.ranks()[node.members[i]];
+        }
+        Arrays.sort(ranks);
+
+        final List<FileInfo> children = new ArrayList<>(ranks.length);
+        for (int i = 0; i < ranks.length; i++) {
+            children.add(entries[order.indices()[ranks[ascending ? i : ranks.length - 1 - i]]]);
+        }
+        return children;
+    }
+
+    /**
+     *  Full paths of the folders directly within the folder ("" for the root), including folders without entries of
+     *  their own.
+     */
+    public synchronized SortedSet<String> subFolders(String folder) {
+        final Folder node = folder(folder);
+        if (Objects.isNull(node) || Objects.isNull(node.subFolders)) {
+            return Collections.emptySortedSet();
+        }
+        final SortedSet<String> subFolders = new TreeSet<>();
+        node.subFolders.values()
+                       .forEach(f -> subFolders.add(f.path));
+        return subFolders;
+    }
+
+    /**
+     *  All entries sorted by the key. The view is unaffected by later changes to the index.
+     */
+    public synchronized List<FileInfo> sorted(SortKey key, boolean ascending) {
+        final int[] indices = order(key).indices();
+        final FileInfo[] snapshot = entries;
+        final int size = count;
+        return new AbstractList<>() {
+            @Override
+            public FileInfo get(int i) {
+                Objects.checkIndex(i, size);
+                return snapshot[indices[ascending ? i : size - 1 - i]];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     *  Stops following changes to the watched list, if any.
+     */
+    @Override
+    public void close() {
+        if (Objects.nonNull(source)) {
+            source.removeListener(listener);
+        }
+    }
+
+    private synchronized void onChanged(ListChangeListener.Change<? extends FileInfo> change) {
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated() || change.wasRemoved() ||
+                    change.getFrom() != count) {
+                rebuild(List.copyOf(change.getList()));
+                return;
+            }
+            change.getAddedSubList()
+                  .forEach(this::add);
+        }
+    }
+
+    private void rebuild(Collection<? extends FileInfo> files) {
+        final int capacity = Math.max(INITIAL_CAPACITY, files.size());
+        entries = new FileInfo[capacity];
+        rawSizes = new long[capacity];
+        packedSizes = new long[capacity];
+        lastModified = new long[capacity];
+        count = 0;
+        byName = new HashMap<>(Math.max(16, (int) (files.size() / 0.75f) + 1));
+        root = new Folder("");
+        files.forEach(this::add);
+    }
+
+    private void add(FileInfo file) {
+        if (count == entries.length) {
+            final int capacity = count * 2;
+            entries = Arrays.copyOf(entries, capacity);
+            rawSizes = Arrays.copyOf(rawSizes, capacity);
+            packedSizes = Arrays.copyOf(packedSizes, capacity);
+            lastModified = Arrays.copyOf(lastModified, capacity);
+        }
+        final int index = count++;
+        entries[index] = file;
+        rawSizes[index] = file.getRawSize();
+        packedSizes[index] = file.getPackedSize();
+        lastModified[index] = toEpochMillis(file.getLastWriteTime());
+        byName.put(file.getFileName(), index);
+        orders.clear();
+
+        final String name = file.getFileName();
+        final int separator = name.lastIndexOf('/');
+        final Folder parent = createFolder(separator < 0 ? "" : name.substring(0, separator));
+        parent.addMember(index);
+        if (file.isFolder()) {
+            createFolder(name);
+        }
+    }
+
+    private Folder folder(String path) {
+        Folder node = root;
+        for (int start = 0; Objects.nonNull(node) && start < path.length(); ) {
+            final int end = nextSeparator(path, start);
+            node = Objects.isNull(node.subFolders) ? null : node.subFolders.get(path.substring(start, end));
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private Folder createFolder(String path) {
+        Folder node = root;
+        for (int start = 0; start < path.length(); ) {
+            final int end = nextSeparator(path, start);
+            if (Objects.isNull(node.subFolders)) {
+                node.subFolders = new HashMap<>(4);
+            }
+            final int segmentEnd = end;
+            node = node.subFolders.computeIfAbsent(path.substring(start, end),
+                                                   (s) -> new Folder(path.substring(0, segmentEnd)));
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private static int nextSeparator(String path, int start) {
+        final int separator = path.indexOf('/', start);
+        return separator < 0 ? path.length() : separator;
+    }
+
+    private Order order(SortKey key) {
+        return orders.computeIfAbsent(key, (k) -> {
+            final int[] indices = new int[count];
+            for (int i = 0; i < count; i++) {
+                indices[i] = i;
+            }
+            sort(indices, switch(k) {
+                case NAME -> (a, b) -> entries[a].getFileName().compareTo(entries[b].getFileName());
+                case RAW_SIZE -> (a, b) -> Long.compare(rawSizes[a], rawSizes[b]);
+                case PACKED_SIZE -> (a, b) -> Long.compare(packedSizes[a], packedSizes[b]);
+                case LAST_MODIFIED -> (a, b) -> Long.compare(lastModified[a], lastModified[b]);
+            });
+
+            final int[] ranks = new int[count];
+            for (int i = 0; i < count; i++) {
+                ranks[indices[i]] = i;
+            }
+            return new Order(indices, ranks);
+        });
+    }
+
+    /**
+     *  Stable merge sort of entry indices, avoiding the boxing of a {@link Comparator} based sort.
+     */
+    private static void sort(int[] indices, IndexComparator comparator) {
+        int[] from = indices;
+        int[] to = new int[indices.length];
+        for (int width = 1; width < indices.length; width *= 2) {
+            for (int low = 0; low < indices.length; low += 2 * width) {
+                final int mid = Math.min(low + width, indices.length);
+                final int high = Math.min(low + 2 * width, indices.length);
+                int i = low;
+                int j = mid;
+                for (int k = low; k < high; k++) {
+                    to[k] = i < mid && (j >= high || comparator.compare(from[i], from[j]) <= 0) ? from[i++] :
+                            from[j++];
+                }
+            }
+            final int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != indices) {
+            System.arraycopy(from, 0, indices, 0, indices.length);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        // Only the order of timestamps is used, so the zone is immaterial
+        return Objects.isNull(dateTime) ? Long.MIN_VALUE : dateTime.toInstant(ZoneOffset.UTC)
+                                                                   .toEpochMilli();
+    }
+}
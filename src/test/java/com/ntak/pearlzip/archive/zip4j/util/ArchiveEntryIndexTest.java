@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.testfx.api.FxToolkit;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+public class ArchiveEntryIndexTest {
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        // The index follows changes to the list made on the FX thread
+        FxToolkit.registerPrimaryStage();
+    }
+
+    /*
+     *  Test cases:
+     *  + Archive entry index - lookups, folder expansion and sorting match a scan of the entries
+     */
+    @Test
+    @DisplayName("Test: Archive entry index lookups, folder expansion and sorting match a scan of the entries")
+    public void test_ArchiveEntryIndex_MatchesLinearScan(TestReporter reporter) throws Exception {
+        // Set up
+        CorpusSpec spec = CorpusSpec.of(20000, 16)
+                                    .withFolders(2, 10);
+        Path archive = Zip4jCorpusGenerator.corpus(spec);
+        ObservableList<FileInfo> files = FXCollections.observableArrayList();
+
+        // Index follows the pages pushed by the asynchronous open
+        try(ArchiveEntryIndex index = ArchiveEntryIndex.watch(files)) {
+            new AsyncArchiveOpener().open(archive, null, files)
+                                    .get(Zip4jWaitUtil.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+            Zip4jWaitUtil.waitForFxEvents();
+            Assertions.assertEquals(spec.entryCount(), index.size(), "Not every entry was indexed");
+
+            // Lookup by name
+            long linearNanos = 0;
+            long indexedNanos = 0;
+            for (int i = 0; i < spec.entryCount(); i += 97) {
+                String name = spec.entryName(i);
+                long start = System.nanoTime();
+                FileInfo expected = files.stream()
+                                         .filter(f -> f.getFileName().equals(name))
+                                         .findFirst()
+                                         .orElseThrow();
+                linearNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                FileInfo actual = index.get(name);
+                indexedNanos += System.nanoTime() - start;
+                Assertions.assertSame(expected, actual, String.format("Unexpected entry for %s", name));
+            }
+            reporter.publishEntry(String.format("lookups-%d-entries", spec.entryCount()),
+                                  String.format("linear %d ns, indexed %d ns", linearNanos, indexedNanos));
+            Assertions.assertNull(index.get("d0-0/missing.bin"), "Missing entry was found");
+
+            // Folder expansion, including folders implied by the names of their contents
+            Assertions.assertEquals(new TreeSet<>(List.of("d0-0", "d0-1", "d0-2", "d0-3", "d0-4", "d0-5", "d0-6",
+                                                          "d0-7", "d0-8", "d0-9")),
+                                    index.subFolders(""), "Unexpected root folders");
+            Assertions.assertEquals(10, index.subFolders("d0-3").size(), "Unexpected sub folders");
+            Assertions.assertTrue(index.children("").isEmpty(), "Unexpected entries in root");
+            List<String> expectedChildren = files.stream()
+                                                 .map(FileInfo::getFileName)
+                                                 .filter(n -> n.matches("d0-3/d1-4/[^/]+"))
+                                                 .sorted(Comparator.reverseOrder())
+                                                 .toList();
+            Assertions.assertEquals(200, expectedChildren.size(), "Unexpected folder size in corpus");
+            Assertions.assertEquals(expectedChildren, index.children("d0-3/d1-4", ArchiveEntryIndex.SortKey.NAME,
+                                                                     false)
+                                                           .stream()
+                                                           .map(FileInfo::getFileName)
+                                                           .toList(), "Unexpected folder contents");
+
+            // Sorting of the whole archive
+            List<String> expectedOrder = files.stream()
+                                              .map(FileInfo::getFileName)
+                                              .sorted()
+                                              .toList();
+            Assertions.assertEquals(expectedOrder, index.sorted(ArchiveEntryIndex.SortKey.NAME, true)
+                                                        .stream()
+                                                        .map(FileInfo::getFileName)
+                                                        .toList(), "Unexpected sort order");
+
+            // Removal rebuilds the index
+            Platform.runLater(() -> files.remove(0));
+            Zip4jWaitUtil.waitForFxEvents();
+            Assertions.assertEquals(spec.entryCount() - 1, index.size(), "Index was not rebuilt on removal");
+            Assertions.assertFalse(index.contains(spec.entryName(0)), "Removed entry is still indexed");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.ui.model.FXArchiveInfo;
+import com.ntak.pearlzip.ui.util.JFXUtil;
+import javafx.scene.control.Alert;
+import javafx.scene.control.MenuItem;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.MessageFormat;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ *  Test Archive command of the Zip4j menu: tests the archive of the focused main window (or else any main window)
+ *  with {@link ArchiveIntegrityVerifier} off the FX thread and shows the outcome in an alert. Encrypted archives are
+ *  not prompted for a password, so fail the test. An error alert is also shown if no archive is open or the verifier
+ *  fails unexpectedly. Text is resolved from the {@value #BUNDLE} bundle.
+ */
+public class ArchiveIntegrityCommand {
+
+    public static final String BUNDLE = "zip4j-testfx";
+    public static final String MENU_ITEM_ID = "mnuTestArchive";
+
+    public static final String CNS_TEST_ARCHIVE_MENU = "menu.ntak.pearl-zip.zip4j.test-archive";
+    public static final String CNS_TEST_ARCHIVE_TITLE = "title.ntak.pearl-zip.zip4j.test-archive";
+    public static final String CNS_TEST_ARCHIVE_PASSED_HEADER = "header.ntak.pearl-zip.zip4j.test-archive.passed";
+    public static final String CNS_TEST_ARCHIVE_FAILED_HEADER = "header.ntak.pearl-zip.zip4j.test-archive.failed";
+    public static final String CNS_TEST_ARCHIVE_PASSED_BODY = "body.ntak.pearl-zip.zip4j.test-archive.passed";
+    public static final String CNS_TEST_ARCHIVE_FAILED_BODY = "body.ntak.pearl-zip.zip4j.test-archive.failed";
+    public static final String CNS_TEST_ARCHIVE_ERROR_BODY = "body.ntak.pearl-zip.zip4j.test-archive.error";
+    public static final String CNS_TEST_ARCHIVE_NO_ARCHIVE_BODY = "body.ntak.pearl-zip.zip4j.test-archive.no-archive";
+
+    private static final ResourceBundle TEXT = ResourceBundle.getBundle(BUNDLE, Locale.getDefault());
+
+    public static String resolveTextKey(String key, Object... args) {
+        return new MessageFormat(TEXT.getString(key), Locale.getDefault()).format(args);
+    }
+
+    public static MenuItem menuItem() {
+        final MenuItem testArchive = new MenuItem(resolveTextKey(CNS_TEST_ARCHIVE_MENU));
+        testArchive.setId(MENU_ITEM_ID);
+        testArchive.setOnAction(e -> testActiveArchive());
+        return testArchive;
+    }
+
+    public static void testActiveArchive() {
+        activeArchive().ifPresentOrElse(ArchiveIntegrityCommand::test,
+                                        () -> showOutcome(false, resolveTextKey(CNS_TEST_ARCHIVE_NO_ARCHIVE_BODY)));
+    }
+
+    /**
+     *  The archive of the focused main window, or else of any main window, from the archive info held as the user data
+     *  of the stage.
+     */
+    public static Optional<Path> activeArchive() {
+        return JFXUtil.getMainStageInstances()
+                      .stream()
+                      .sorted(Comparator.comparing((Stage s) -> !s.isFocused()))
+                      .map(Stage::getUserData)
+                      .filter(FXArchiveInfo.class::isInstance)
+                      .map(i -> Paths.get(((FXArchiveInfo) i).getArchivePath()))
+                      .findFirst();
+    }
+
+    private static void test(Path archive) {
+        CompletableFuture.runAsync(() -> {
+            boolean passed = false;
+            String content;
+            try {
+                final ArchiveIntegrityVerifier.CompletedEvent result =
+                        new ArchiveIntegrityVerifier(Runtime.getRuntime().availableProcessors()).verify(archive, null);
+                passed = result.isSuccess();
+                content = passed ? resolveTextKey(CNS_TEST_ARCHIVE_PASSED_BODY, result.entriesVerified(), archive) :
+                        resolveTextKey(CNS_TEST_ARCHIVE_FAILED_BODY, result.entryFailures().size(),
+                                       result.entriesVerified(), archive,
+                                       result.entryFailures()
+                                             .stream()
+                                             .map(f -> String.format("%s: %s", f.name(), f.reason()))
+                                             .collect(Collectors.joining(System.lineSeparator())));
+            } catch(IOException e) {
+                content = resolveTextKey(CNS_TEST_ARCHIVE_ERROR_BODY, archive, e.getMessage());
+            }
+
+            showOutcome(passed, content);
+        }).exceptionally(e -> {
+            // Unchecked failures of the verifier would otherwise be lost with the future
+            final Throwable cause = Objects.requireNonNullElse(e.getCause(), e);
+            showOutcome(false, resolveTextKey(CNS_TEST_ARCHIVE_ERROR_BODY, archive,
+                                              Objects.requireNonNullElse(cause.getMessage(), cause.toString())));
+            return null;
+        });
+    }
+
+    private static void showOutcome(boolean passed, String content) {
+        JFXUtil.runLater(() -> {
+            Alert alert = new Alert(passed ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR);
+            alert.setTitle(resolveTextKey(CNS_TEST_ARCHIVE_TITLE));
+            alert.setHeaderText(resolveTextKey(passed ? CNS_TEST_ARCHIVE_PASSED_HEADER :
+                                                       CNS_TEST_ARCHIVE_FAILED_HEADER));
+            alert.setContentText(content);
+            alert.show();
+        });
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+
+/**
+ *  Tests the integrity of an archive without extracting it: every entry is decoded concurrently with
+ *  {@link EntryDecoder} and the decoded bytes discarded, so the CRC (and for AES entries the authentication code) of
+ *  each entry is checked with no disk writes. Entries that fail verification are collected rather than stopping the
+ *  test; only a wrong password (checked up front against a single entry) or an unreadable central directory fails
+ *  the test outright. The compressed bytes of entries in flight are bounded as for {@link ParallelExtractor}.
+ *
+ *  Progress ({@link ProgressEvent}) and completion ({@link CompletedEvent}) are posted on the default event bus.
+ */
+public class ArchiveIntegrityVerifier {
+
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 64L * 1024 * 1024;
+
+    private static final int PROGRESS_STEPS = 100;
+    private static final int BUFFER_SIZE = 65536;
+
+    private final int workers;
+    private final long maxInFlightBytes;
+    private final AesKeyCache keyCache;
+
+    public record EntryFailure(String name, String reason) {
+    }
+
+    public record ProgressEvent(Path archive, String entryName, long entriesVerified, long entryCount,
+            long bytesVerified, long totalBytes) {
+    }
+
+    public record CompletedEvent(Path archive, long entriesVerified, long bytes, List<EntryFailure> entryFailures,
+            long durationNanos, Throwable failure) {
+        public boolean isSuccess() {
+            return Objects.isNull(failure) && entryFailures.isEmpty();
+        }
+    }
+
+    public ArchiveIntegrityVerifier(int workers) {
+        this(workers, DEFAULT_MAX_IN_FLIGHT_BYTES);
+    }
+
+    public ArchiveIntegrityVerifier(int workers, long maxInFlightBytes) {
+        this(workers, maxInFlightBytes, null);
+    }
+
+    public ArchiveIntegrityVerifier(int workers, long maxInFlightBytes, AesKeyCache keyCache) {
+        if (workers < 1 || maxInFlightBytes < 1) {
+            throw new IllegalArgumentException(String.format("Invalid verification bounds: %d workers, %d bytes",
+                                                             workers, maxInFlightBytes));
+        }
+        this.workers = workers;
+        this.maxInFlightBytes = Math.min(maxInFlightBytes, Integer.MAX_VALUE);
+        this.keyCache = keyCache;
+    }
+
+    /**
+     *  Verifies every entry of the archive. Entries that fail verification are reported in the completed event,
+     *  ordered by their position in the archive.
+     *
+     *  @throws EntryDecoder.WrongPasswordException if the password does not match the first encrypted entry
+     */
+    public CompletedEvent verify(Path archive, char[] password) throws IOException {
+        final long start = System.nanoTime();
+        final Semaphore inFlight = new Semaphore((int) maxInFlightBytes);
+        final Queue<IndexedFailure> entryFailures = new ConcurrentLinkedQueue<>();
+        final AtomicLong entriesVerified = new AtomicLong();
+        final AtomicLong bytesVerified = new AtomicLong();
+        final AtomicInteger entriesInFlight = new AtomicInteger();
+        final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+        final ExecutorService executor = Executors.newFixedThreadPool(workers, threadFactory());
+        Throwable failure = null;
+
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.EXTRACT);
+            CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            final List<CentralDirectoryEntry> files = reader.stream()
+                                                            .filter(e -> !e.isDirectory())
+                                                            .toList();
+            final CentralDirectoryEntry encrypted = files.stream()
+                                                         .filter(CentralDirectoryEntry::isEncrypted)
+                                                         .findFirst()
+                                                         .orElse(null);
+            if (Objects.nonNull(encrypted)) {
+                PasswordVerifier.requireValid(reader, encrypted, password, keyCache);
+            }
+
+            final long entryCount = files.size();
+            final long totalBytes = files.stream().mapToLong(CentralDirectoryEntry::uncompressedSize).sum();
+            final long progressStep = Math.max(1, entryCount / PROGRESS_STEPS);
+            for (CentralDirectoryEntry entry : files) {
+                final int permits = (int) Math.max(1, Math.min(entry.compressedSize(), maxInFlightBytes));
+                inFlight.acquire(permits);
+
+                METRICS.queueDepth(entriesInFlight.incrementAndGet());
+                executor.execute(METRICS.wrap(() -> {
+                    try {
+                        drain(reader, entry, password, buffers.get());
+                    } catch(Throwable e) {
+                        entryFailures.add(new IndexedFailure(entry.index(),
+                                                             new EntryFailure(entry.name(), String.valueOf(
+                                                                     e.getMessage()))));
+                    } finally {
+                        final long bytes = bytesVerified.addAndGet(entry.uncompressedSize());
+                        final long completed = entriesVerified.incrementAndGet();
+                        if (completed % progressStep == 0 || completed == entryCount) {
+                            DEFAULT_BUS.post(new ProgressEvent(archive, entry.name(), completed, entryCount, bytes,
+                                                               totalBytes));
+                        }
+                        entriesInFlight.decrementAndGet();
+                        inFlight.release(permits);
+                    }
+                }));
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Entries in flight must complete before the channel is closed
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch(IOException | RuntimeException e) {
+            failure = e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final List<EntryFailure> failures = new ArrayList<>(entryFailures.size());
+        entryFailures.stream()
+                     .sorted(Comparator.comparingLong(IndexedFailure::index))
+                     .forEach(f -> failures.add(f.failure()));
+        final CompletedEvent completed = new CompletedEvent(archive, entriesVerified.get(), bytesVerified.get(),
+                                                            List.copyOf(failures), System.nanoTime() - start,
+                                                            failure);
+        DEFAULT_BUS.post(completed);
+        if (Objects.nonNull(failure)) {
+            if (failure instanceof IOException e) {
+                throw e;
+            }
+            throw new IOException(String.format("Verification of %s failed", archive), failure);
+        }
+        return completed;
+    }
+
+    private void drain(CentralDirectoryReader reader, CentralDirectoryEntry entry, char[] password,
+            byte[] buffer) throws IOException {
+        // The decoder verifies the CRC and authentication code once the entry has been read to the end
+        try(InputStream stream = EntryDecoder.open(reader, entry, password, keyCache)) {
+            while (stream.read(buffer) >= 0) {
+                // Decoded bytes are only checksummed
+            }
+        }
+    }
+
+    private record IndexedFailure(long index, EntryFailure failure) {
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+        return (r) -> {
+            Thread thread = new Thread(r, String.format("pz-verify-%d", count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
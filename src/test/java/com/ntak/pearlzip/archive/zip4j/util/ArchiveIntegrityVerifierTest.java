@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+public class ArchiveIntegrityVerifierTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Verify encrypted archive - wrong password detected up front, corrupted entry reported from its MAC
+     */
+    @Test
+    @DisplayName("Test: Verify an encrypted archive checks the password up front and reports the corrupted entry")
+    public void test_VerifyEncryptedArchive_CorruptionReported() throws IOException {
+        // Set up
+        CorpusSpec spec = CorpusSpec.of(60, 16384)
+                                    .withEncryption(Zip4jEncryption.AES_256);
+        Path archive = workingDir.resolve("verifyEncrypted.zip");
+        Files.copy(Zip4jCorpusGenerator.corpus(spec), archive, StandardCopyOption.REPLACE_EXISTING);
+        ArchiveIntegrityVerifier verifier = new ArchiveIntegrityVerifier(Runtime.getRuntime().availableProcessors());
+
+        Assertions.assertThrows(EntryDecoder.WrongPasswordException.class,
+                                () -> verifier.verify(archive, "p".toCharArray()),
+                                "Wrong password was not detected");
+
+        // Encrypted entries are verified against their authentication code
+        RecoveryScanner.RecoveredEntry corrupted = RecoveryScanner.scan(archive)
+                                                                  .entries()
+                                                                  .get(30);
+        flipByte(archive, corrupted.dataOffset() + 40);
+        try(Zip4jWaitUtil.BusEventWaiter<ArchiveIntegrityVerifier.ProgressEvent> progress =
+                    Zip4jWaitUtil.expectBusEvent(ArchiveIntegrityVerifier.ProgressEvent.class,
+                                                 e -> e.archive().equals(archive) &&
+                                                         e.entriesVerified() == e.entryCount())) {
+            ArchiveIntegrityVerifier.CompletedEvent result =
+                    verifier.verify(archive, Zip4jCorpusGenerator.PASSWORD.toCharArray());
+            progress.await("final progress of archive test");
+            Assertions.assertEquals(spec.entryCount(), result.entriesVerified(), "Not every entry was verified");
+            Assertions.assertEquals(List.of(corrupted.entry().name()),
+                                    result.entryFailures()
+                                          .stream()
+                                          .map(ArchiveIntegrityVerifier.EntryFailure::name)
+                                          .toList(),
+                                    "Unexpected entries failed verification");
+        }
+    }
+
+    private static void flipByte(Path archive, long position) throws IOException {
+        byte[] content = Files.readAllBytes(archive);
+        content[(int) position] ^= (byte) 0xFF;
+        Files.write(archive, content);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.EndOfCentralDirectory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+
+/**
+ *  Lightweight alternative to generating the full archive metadata when only its headline properties (e.g. whether
+ *  it is encrypted, to choose an icon) are required. Only the end of central directory record and a bounded sample
+ *  of leading central directory records are read, with positional reads, so the cost is independent of the number
+ *  of entries. Results are held in an LRU cache keyed by path, size and modification time, so a modified archive is
+ *  probed again.
+ *
+ *  As only a sample is read, an archive in which just later entries are encrypted is reported as unencrypted; see
+ *  {@link MetaData#isExhaustive()}.
+ */
+public class ArchiveMetaDataProbe {
+
+    public static final int DEFAULT_SAMPLE_ENTRIES = 16;
+    public static final int DEFAULT_SAMPLE_BYTES = 4096;
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final int sampleEntries;
+    private final int sampleBytes;
+    private final int maxEntries;
+    private final Map<CacheKey,MetaData> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public record MetaData(Path archive, long entryCount, boolean split, boolean encrypted, int aesStrength,
+            int sampledEntries) {
+
+        public boolean isAes() {
+            return aesStrength > 0;
+        }
+
+        /**
+         *  Whether every entry was sampled, in which case the encryption flag holds for the whole archive.
+         */
+        public boolean isExhaustive() {
+            return sampledEntries == entryCount;
+        }
+    }
+
+    private record CacheKey(String archive, long size, long lastModified) {
+    }
+
+    public ArchiveMetaDataProbe() {
+        this(DEFAULT_SAMPLE_ENTRIES, DEFAULT_SAMPLE_BYTES, DEFAULT_MAX_ENTRIES);
+    }
+
+    public ArchiveMetaDataProbe(int sampleEntries, int sampleBytes, int maxEntries) {
+        this.sampleEntries = sampleEntries;
+        this.sampleBytes = sampleBytes;
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey,MetaData> eldest) {
+                return size() > ArchiveMetaDataProbe.this.maxEntries;
+            }
+        };
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public MetaData probe(Path archive) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(archive, BasicFileAttributes.class);
+        final CacheKey key = new CacheKey(archive.toAbsolutePath().normalize().toString(), attributes.size(),
+                                          attributes.lastModifiedTime().toMillis());
+        synchronized(this) {
+            final MetaData cached = cache.get(key);
+            if (Objects.nonNull(cached)) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        final MetaData metaData = read(archive);
+        synchronized(this) {
+            cache.put(key, metaData);
+        }
+        return metaData;
+    }
+
+    private MetaData read(Path archive) throws IOException {
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.OPEN);
+            CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            final EndOfCentralDirectory eocd = reader.endOfCentralDirectory();
+            final boolean split = eocd.diskNumber() != 0;
+
+            // The central directory of a split archive may start in an earlier volume, which is not sampled
+            final List<CentralDirectoryEntry> sample = eocd.centralDirectoryDisk() == eocd.diskNumber() ?
+                    reader.sample(sampleEntries, sampleBytes) : List.of();
+            final CentralDirectoryEntry encrypted = sample.stream()
+                                                          .filter(CentralDirectoryEntry::isEncrypted)
+                                                          .findFirst()
+                                                          .orElse(null);
+            return new MetaData(archive, eocd.entryCount(), split, Objects.nonNull(encrypted),
+                                Objects.nonNull(encrypted) && encrypted.isAes() ? encrypted.aesStrength() : 0,
+                                sample.size());
+        }
+    }
+}
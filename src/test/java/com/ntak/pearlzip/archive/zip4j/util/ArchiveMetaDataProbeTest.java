@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ArchiveMetaDataProbeTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Probe archives - encryption matches Zip4j, cached until modified
+     */
+    @Test
+    @DisplayName("Test: Archive metadata probe agrees with Zip4j on encryption and is cached until modified")
+    public void test_ArchiveMetaDataProbe_MatchesZip4j() throws IOException {
+        // Set up
+        Path archive = workingDir.resolve("probe.zip");
+        List<Path> archives = new ArrayList<>();
+        for (String resource : List.of("ea.zip", "encryptedArchive.zip", "unencryptedArchive.zip")) {
+            archives.add(Paths.get("src", "test", "resources", resource).toAbsolutePath());
+        }
+        for (Zip4jEncryption encryption : Zip4jEncryption.values()) {
+            archives.add(Zip4jCorpusGenerator.corpus(CorpusSpec.of(1000, 64)
+                                                               .withFolders(1, 10)
+                                                               .withEncryption(encryption)));
+        }
+
+        ArchiveMetaDataProbe probe = new ArchiveMetaDataProbe();
+        for (Path path : archives) {
+            ArchiveMetaDataProbe.MetaData metaData = probe.probe(path);
+            Assertions.assertEquals(new net.lingala.zip4j.ZipFile(path.toFile()).isEncrypted(), metaData.encrypted(),
+                                    String.format("Probe of %s disagrees on encryption", path));
+            Assertions.assertTrue(metaData.sampledEntries() <= ArchiveMetaDataProbe.DEFAULT_SAMPLE_ENTRIES,
+                                  "More entries sampled than expected");
+        }
+        Assertions.assertEquals(archives.size(), probe.getMisses(), "Unexpected number of cache misses");
+
+        Files.copy(archives.get(archives.size() - 1), archive, StandardCopyOption.REPLACE_EXISTING);
+        Assertions.assertEquals(3, probe.probe(archive).aesStrength(), "AES-256 strength was not probed");
+        probe.probe(archive);
+        Assertions.assertEquals(1, probe.getHits(), "Unmodified archive was not cached");
+
+        // Replacing the archive invalidates the cached result
+        Files.copy(archives.get(archives.size() - 4), archive, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+        Assertions.assertFalse(probe.probe(archive).encrypted(), "Stale result returned for modified archive");
+        Assertions.assertEquals(1, probe.getHits(), "Modified archive was served from the cache");
+    }
+}
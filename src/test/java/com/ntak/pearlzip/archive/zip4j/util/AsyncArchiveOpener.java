@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+
+/**
+ *  Opens an archive without blocking the caller: the central directory is scanned on a background thread, the
+ *  password is verified against the first encrypted entry only, and entries are pushed into the target list (e.g.
+ *  {@code FXArchiveInfo.getFiles()}) in pages. The first page is small so that the archive becomes interactive as
+ *  soon as it is read; later pages are larger. Pages read while the FX thread is busy are coalesced into a single
+ *  {@link Platform#runLater(Runnable)} and a single list change.
+ *
+ *  Completion ({@link CompletedEvent}) is posted on the default event bus.
+ */
+public class AsyncArchiveOpener {
+
+    public static final int DEFAULT_FIRST_PAGE_SIZE = 100;
+    public static final int DEFAULT_PAGE_SIZE = 2000;
+    public static final long DRAIN_TIMEOUT = 60000;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(threadFactory());
+
+    private final int firstPageSize;
+    private final int pageSize;
+
+    public record CompletedEvent(Path archive, long entryCount, boolean encrypted, long firstPageNanos,
+            long durationNanos, Throwable failure) {
+        public boolean isSuccess() {
+            return Objects.isNull(failure);
+        }
+    }
+
+    public AsyncArchiveOpener() {
+        this(DEFAULT_FIRST_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+    }
+
+    public AsyncArchiveOpener(int firstPageSize, int pageSize) {
+        if (firstPageSize < 1 || pageSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid page sizes: %d, %d", firstPageSize, pageSize));
+        }
+        this.firstPageSize = firstPageSize;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     *  Opens the archive into the target list. The future completes once every entry has been pushed to the FX
+     *  thread, or exceptionally (e.g. with {@link EntryDecoder.WrongPasswordException}) if the archive cannot be read
+     *  with the password. The password is verified before the page holding the first encrypted entry is pushed, so
+     *  only unencrypted entries preceding it may have been pushed on failure. A failure adding entries to the target
+     *  list, or the FX thread not taking the last entries within {@link #DRAIN_TIMEOUT} ms, also fails the open.
+     */
+    public CompletableFuture<CompletedEvent> open(Path archive, char[] password, ObservableList<FileInfo> target) {
+        final CompletableFuture<CompletedEvent> result = new CompletableFuture<>();
+        final long start = System.nanoTime();
+        EXECUTOR.execute(() -> {
+            final AtomicLong firstPageNanos = new AtomicLong(-1);
+            long entryCount = 0;
+            boolean encrypted = false;
+            Throwable failure = null;
+            try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.OPEN);
+                CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+                final Publisher publisher = new Publisher(target, start, firstPageNanos);
+                CentralDirectoryReader.Page page = reader.readPage(reader.firstCursor(), firstPageSize);
+                while (true) {
+                    final List<FileInfo> files = new ArrayList<>(page.entries().size());
+                    for (CentralDirectoryEntry entry : page.entries()) {
+                        if (!encrypted && entry.isEncrypted() && !entry.isDirectory()) {
+                            encrypted = true;
+                            PasswordVerifier.requireValid(reader, entry, password, null);
+                        }
+                        files.add(toFileInfo(entry));
+                    }
+                    publisher.publish(files);
+                    entryCount += files.size();
+                    if (!page.hasNext()) {
+                        break;
+                    }
+                    page = reader.readPage(page.next(), pageSize);
+                }
+                publisher.await();
+            } catch(Throwable e) {
+                failure = e;
+            }
+
+            final CompletedEvent completed = new CompletedEvent(archive, entryCount, encrypted, firstPageNanos.get(),
+                                                                System.nanoTime() - start, failure);
+            DEFAULT_BUS.post(completed);
+            if (Objects.isNull(failure)) {
+                result.complete(completed);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+        return result;
+    }
+
+    private static FileInfo toFileInfo(CentralDirectoryEntry entry) {
+        final String name = entry.isDirectory() ? entry.name().substring(0, entry.name().length() - 1) :
+                entry.name();
+        return new FileInfo((int) entry.index(), name.split("/").length - 1, name, entry.crc(),
+                            entry.compressedSize(), entry.uncompressedSize(), entry.lastModified(), null, null, null,
+                            null, entry.externalAttributes(), "", entry.isDirectory(), entry.isEncrypted(),
+                            new HashMap<>());
+    }
+
+    /**
+     *  Coalesces pages onto the FX thread: a page read while an earlier push is still queued is added to that push.
+     */
+    private static class Publisher {
+        private final ObservableList<FileInfo> target;
+        private final long start;
+        private final AtomicLong firstPageNanos;
+        private final Queue<List<FileInfo>> pages = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final Zip4jMetrics.Operation operation = METRICS.currentOperation();
+
+        Publisher(ObservableList<FileInfo> target, long start, AtomicLong firstPageNanos) {
+            this.target = target;
+            this.start = start;
+            this.firstPageNanos = firstPageNanos;
+        }
+
+        void publish(List<FileInfo> files) {
+            pages.add(files);
+            if (scheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::drain);
+            }
+        }
+
+        /**
+         *  Waits until every published page has been added to the target list, raising the first failure to add a
+         *  page.
+         */
+        void await() throws Exception {
+            final CompletableFuture<Void> drained = new CompletableFuture<>();
+            Platform.runLater(() -> {
+                drain();
+                drained.complete(null);
+            });
+            try {
+                drained.get(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch(TimeoutException e) {
+                throw new TimeoutException(String.format("Entries were not added within %d ms", DRAIN_TIMEOUT));
+            }
+            if (failure.get() instanceof Error e) {
+                throw e;
+            }
+            if (failure.get() instanceof Exception e) {
+                throw e;
+            }
+        }
+
+        private void drain() {
+            scheduled.set(false);
+            final List<FileInfo> files = new ArrayList<>();
+            for (List<FileInfo> page = pages.poll(); Objects.nonNull(page); page = pages.poll()) {
+                files.addAll(page);
+            }
+            if (files.isEmpty() || Objects.nonNull(failure.get())) {
+                return;
+            }
+
+            try(Zip4jMetrics.Scope scope = METRICS.operation(operation)) {
+                final long update = System.nanoTime();
+                target.addAll(files);
+                firstPageNanos.compareAndSet(-1, System.nanoTime() - start);
+                METRICS.record(Zip4jMetrics.Phase.FX_UPDATE, update, 0, files.size());
+            } catch(Throwable e) {
+                // Raised to the opening thread, as a runLater failure would otherwise only reach the FX thread
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+        return (r) -> {
+            Thread thread = new Thread(r, String.format("pz-open-%d", count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.testfx.api.FxToolkit;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncArchiveOpenerTest {
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        // Entries are pushed on the FX thread
+        FxToolkit.registerPrimaryStage();
+    }
+
+    /*
+     *  Test cases:
+     *  + Asynchronous open of encrypted archive - first page pushed ahead of the rest, later pages coalesced
+     *  + Asynchronous open of encrypted archive - wrong password fails before entries are pushed
+     *  + Asynchronous open into a list that rejects entries - failure raised by the open
+     */
+    @Test
+    @DisplayName("Test: Asynchronous open of an encrypted archive pushes its first page ahead of the rest")
+    public void test_AsyncOpenEncryptedArchive_FirstPageFirst(TestReporter reporter) throws Exception {
+        final int[] entryCounts = {100, 50000};
+        final Map<Integer,Long> timeToFirstRow = new TreeMap<>();
+
+        for (int entryCount : entryCounts) {
+            CorpusSpec spec = CorpusSpec.of(entryCount, 16)
+                                        .withFolders(2, 50)
+                                        .withEncryption(Zip4jEncryption.ZIP_STANDARD);
+            Path archive = Zip4jCorpusGenerator.corpus(spec);
+            ObservableList<FileInfo> files = FXCollections.observableArrayList();
+            List<Integer> changes = new ArrayList<>();
+            files.addListener((ListChangeListener<FileInfo>) c -> {
+                while (c.next()) {
+                    changes.add(c.getAddedSize());
+                }
+            });
+
+            AsyncArchiveOpener.CompletedEvent completed =
+                    new AsyncArchiveOpener().open(archive, Zip4jCorpusGenerator.PASSWORD.toCharArray(), files)
+                                            .get(Zip4jWaitUtil.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+            Zip4jWaitUtil.waitForFxEvents();
+            timeToFirstRow.put(entryCount, completed.firstPageNanos());
+
+            Assertions.assertTrue(completed.encrypted(), "Archive was not detected as encrypted");
+            Assertions.assertEquals(entryCount, completed.entryCount(), "Unexpected number of entries read");
+            Assertions.assertEquals(entryCount, files.size(), "Not every entry was pushed");
+            Assertions.assertEquals(Math.min(AsyncArchiveOpener.DEFAULT_FIRST_PAGE_SIZE, entryCount), changes.get(0),
+                                    "First rows were not pushed ahead of the rest of the archive");
+            Assertions.assertTrue(changes.size() <= 1 + (entryCount + AsyncArchiveOpener.DEFAULT_PAGE_SIZE - 1) /
+                                          AsyncArchiveOpener.DEFAULT_PAGE_SIZE,
+                                  String.format("Pages were not coalesced: %d list changes", changes.size()));
+            Assertions.assertEquals(spec.entryName(0), files.get(0).getFileName(),
+                                    "Entries were not pushed in central directory order");
+        }
+        reporter.publishEntry("async-open-time-to-first-row-ns", String.valueOf(timeToFirstRow));
+    }
+
+    @Test
+    @DisplayName("Test: Asynchronous open of an encrypted archive with the wrong password pushes no entries")
+    public void test_AsyncOpenEncryptedArchiveWrongPassword_Fails() throws Exception {
+        Path archive = Paths.get("src", "test", "resources", "ea.zip").toAbsolutePath();
+        ObservableList<FileInfo> files = FXCollections.observableArrayList();
+
+        try(Zip4jWaitUtil.BusEventWaiter<AsyncArchiveOpener.CompletedEvent> completion =
+                    Zip4jWaitUtil.expectBusEvent(AsyncArchiveOpener.CompletedEvent.class,
+                                                 e -> e.archive().equals(archive))) {
+            CompletableFuture<AsyncArchiveOpener.CompletedEvent> open =
+                    new AsyncArchiveOpener().open(archive, "wrong".toCharArray(), files);
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                                                           () -> open.get(Zip4jWaitUtil.DEFAULT_TIMEOUT,
+                                                                          TimeUnit.MILLISECONDS),
+                                                           "Open with the wrong password did not fail");
+            Assertions.assertTrue(e.getCause() instanceof EntryDecoder.WrongPasswordException,
+                                  String.format("Unexpected failure: %s", e.getCause()));
+            Assertions.assertFalse(completion.await("failed open").isSuccess(), "Open was reported as successful");
+            Zip4jWaitUtil.waitForFxEvents();
+            // Every entry of the archive is on the first page, which is not pushed when the password is wrong
+            Assertions.assertTrue(files.isEmpty(),
+                                  String.format("Entries were pushed with the wrong password: %s", files));
+
+            // The right password opens the archive
+            new AsyncArchiveOpener().open(archive, "password".toCharArray(), files)
+                                    .get(Zip4jWaitUtil.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+            Zip4jWaitUtil.waitForFxEvents();
+            Assertions.assertTrue(files.stream().anyMatch(f -> f.getFileName().equals("folder/enc_file_1")),
+                                  "enc_file_1 was not found in archive");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Asynchronous open into a list that rejects entries fails with the list's failure")
+    public void test_AsyncOpenRejectingList_Fails() {
+        Path archive = Paths.get("src", "test", "resources", "unencryptedArchive.zip").toAbsolutePath();
+        ObservableList<FileInfo> files = FXCollections.unmodifiableObservableList(
+                FXCollections.observableArrayList());
+
+        CompletableFuture<AsyncArchiveOpener.CompletedEvent> open = new AsyncArchiveOpener().open(archive, null, files);
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                                                       () -> open.get(Zip4jWaitUtil.DEFAULT_TIMEOUT,
+                                                                      TimeUnit.MILLISECONDS),
+                                                       "Open did not fail when entries could not be added");
+        Assertions.assertTrue(e.getCause() instanceof UnsupportedOperationException,
+                              String.format("Unexpected failure: %s", e.getCause()));
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ *  Persistent index of central directory records, memory mapped on reuse. Index files are keyed by the archive path
+ *  together with its size and modification time, so modifying an archive invalidates its index. The least recently
+ *  used index files are evicted once the total size of the cache exceeds its limit.
+ *
+ *  Index layout (big endian): magic, version, entry count, an offset table with one long per entry and then one
+ *  record per entry holding the central directory fields. An index is mapped as a single buffer, so archives whose
+ *  index would exceed {@link #MAX_INDEX_SIZE} are rejected.
+ */
+public class CentralDirectoryIndexCache {
+
+    public static final String INDEX_EXTENSION = ".cdx";
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    public static final long MAX_INDEX_SIZE = Integer.MAX_VALUE;
+
+    private static final int MAGIC = 0x505A4344; // PZCD
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final Path cacheDirectory;
+    private final long maxTotalSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CentralDirectoryIndexCache(Path cacheDirectory) {
+        this(cacheDirectory, DEFAULT_MAX_SIZE);
+    }
+
+    public CentralDirectoryIndexCache(Path cacheDirectory, long maxTotalSize) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public synchronized Index lookup(Path archive) throws IOException {
+        final Path indexFile = indexFile(archive);
+        if (Files.exists(indexFile)) {
+            hits.incrementAndGet();
+            Files.setLastModifiedTime(indexFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return map(indexFile);
+        }
+
+        misses.incrementAndGet();
+        Files.createDirectories(cacheDirectory);
+        invalidate(archive);
+        build(archive, indexFile);
+        evict(indexFile);
+        return map(indexFile);
+    }
+
+    /**
+     *  Removes all index files held for the archive, whatever state of the archive they were built from.
+     */
+    public synchronized void invalidate(Path archive) throws IOException {
+        final String prefix = String.format("%s-", pathKey(archive));
+        for (Path indexFile : indexFiles()) {
+            if (indexFile.getFileName().toString().startsWith(prefix)) {
+                Files.deleteIfExists(indexFile);
+            }
+        }
+    }
+
+    public synchronized long totalSize() throws IOException {
+        long total = 0;
+        for (Path indexFile : indexFiles()) {
+            total += Files.size(indexFile);
+        }
+        return total;
+    }
+
+    Path indexFile(Path archive) throws IOException {
+        final Path absolute = archive.toAbsolutePath().normalize();
+        final String state = String.format("%d:%d", Files.size(absolute),
+                                           Files.getLastModifiedTime(absolute).toMillis());
+        return cacheDirectory.resolve(String.format("%s-%s%s", pathKey(absolute), hash(state).substring(0, 16),
+                                                    INDEX_EXTENSION));
+    }
+
+    private static String pathKey(Path archive) {
+        return hash(archive.toAbsolutePath().normalize().toString()).substring(0, 32);
+    }
+
+    private static String hash(String value) {
+        try {
+            return HexFormat.of()
+                            .formatHex(MessageDigest.getInstance("SHA-256")
+                                                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void build(Path archive, Path indexFile) throws IOException {
+        final Path offsets = Files.createTempFile(cacheDirectory, "offsets", ".tmp");
+        final Path records = Files.createTempFile(cacheDirectory, "records", ".tmp");
+        final Path staging = Files.createTempFile(cacheDirectory, "index", ".tmp");
+        try {
+            long count = 0;
+            try(CentralDirectoryReader reader = new CentralDirectoryReader(archive);
+                DataOutputStream offsetStream = dataStream(offsets);
+                DataOutputStream recordStream = dataStream(records);
+                Stream<CentralDirectoryEntry> entries = reader.stream()) {
+                for (CentralDirectoryEntry entry : (Iterable<CentralDirectoryEntry>) entries::iterator) {
+                    offsetStream.writeLong(recordStream.size());
+                    writeRecord(recordStream, entry);
+                    count++;
+                }
+            }
+
+            try(FileChannel target = FileChannel.open(staging, StandardOpenOption.WRITE,
+                                                      StandardOpenOption.TRUNCATE_EXISTING);
+                DataOutputStream header = new DataOutputStream(Channels.newOutputStream(target))) {
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeLong(count);
+                header.flush();
+                final long indexSize = HEADER_SIZE + Files.size(offsets) + Files.size(records);
+                if (indexSize > MAX_INDEX_SIZE) {
+                    throw new IOException(String.format("Central directory index of %s would be %d bytes, " +
+                                                                "exceeding the limit of %d bytes", archive,
+                                                        indexSize, MAX_INDEX_SIZE));
+                }
+                for (Path part : List.of(offsets, records)) {
+                    try(FileChannel source = FileChannel.open(part, StandardOpenOption.READ)) {
+                        for (long position = 0, size = source.size(); position < size; ) {
+                            position += source.transferTo(position, size - position, target);
+                        }
+                    }
+                }
+            }
+            Files.move(staging, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(offsets);
+            Files.deleteIfExists(records);
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    private static DataOutputStream dataStream(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    }
+
+    private static void writeRecord(DataOutputStream stream, CentralDirectoryEntry entry) throws IOException {
+        final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+        stream.writeLong(entry.index());
+        stream.writeShort(entry.flags());
+        stream.writeShort(entry.method());
+        stream.writeLong(entry.crc());
+        stream.writeLong(entry.compressedSize());
+        stream.writeLong(entry.uncompressedSize());
+        stream.writeLong(entry.localHeaderOffset());
+        stream.writeInt(entry.diskNumber());
+        stream.writeLong(entry.dosTime());
+        stream.writeInt(entry.externalAttributes());
+        stream.writeByte(entry.aesStrength());
+        stream.writeShort(entry.actualMethod());
+        stream.writeLong(entry.recordOffset());
+        stream.writeInt(entry.recordLength());
+        stream.writeInt(name.length);
+        stream.write(name);
+    }
+
+    private static Index map(Path indexFile) throws IOException {
+        try(FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > MAX_INDEX_SIZE) {
+                throw new IOException(String.format("%s is not a central directory index of a supported size (%d " +
+                                                            "bytes)", indexFile, channel.size()));
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(String.format("%s is not a central directory index", indexFile));
+            }
+            final long size = buffer.getLong(8);
+            if (size < 0 || size > (channel.size() - HEADER_SIZE) / Long.BYTES) {
+                throw new IOException(String.format("%s has an entry count of %d beyond its offset table", indexFile,
+                                                    size));
+            }
+            return new Index(buffer, size);
+        }
+    }
+
+    private void evict(Path retained) throws IOException {
+        final List<Path> indexFiles = indexFiles().stream()
+                                                  .sorted(Comparator.comparing(CentralDirectoryIndexCache::lastModified))
+                                                  .toList();
+        long total = 0;
+        for (Path indexFile : indexFiles) {
+            total += Files.size(indexFile);
+        }
+        for (Path indexFile : indexFiles) {
+            if (total <= maxTotalSize) {
+                break;
+            }
+            if (!indexFile.equals(retained)) {
+                total -= Files.size(indexFile);
+                Files.deleteIfExists(indexFile);
+            }
+        }
+    }
+
+    private List<Path> indexFiles() throws IOException {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return List.of();
+        }
+        try(Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(INDEX_EXTENSION))
+                        .toList();
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch(IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     *  Read only view over a mapped index file. Records are decoded on access.
+     */
+    public static class Index {
+        private final MappedByteBuffer buffer;
+        private final long size;
+
+        private Index(MappedByteBuffer buffer, long size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public CentralDirectoryEntry entry(long index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(String.format("Entry %d is not within [0,%d)", index, size));
+            }
+
+            final long recordsStart = HEADER_SIZE + size * Long.BYTES;
+            // Positions fit in an int as index files larger than MAX_INDEX_SIZE are never mapped
+            final int p = Math.toIntExact(recordsStart + buffer.getLong(Math.toIntExact(HEADER_SIZE +
+                                                                                        index * Long.BYTES)));
+            final long entryIndex = buffer.getLong(p);
+            final int flags = Short.toUnsignedInt(buffer.getShort(p + 8));
+            final int method = Short.toUnsignedInt(buffer.getShort(p + 10));
+            final long crc = buffer.getLong(p + 12);
+            final long compressedSize = buffer.getLong(p + 20);
+            final long uncompressedSize = buffer.getLong(p + 28);
+            final long localHeaderOffset = buffer.getLong(p + 36);
+            final int diskNumber = buffer.getInt(p + 44);
+            final long dosTime = buffer.getLong(p + 48);
+            final int externalAttributes = buffer.getInt(p + 56);
+            final int aesStrength = Byte.toUnsignedInt(buffer.get(p + 60));
+            final int actualMethod = Short.toUnsignedInt(buffer.getShort(p + 61));
+            final long recordOffset = buffer.getLong(p + 63);
+            final int recordLength = buffer.getInt(p + 71);
+            final byte[] name = new byte[buffer.getInt(p + 75)];
+            buffer.get(p + 79, name);
+
+            return new CentralDirectoryEntry(entryIndex, new String(name, StandardCharsets.UTF_8), flags, method, crc,
+                                             compressedSize, uncompressedSize, localHeaderOffset, diskNumber, dosTime,
+                                             externalAttributes, aesStrength, actualMethod, recordOffset,
+                                             recordLength);
+        }
+
+        public Stream<CentralDirectoryEntry> stream() {
+            return LongStream.range(0, size)
+                            .mapToObj(this::entry);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+public class CentralDirectoryIndexCacheTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Look up archive - index hit on reopen, invalidated on modification
+     */
+    @Test
+    @DisplayName("Test: Central directory index cache is hit on reopen and invalidated on modification")
+    public void test_LookupArchive_HitAndInvalidation() throws IOException {
+        // Set up
+        Path archive = workingDir.resolve("ea.zip");
+        Path cacheDir = workingDir.resolve("cd-index");
+        Files.copy(Paths.get("src", "test", "resources", "ea.zip"), archive, StandardCopyOption.REPLACE_EXISTING);
+        CentralDirectoryIndexCache cache = new CentralDirectoryIndexCache(cacheDir);
+
+        // First open builds the index, reopen (e.g. after a password prompt) maps it
+        CentralDirectoryIndexCache.Index index = cache.lookup(archive);
+        Assertions.assertEquals(0, cache.getHits(), "Unexpected cache hit on first open");
+        index = cache.lookup(archive);
+        Assertions.assertEquals(1, cache.getHits(), "Cache was not hit on reopen");
+        try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            Assertions.assertEquals(reader.stream().toList(), index.stream().toList(),
+                                    "Cached index does not match the central directory");
+        }
+
+        // Modification invalidates the index
+        Files.copy(Paths.get("src", "test", "resources", "unencryptedArchive.zip"), archive,
+                   StandardCopyOption.REPLACE_EXISTING);
+        index = cache.lookup(archive);
+        Assertions.assertEquals(2, cache.getMisses(), "Index was not rebuilt after modification");
+        Assertions.assertTrue(index.stream().anyMatch(e -> e.name().equals("level2/level2-file")),
+                              "Rebuilt index does not reflect the modified archive");
+        try(Stream<Path> files = Files.list(cacheDir)) {
+            Assertions.assertEquals(1, files.filter(f -> f.toString()
+                                                          .endsWith(CentralDirectoryIndexCache.INDEX_EXTENSION))
+                                            .count(), "Stale index was not removed");
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+
+/**
+ *  Streams central directory records of a zip archive using positioned reads through a fixed size window. Only the
+ *  records of the requested page (or folder) are materialised, so time to first page and memory use are independent
+ *  of the number of entries in the archive.
+ */
+public class CentralDirectoryReader implements Closeable {
+
+    public static final int SIG_LOCAL_FILE_HEADER = 0x04034b50;
+    public static final int SIG_CENTRAL_DIRECTORY = 0x02014b50;
+    public static final int SIG_END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    public static final int SIG_ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    public static final int SIG_ZIP64_LOCATOR = 0x07064b50;
+    public static final int SIG_DATA_DESCRIPTOR = 0x08074b50;
+
+    public static final int EXTRA_ZIP64 = 0x0001;
+    public static final int EXTRA_AES = 0x9901;
+    public static final int METHOD_AES = 99;
+
+    public static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    public static final int LOCAL_FILE_HEADER_SIZE = 30;
+    public static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int WINDOW_SIZE = 65536;
+    private static final int STREAM_PAGE_SIZE = WINDOW_SIZE / CENTRAL_DIRECTORY_HEADER_SIZE;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final long UINT32_MAX = 0xFFFFFFFFL;
+    private static final Charset CP437 = Charset.isSupported("IBM437") ? Charset.forName("IBM437") :
+            StandardCharsets.ISO_8859_1;
+
+    public record EndOfCentralDirectory(long offset, long entryCount, long centralDirectoryOffset,
+            long centralDirectorySize, int diskNumber, int centralDirectoryDisk, boolean zip64) {
+    }
+
+    public record CentralDirectoryEntry(long index, String name, int flags, int method, long crc,
+            long compressedSize, long uncompressedSize, long localHeaderOffset, int diskNumber, long dosTime,
+            int externalAttributes, int aesStrength, int actualMethod, long recordOffset, int recordLength) {
+
+        public boolean isEncrypted() {
+            return (flags & 0x1) != 0;
+        }
+
+        public boolean isAes() {
+            return method == METHOD_AES;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public boolean hasDataDescriptor() {
+            return (flags & 0x8) != 0;
+        }
+
+        public String parent() {
+            final String trimmed = isDirectory() ? name.substring(0, name.length() - 1) : name;
+            final int separator = trimmed.lastIndexOf('/');
+            return separator < 0 ? "" : trimmed.substring(0, separator + 1);
+        }
+
+        /**
+         *  Modification time held in MS-DOS format, or null if the stored value is not a valid date.
+         */
+        public LocalDateTime lastModified() {
+            try {
+                return LocalDateTime.of((int) ((dosTime >> 25) & 0x7f) + 1980, (int) ((dosTime >> 21) & 0x0f),
+                                        (int) ((dosTime >> 16) & 0x1f), (int) ((dosTime >> 11) & 0x1f),
+                                        (int) ((dosTime >> 5) & 0x3f), (int) ((dosTime & 0x1f) << 1));
+            } catch(DateTimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     *  Position within the central directory. Cursors are immutable and may be retained to resume listing later.
+     */
+    public record Cursor(long index, long offset) {
+    }
+
+    public record Page(List<CentralDirectoryEntry> entries, Cursor next) {
+        public boolean hasNext() {
+            return Objects.nonNull(next);
+        }
+    }
+
+    public record FolderListing(String folder, List<CentralDirectoryEntry> files, SortedSet<String> subFolders) {
+    }
+
+    private final Path archive;
+    private final FileChannel channel;
+    private EndOfCentralDirectory endOfCentralDirectory;
+
+    public CentralDirectoryReader(Path archive) throws IOException {
+        this.archive = archive;
+        this.channel = FileChannel.open(archive, StandardOpenOption.READ);
+    }
+
+    public Path getArchive() {
+        return archive;
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public synchronized EndOfCentralDirectory endOfCentralDirectory() throws IOException {
+        if (Objects.isNull(endOfCentralDirectory)) {
+            endOfCentralDirectory = locateEndOfCentralDirectory();
+        }
+        return endOfCentralDirectory;
+    }
+
+    public Cursor firstCursor() throws IOException {
+        final EndOfCentralDirectory eocd = endOfCentralDirectory();
+        return eocd.entryCount() == 0 ? null : new Cursor(0, eocd.centralDirectoryOffset());
+    }
+
+    public Page readPage(Cursor cursor, int pageSize) throws IOException {
+        final List<CentralDirectoryEntry> entries = new ArrayList<>(pageSize);
+        final Cursor next = scan(cursor, pageSize, entries::add);
+        return new Page(entries, next);
+    }
+
+    public Stream<CentralDirectoryEntry> stream() throws IOException {
+        final Cursor first = firstCursor();
+        final Spliterator<CentralDirectoryEntry> spliterator = new Spliterators.AbstractSpliterator<>(
+                endOfCentralDirectory().entryCount(), Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Page page = Objects.isNull(first) ? null : readPage(first, STREAM_PAGE_SIZE);
+            private int position = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super CentralDirectoryEntry> action) {
+                try {
+                    while (Objects.nonNull(page) && position >= page.entries().size()) {
+                        page = page.hasNext() ? readPage(page.next(), page.entries().size()) : null;
+                        position = 0;
+                    }
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (Objects.isNull(page)) {
+                    return false;
+                }
+                action.accept(page.entries().get(position++));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     *  Lists the direct children of a folder (e.g. "" for the root or "folder/"). The whole central directory is
+     *  scanned but only the children of the requested folder are retained.
+     */
+    public FolderListing listFolder(String folder) throws IOException {
+        final String prefix = folder.isEmpty() || folder.endsWith("/") ? folder : folder + "/";
+        final List<CentralDirectoryEntry> files = new ArrayList<>();
+        final SortedSet<String> subFolders = new TreeSet<>();
+
+        scan(firstCursor(), Long.MAX_VALUE, (e) -> {
+            if (!e.name().startsWith(prefix) || e.name().equals(prefix)) {
+                return;
+            }
+            final int separator = e.name().indexOf('/', prefix.length());
+            if (separator < 0) {
+                files.add(e);
+            } else {
+                subFolders.add(e.name().substring(0, separator + 1));
+            }
+        });
+        return new FolderListing(prefix, files, subFolders);
+    }
+
+    /**
+     *  Parses the leading records of the central directory held within a single read of at most the given number of
+     *  bytes, e.g. to probe an archive without listing it. Fewer records are returned if they do not fit.
+     */
+    public List<CentralDirectoryEntry> sample(int maxEntries, int maxBytes) throws IOException {
+        final long start = System.nanoTime();
+        final EndOfCentralDirectory eocd = endOfCentralDirectory();
+        final ByteBuffer window = read(eocd.centralDirectoryOffset(),
+                                       (int) Math.min(maxBytes, eocd.centralDirectorySize()));
+        final List<CentralDirectoryEntry> entries = new ArrayList<>();
+        for (long index = 0; index < Math.min(maxEntries, eocd.entryCount()); index++) {
+            if (window.remaining() < CENTRAL_DIRECTORY_HEADER_SIZE || window.remaining() < recordLength(window)) {
+                break;
+            }
+            final int position = window.position();
+            final CentralDirectoryEntry entry = parseEntry(window, index, eocd.centralDirectoryOffset() + position);
+            window.position(position + entry.recordLength());
+            entries.add(entry);
+        }
+        METRICS.record(Zip4jMetrics.Phase.HEADER_PARSE, start, window.position(), entries.size());
+        return entries;
+    }
+
+    /**
+     *  Offset of the entry payload (i.e. immediately after the local file header of the entry).
+     */
+    public long dataOffset(CentralDirectoryEntry entry) throws IOException {
+        final ByteBuffer header = read(entry.localHeaderOffset(), LOCAL_FILE_HEADER_SIZE);
+        if (header.getInt(0) != SIG_LOCAL_FILE_HEADER) {
+            throw new IOException(String.format("No local file header for %s at offset %d", entry.name(),
+                                                entry.localHeaderOffset()));
+        }
+        return entry.localHeaderOffset() + LOCAL_FILE_HEADER_SIZE + Short.toUnsignedInt(header.getShort(26)) +
+                Short.toUnsignedInt(header.getShort(28));
+    }
+
+    public ByteBuffer read(long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+        readFully(buffer, position);
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Cursor scan(Cursor cursor, long limit, Consumer<CentralDirectoryEntry> consumer) throws IOException {
+        if (Objects.isNull(cursor)) {
+            return null;
+        }
+
+        final long start = System.nanoTime();
+        final EndOfCentralDirectory eocd = endOfCentralDirectory();
+        final long end = eocd.centralDirectoryOffset() + eocd.centralDirectorySize();
+        ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        window.flip();
+
+        long index = cursor.index();
+        long offset = cursor.offset();
+        long windowOffset = offset;
+        for (long count = 0; count < limit && index < eocd.entryCount(); count++) {
+            if (window.remaining() < CENTRAL_DIRECTORY_HEADER_SIZE ||
+                    window.remaining() < recordLength(window)) {
+                windowOffset = offset;
+                fill(window, windowOffset, end, index);
+                final int recordLength = recordLength(window);
+                if (recordLength > window.capacity()) {
+                    // Name, extra field and comment of up to 64KiB each may exceed the window
+                    window = ByteBuffer.allocate(recordLength)
+                                       .order(ByteOrder.LITTLE_ENDIAN);
+                    fill(window, windowOffset, end, index);
+                }
+                if (window.remaining() < recordLength) {
+                    throw new EOFException(String.format("Central directory record %d of %s at offset %d is " +
+                                                                 "truncated", index, archive, windowOffset));
+                }
+            }
+
+            final int position = window.position();
+            final CentralDirectoryEntry entry = parseEntry(window, index, windowOffset + position);
+            window.position(position + entry.recordLength());
+            offset = windowOffset + window.position();
+            index++;
+            consumer.accept(entry);
+        }
+        METRICS.record(Zip4jMetrics.Phase.HEADER_PARSE, start, offset - cursor.offset(), index - cursor.index());
+        return index < eocd.entryCount() ? new Cursor(index, offset) : null;
+    }
+
+    private void fill(ByteBuffer window, long windowOffset, long end, long index) throws IOException {
+        window.clear();
+        window.limit((int) Math.max(0, Math.min(window.capacity(), end - windowOffset)));
+        readFully(window, windowOffset);
+        window.flip();
+        if (window.remaining() < CENTRAL_DIRECTORY_HEADER_SIZE) {
+            throw new EOFException(String.format("Central directory of %s truncated at entry %d", archive, index));
+        }
+    }
+
+    private static int recordLength(ByteBuffer window) {
+        final int p = window.position();
+        return CENTRAL_DIRECTORY_HEADER_SIZE + Short.toUnsignedInt(window.getShort(p + 28)) +
+                Short.toUnsignedInt(window.getShort(p + 30)) + Short.toUnsignedInt(window.getShort(p + 32));
+    }
+
+    private CentralDirectoryEntry parseEntry(ByteBuffer window, long index, long recordOffset) throws IOException {
+        final int p = window.position();
+        if (window.getInt(p) != SIG_CENTRAL_DIRECTORY) {
+            throw new IOException(String.format("Invalid central directory record %d of %s at offset %d", index,
+                                                archive, recordOffset));
+        }
+
+        final int flags = Short.toUnsignedInt(window.getShort(p + 8));
+        final int method = Short.toUnsignedInt(window.getShort(p + 10));
+        final long dosTime = Integer.toUnsignedLong(window.getInt(p + 12));
+        final long crc = Integer.toUnsignedLong(window.getInt(p + 16));
+        long compressedSize = Integer.toUnsignedLong(window.getInt(p + 20));
+        long uncompressedSize = Integer.toUnsignedLong(window.getInt(p + 24));
+        final int nameLength = Short.toUnsignedInt(window.getShort(p + 28));
+        final int extraLength = Short.toUnsignedInt(window.getShort(p + 30));
+        final int commentLength = Short.toUnsignedInt(window.getShort(p + 32));
+        int diskNumber = Short.toUnsignedInt(window.getShort(p + 34));
+        final int externalAttributes = window.getInt(p + 38);
+        long localHeaderOffset = Integer.toUnsignedLong(window.getInt(p + 42));
+
+        final byte[] rawName = new byte[nameLength];
+        window.get(p + CENTRAL_DIRECTORY_HEADER_SIZE, rawName);
+        final String name = new String(rawName, (flags & 0x800) != 0 ? StandardCharsets.UTF_8 : CP437);
+
+        int aesStrength = 0;
+        int actualMethod = method;
+        for (int e = p + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength,
+             extraEnd = e + extraLength; e + 4 <= extraEnd; ) {
+            final int headerId = Short.toUnsignedInt(window.getShort(e));
+            final int dataSize = Short.toUnsignedInt(window.getShort(e + 2));
+            int d = e + 4;
+            if (d + dataSize > extraEnd) {
+                throw new IOException(String.format("Extra field of central directory record %d of %s at offset %d " +
+                                                            "overruns the record", index, archive, recordOffset));
+            }
+            if (headerId == EXTRA_ZIP64) {
+                // Only the fields saturated in the fixed record are present, in this order
+                final int zip64Size = (uncompressedSize == UINT32_MAX ? 8 : 0) +
+                        (compressedSize == UINT32_MAX ? 8 : 0) + (localHeaderOffset == UINT32_MAX ? 8 : 0) +
+                        (diskNumber == 0xFFFF ? 4 : 0);
+                if (zip64Size > dataSize) {
+                    throw new IOException(String.format("Zip64 extra field of central directory record %d of %s " +
+                                                                "at offset %d is truncated", index, archive,
+                                                        recordOffset));
+                }
+                if (uncompressedSize == UINT32_MAX) {
+                    uncompressedSize = window.getLong(d);
+                    d += 8;
+                }
+                if (compressedSize == UINT32_MAX) {
+                    compressedSize = window.getLong(d);
+                    d += 8;
+                }
+                if (localHeaderOffset == UINT32_MAX) {
+                    localHeaderOffset = window.getLong(d);
+                    d += 8;
+                }
+                if (diskNumber == 0xFFFF) {
+                    diskNumber = window.getInt(d);
+                }
+            } else if (headerId == EXTRA_AES && dataSize >= 7) {
+                aesStrength = Byte.toUnsignedInt(window.get(d + 4));
+                actualMethod = Short.toUnsignedInt(window.getShort(d + 5));
+            }
+            e += 4 + dataSize;
+        }
+
+        return new CentralDirectoryEntry(index, name, flags, method, crc, compressedSize, uncompressedSize,
+                                         localHeaderOffset, diskNumber, dosTime, externalAttributes, aesStrength,
+                                         actualMethod, recordOffset,
+                                         CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength);
+    }
+
+    private EndOfCentralDirectory locateEndOfCentralDirectory() throws IOException {
+        final long size = channel.size();
+        if (size < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            throw new IOException(String.format("%s is too small to be a zip archive", archive));
+        }
+
+        // Most archives have no comment, in which case the end record is found without reading the whole tail
+        final long lastOffset = size - END_OF_CENTRAL_DIRECTORY_SIZE;
+        final ByteBuffer last = read(lastOffset, END_OF_CENTRAL_DIRECTORY_SIZE);
+        if (last.getInt(0) == SIG_END_OF_CENTRAL_DIRECTORY && last.getShort(20) == 0) {
+            return parseEndOfCentralDirectory(last, 0, lastOffset);
+        }
+
+        final int tailLength = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        final long tailOffset = size - tailLength;
+        final ByteBuffer tail = read(tailOffset, tailLength);
+        for (int p = tailLength - END_OF_CENTRAL_DIRECTORY_SIZE; p >= 0; p--) {
+            if (tail.getInt(p) == SIG_END_OF_CENTRAL_DIRECTORY) {
+                return parseEndOfCentralDirectory(tail, p, tailOffset + p);
+            }
+        }
+        throw new IOException(String.format("No end of central directory record found in %s", archive));
+    }
+
+    private EndOfCentralDirectory parseEndOfCentralDirectory(ByteBuffer tail, int p, long offset) throws IOException {
+        int diskNumber = Short.toUnsignedInt(tail.getShort(p + 4));
+        int centralDirectoryDisk = Short.toUnsignedInt(tail.getShort(p + 6));
+        long entryCount = Short.toUnsignedInt(tail.getShort(p + 10));
+        long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(p + 12));
+        long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(p + 16));
+
+        if (offset >= 20) {
+            final ByteBuffer locator = read(offset - 20, 20);
+            if (locator.getInt(0) == SIG_ZIP64_LOCATOR) {
+                final long zip64Offset = locator.getLong(8);
+                final ByteBuffer zip64 = read(zip64Offset, 56);
+                if (zip64.getInt(0) != SIG_ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                    throw new IOException(String.format("Invalid zip64 end of central directory in %s",
+                                                        archive));
+                }
+                diskNumber = zip64.getInt(16);
+                centralDirectoryDisk = zip64.getInt(20);
+                entryCount = zip64.getLong(32);
+                centralDirectorySize = zip64.getLong(40);
+                centralDirectoryOffset = zip64.getLong(48);
+                return new EndOfCentralDirectory(offset, entryCount, centralDirectoryOffset,
+                                                 centralDirectorySize, diskNumber, centralDirectoryDisk, true);
+            }
+        }
+        return new EndOfCentralDirectory(offset, entryCount, centralDirectoryOffset, centralDirectorySize,
+                                         diskNumber, centralDirectoryDisk, false);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        final long start = System.nanoTime();
+        final int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException(String.format("Unexpected end of %s at offset %d", archive, position));
+            }
+            position += read;
+        }
+        METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, length, 0);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CentralDirectoryReaderTest {
+
+    /*
+     *  Test cases:
+     *  + Read first page - entries parsed and bytes read independent of entry count
+     */
+    @Test
+    @DisplayName("Test: Reading the first page parses and reads the same amount whatever the number of entries")
+    public void test_ReadFirstPage_IndependentOfEntryCount(TestReporter reporter) throws IOException {
+        final int pageSize = 100;
+        final int[] entryCounts = {100, 10000, 100000};
+        final Map<Integer,Long> bytesRead = new TreeMap<>();
+        // End record search of up to 64KiB, zip64 records and one read window of the central directory
+        final long maxBytesRead = 3 * 65536L;
+
+        for (int entryCount : entryCounts) {
+            CorpusSpec spec = CorpusSpec.of(entryCount, 16)
+                                        .withFolders(2, 50);
+            Path archive = Zip4jCorpusGenerator.corpus(spec);
+
+            Zip4jMetrics.Snapshot before = Zip4jMetrics.METRICS.snapshot();
+            try(Zip4jMetrics.Scope scope = Zip4jMetrics.METRICS.operation(Zip4jMetrics.Operation.OPEN);
+                CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+                CentralDirectoryReader.Page page = reader.readPage(reader.firstCursor(), pageSize);
+                Zip4jMetrics.Snapshot delta = Zip4jMetrics.METRICS.snapshot()
+                                                                  .minus(before);
+
+                Assertions.assertEquals(Math.min(pageSize, entryCount), page.entries().size(),
+                                        "First page was not of the expected size");
+                Assertions.assertEquals(spec.entryName(0), page.entries().get(0).name(),
+                                        "First page does not start with the first entry");
+                Assertions.assertEquals(entryCount > pageSize, page.hasNext(), "Unexpected next page");
+                Assertions.assertEquals(page.entries().size(),
+                                        delta.get(Zip4jMetrics.Operation.OPEN, Zip4jMetrics.Phase.HEADER_PARSE)
+                                             .entries(),
+                                        "Records beyond the first page were parsed");
+                bytesRead.put(entryCount, delta.get(Zip4jMetrics.Operation.OPEN, Zip4jMetrics.Phase.DISK_IO)
+                                               .bytes());
+            }
+        }
+        reporter.publishEntry("first-page-bytes-read", String.valueOf(bytesRead));
+
+        Assertions.assertTrue(bytesRead.values().stream().allMatch(b -> b <= maxBytesRead),
+                              String.format("Bytes read for the first page grew with entry count: %s", bytesRead));
+    }
+}
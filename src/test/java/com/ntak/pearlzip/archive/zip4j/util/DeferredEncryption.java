@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ *  Encryption of temporary archives (i.e. those held in the temporary store until first saved), deferred until the
+ *  archive is persisted. A temporary archive is marked for encryption instead of being encrypted in place; on
+ *  persisting, its payloads are wrapped by an {@link ArchiveEncryptor} straight into the target, so the archive is
+ *  written once rather than saved, reopened and then rewritten encrypted.
+ *
+ *  Passwords are copied on marking and wiped once the archive is persisted, the mark is cleared or on close.
+ */
+public class DeferredEncryption implements AutoCloseable {
+
+    private final Path storeTemp;
+    private final Map<Path,Mark> marks = new HashMap<>();
+
+    public record PersistResult(Path target, boolean encrypted, long bytesWritten) {
+    }
+
+    private record Mark(Zip4jEncryption encryption, char[] password) {
+        void wipe() {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    public DeferredEncryption(Path storeTemp) {
+        this.storeTemp = storeTemp.toAbsolutePath().normalize();
+    }
+
+    public boolean isTemporary(Path archive) {
+        return normalise(archive).startsWith(storeTemp);
+    }
+
+    /**
+     *  Marks the temporary archive to be encrypted when persisted, replacing any earlier mark. Archives outside of
+     *  the temporary store are already persisted and should be encrypted directly.
+     */
+    public synchronized void markEncrypted(Path archive, Zip4jEncryption encryption, char[] password) {
+        if (!isTemporary(archive)) {
+            throw new IllegalArgumentException(String.format("%s is not a temporary archive", archive));
+        }
+        if (encryption.getKeyStrength() == null) {
+            throw new IllegalArgumentException(String.format("Encryption %s cannot be deferred", encryption));
+        }
+        if (password == null || password.length == 0) {
+            throw new IllegalArgumentException("A password is required for encrypted archives");
+        }
+        final Mark previous = marks.put(normalise(archive), new Mark(encryption, password.clone()));
+        if (Objects.nonNull(previous)) {
+            previous.wipe();
+        }
+    }
+
+    public synchronized boolean isMarkedEncrypted(Path archive) {
+        return marks.containsKey(normalise(archive));
+    }
+
+    public synchronized void clearMark(Path archive) {
+        final Mark mark = marks.remove(normalise(archive));
+        if (Objects.nonNull(mark)) {
+            mark.wipe();
+        }
+    }
+
+    /**
+     *  Persists the temporary archive to the target, applying a pending encryption as it is written. The
+     *  temporary archive itself is left untouched.
+     */
+    public PersistResult persist(Path archive, Path target) throws IOException {
+        final Path key = normalise(archive);
+        final Mark mark;
+        synchronized(this) {
+            mark = marks.remove(key);
+        }
+        if (Objects.isNull(mark)) {
+            Files.copy(archive, target, StandardCopyOption.REPLACE_EXISTING);
+            return new PersistResult(target, false, Files.size(target));
+        }
+
+        final ArchiveEncryptor.CompletedEvent completed;
+        try {
+            completed = new ArchiveEncryptor(mark.encryption(), mark.password()).encrypt(archive, target);
+        } catch(IOException | RuntimeException e) {
+            // The archive remains temporary, so the mark is restored unless superseded in the meantime
+            synchronized(this) {
+                if (Objects.nonNull(marks.putIfAbsent(key, mark))) {
+                    mark.wipe();
+                }
+            }
+            throw e;
+        }
+        mark.wipe();
+        return new PersistResult(target, true, completed.bytesWritten());
+    }
+
+    @Override
+    public synchronized void close() {
+        marks.values().forEach(Mark::wipe);
+        marks.clear();
+    }
+
+    private static Path normalise(Path archive) {
+        return archive.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+public class DeferredEncryptionTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Persist an archive marked for encryption - encrypted as written, fewer bytes than save then encrypt
+     */
+    @Test
+    @DisplayName("Test: Deferred encryption encrypts a zip archive as it is persisted, writing it once")
+    public void test_DeferredEncryptionPersist_BytesWritten(TestReporter reporter) throws IOException {
+        // Set up
+        Path storeTemp = Files.createDirectories(workingDir.resolve("store"));
+        Path archive = Files.createDirectories(storeTemp.resolve("pz1234567890")).resolve("temp-deferred.zip");
+        Path savedDir = Files.createDirectories(workingDir.resolve("saved"));
+        char[] password = Zip4jCorpusGenerator.PASSWORD.toCharArray();
+        Files.copy(Zip4jCorpusGenerator.corpus(CorpusSpec.of(32, 131072)
+                                                         .withCompressibility(0.5)
+                                                         .withFolders(1, 4)),
+                   archive, StandardCopyOption.REPLACE_EXISTING);
+
+        try(DeferredEncryption deferredEncryption = new DeferredEncryption(storeTemp)) {
+            // Deferred: the temporary archive is marked and encrypted as it is persisted
+            deferredEncryption.markEncrypted(archive, Zip4jEncryption.AES_256, password);
+            Assertions.assertTrue(deferredEncryption.isMarkedEncrypted(archive), "Archive was not marked");
+            Assertions.assertFalse(new net.lingala.zip4j.ZipFile(archive.toFile()).isEncrypted(),
+                                   "Temporary archive was encrypted eagerly");
+            DeferredEncryption.PersistResult persisted = deferredEncryption.persist(archive,
+                                                                                    savedDir.resolve("deferred.zip"));
+            Assertions.assertTrue(persisted.encrypted(), "Persisted archive was not encrypted");
+            Assertions.assertFalse(deferredEncryption.isMarkedEncrypted(archive), "Mark was not cleared");
+            Assertions.assertTrue(new net.lingala.zip4j.ZipFile(persisted.target().toFile()).isEncrypted(),
+                                  "Generated file was not encrypted");
+
+            // Current workflow: save, reopen and rewrite the saved archive encrypted
+            Path saved = savedDir.resolve("saved.zip");
+            Path reencrypted = savedDir.resolve("reencrypted.zip");
+            Files.copy(archive, saved);
+            net.lingala.zip4j.ZipFile savedZip = new net.lingala.zip4j.ZipFile(saved.toFile());
+            try(net.lingala.zip4j.io.outputstream.ZipOutputStream out =
+                        new net.lingala.zip4j.io.outputstream.ZipOutputStream(Files.newOutputStream(reencrypted),
+                                                                              password)) {
+                for (net.lingala.zip4j.model.FileHeader header : savedZip.getFileHeaders()) {
+                    net.lingala.zip4j.model.ZipParameters parameters =
+                            Zip4jEncryption.AES_256.apply(new net.lingala.zip4j.model.ZipParameters());
+                    parameters.setFileNameInZip(header.getFileName());
+                    parameters.setEncryptFiles(!header.isDirectory());
+                    out.putNextEntry(parameters);
+                    if (!header.isDirectory()) {
+                        try(InputStream in = savedZip.getInputStream(header)) {
+                            in.transferTo(out);
+                        }
+                    }
+                    out.closeEntry();
+                }
+            }
+            long saveThenEncrypt = Files.size(saved) + Files.size(reencrypted);
+            reporter.publishEntry("deferred-bytes-written", String.valueOf(persisted.bytesWritten()));
+            reporter.publishEntry("save-then-encrypt-bytes-written", String.valueOf(saveThenEncrypt));
+
+            Assertions.assertEquals(Files.size(persisted.target()), persisted.bytesWritten(),
+                                    "Unexpected number of bytes written");
+            Assertions.assertTrue(persisted.bytesWritten() * 3 < saveThenEncrypt * 2,
+                                  "Deferred encryption did not reduce bytes written");
+
+            Path extractDir = savedDir.resolve("extract");
+            new net.lingala.zip4j.ZipFile(persisted.target().toFile(), password).extractAll(extractDir.toString());
+            try(Stream<Path> files = Files.walk(extractDir)) {
+                Assertions.assertEquals(32, files.filter(Files::isRegularFile).count(),
+                                        "Unexpected number of extracted files");
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.METHOD_DEFLATE;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.METHOD_STORE;
+
+/**
+ *  Decodes the payload of a single entry (decryption, inflation and verification) using positional reads on the
+ *  channel of a {@link CentralDirectoryReader}, so several entries of an archive may be decoded concurrently. The CRC
+ *  (or the AES authentication code) and size are verified once the stream has been read to the end.
+ */
+public class EntryDecoder {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    public static class WrongPasswordException extends IOException {
+        public WrongPasswordException(String message) {
+            super(message);
+        }
+    }
+
+    public static InputStream open(CentralDirectoryReader reader, CentralDirectoryEntry entry,
+            char[] password) throws IOException {
+        return open(reader, entry, password, null);
+    }
+
+    /**
+     *  Opens the entry, taking AES keys from the given cache (if any) rather than deriving them for every entry.
+     */
+    public static InputStream open(CentralDirectoryReader reader, CentralDirectoryEntry entry, char[] password,
+            AesKeyCache keyCache) throws IOException {
+        if (reader.endOfCentralDirectory().diskNumber() != 0) {
+            throw new IOException(String.format("Entry %s is within a split archive", entry.name()));
+        }
+        return open(reader.getChannel(), reader.getArchive(), entry, reader.dataOffset(entry), password, keyCache);
+    }
+
+    /**
+     *  Opens the entry whose payload starts at the given offset of the channel, e.g. an entry located from its local
+     *  header rather than from the central directory.
+     */
+    static InputStream open(FileChannel channel, Path archive, CentralDirectoryEntry entry, long dataOffset,
+            char[] password, AesKeyCache keyCache) throws IOException {
+        InputStream stream = new RangeInputStream(channel, dataOffset, entry.compressedSize());
+        if (entry.isEncrypted()) {
+            if (Objects.isNull(password)) {
+                throw new WrongPasswordException(String.format("No password provided for %s", entry.name()));
+            }
+            stream = entry.isAes() ? aes(stream, archive, entry, password, keyCache) :
+                    zipCrypto(stream, entry, password);
+        }
+
+        final int method = entry.isAes() ? entry.actualMethod() : entry.method();
+        stream = switch(method) {
+            case METHOD_STORE -> stream;
+            case METHOD_DEFLATE -> new InflatingInputStream(stream);
+            default -> throw new IOException(String.format("Compression method %d of %s is not supported", method,
+                                                           entry.name()));
+        };
+        return new VerifyingInputStream(stream, entry);
+    }
+
+    private static InputStream aes(InputStream stream, Path archive, CentralDirectoryEntry entry, char[] password,
+            AesKeyCache keyCache) throws IOException {
+        final byte[] salt = stream.readNBytes(WinZipAes.saltLength(entry.aesStrength()));
+        final byte[] verifier = stream.readNBytes(WinZipAes.VERIFIER_LENGTH);
+        final boolean cached = Objects.nonNull(keyCache);
+        final WinZipAes.DerivedKey key = cached ?
+                keyCache.derive(archive, password, salt, entry.aesStrength()) :
+                WinZipAes.derive(password, salt, entry.aesStrength());
+        try {
+            if (!WinZipAes.verify(key, verifier)) {
+                throw new WrongPasswordException(String.format("Wrong password for %s", entry.name()));
+            }
+            return new AesInputStream(stream, new WinZipAes.Engine(key),
+                                      entry.compressedSize() - WinZipAes.overhead(entry.aesStrength()), entry);
+        } finally {
+            // Cached keys are shared and wiped by the cache itself
+            if (!cached) {
+                key.wipe();
+            }
+        }
+    }
+
+    private static InputStream zipCrypto(InputStream stream, CentralDirectoryEntry entry,
+            char[] password) throws IOException {
+        final byte[] header = stream.readNBytes(ZipCrypto.HEADER_LENGTH);
+        final ZipCrypto crypto = new ZipCrypto(password);
+        if (header.length < ZipCrypto.HEADER_LENGTH || !crypto.initialise(header, ZipCrypto.checkByte(entry))) {
+            throw new WrongPasswordException(String.format("Wrong password for %s", entry.name()));
+        }
+        return new FilterInputStream(stream) {
+            @Override
+            public int read() throws IOException {
+                final byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(b[0]);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                final int read = in.read(b, off, len);
+                if (read > 0) {
+                    crypto.decrypt(b, off, read);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     *  Reads a region of the archive with positional reads, leaving the channel position untouched.
+     */
+    static class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        private long position;
+        private long remaining;
+
+        RangeInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(b[0]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                if (remaining == 0) {
+                    return -1;
+                }
+                buffer.clear()
+                      .limit((int) Math.min(buffer.capacity(), remaining));
+                final long start = System.nanoTime();
+                final int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException(String.format("Archive ends before offset %d", position));
+                }
+                METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, read, 0);
+                position += read;
+                remaining -= read;
+                buffer.flip();
+            }
+            final int length = Math.min(len, buffer.remaining());
+            buffer.get(b, off, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, buffer.remaining() + remaining);
+        }
+    }
+
+    /**
+     *  Decrypts the cipher text of an AES entry and checks its authentication code once the cipher text is consumed.
+     */
+    private static class AesInputStream extends FilterInputStream {
+        private final WinZipAes.Engine engine;
+        private final CentralDirectoryEntry entry;
+        private long remaining;
+        private boolean authenticated;
+
+        AesInputStream(InputStream in, WinZipAes.Engine engine, long length, CentralDirectoryEntry entry) {
+            super(in);
+            this.engine = engine;
+            this.entry = entry;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(b[0]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                authenticate();
+                return -1;
+            }
+            final int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read < 0) {
+                throw new EOFException(String.format("Cipher text of %s is truncated", entry.name()));
+            }
+            engine.decrypt(b, off, read);
+            remaining -= read;
+            if (remaining == 0) {
+                authenticate();
+            }
+            return read;
+        }
+
+        private void authenticate() throws IOException {
+            if (authenticated) {
+                return;
+            }
+            authenticated = true;
+            final byte[] mac = in.readNBytes(WinZipAes.MAC_LENGTH);
+            if (!MessageDigest.isEqual(engine.finish(), mac)) {
+                throw new IOException(String.format("Authentication code of %s does not match", entry.name()));
+            }
+        }
+    }
+
+    private static class InflatingInputStream extends InflaterInputStream {
+        InflatingInputStream(InputStream in) {
+            super(in, new Inflater(true), BUFFER_SIZE);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final long start = System.nanoTime();
+            final int read = super.read(b, off, len);
+            METRICS.record(Zip4jMetrics.Phase.INFLATE, start, Math.max(read, 0), read < 0 ? 1 : 0);
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+
+    private static class VerifyingInputStream extends FilterInputStream {
+        private final CentralDirectoryEntry entry;
+        private final CRC32 crc = new CRC32();
+        private long size;
+        private boolean verified;
+
+        VerifyingInputStream(InputStream in, CentralDirectoryEntry entry) {
+            super(in);
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(b[0]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = in.read(b, off, len);
+            if (read > 0) {
+                crc.update(b, off, read);
+                size += read;
+            } else if (read < 0 && !verified) {
+                verify();
+            }
+            return read;
+        }
+
+        private void verify() throws IOException {
+            verified = true;
+            if (size != entry.uncompressedSize()) {
+                throw new IOException(String.format("Size of %s was %d, expected %d", entry.name(), size,
+                                                    entry.uncompressedSize()));
+            }
+            // AE-2 entries carry no CRC; their integrity is covered by the authentication code
+            if ((!entry.isAes() || entry.crc() != 0) && crc.getValue() != entry.crc()) {
+                throw new IOException(String.format("CRC of %s was %08x, expected %08x", entry.name(),
+                                                    crc.getValue(), entry.crc()));
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+/**
+ *  Receives every sample recorded by {@link Zip4jMetrics}, on the thread that recorded it. Implementations are on the
+ *  hot path of archive operations and should hand samples off rather than block.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+    void record(Zip4jMetrics.Sample sample);
+}
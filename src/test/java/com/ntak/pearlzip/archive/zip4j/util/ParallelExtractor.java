@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+
+/**
+ *  Extracts all entries of an archive concurrently. Each worker decodes its entry with positional reads on a shared
+ *  channel (see {@link EntryDecoder}), so key derivation, decryption and inflation of independent entries run in
+ *  parallel. The compressed bytes of entries being extracted are bounded by a semaphore, so memory and I/O pressure
+ *  stay constant regardless of the archive size.
+ *
+ *  Progress ({@link ProgressEvent}) and completion ({@link CompletedEvent}) are posted on the default event bus.
+ */
+public class ParallelExtractor {
+
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 64L * 1024 * 1024;
+
+    private static final int PROGRESS_STEPS = 100;
+    private static final int BUFFER_SIZE = 65536;
+
+    private final int workers;
+    private final long maxInFlightBytes;
+    private final AesKeyCache keyCache;
+
+    public record ProgressEvent(Path archive, String entryName, long entriesCompleted, long entryCount,
+            long bytesCompleted, long totalBytes) {
+    }
+
+    public record CompletedEvent(Path archive, long entryCount, long bytes, long durationNanos, Throwable failure) {
+        public boolean isSuccess() {
+            return Objects.isNull(failure);
+        }
+    }
+
+    public ParallelExtractor(int workers) {
+        this(workers, DEFAULT_MAX_IN_FLIGHT_BYTES);
+    }
+
+    public ParallelExtractor(int workers, long maxInFlightBytes) {
+        this(workers, maxInFlightBytes, null);
+    }
+
+    public ParallelExtractor(int workers, long maxInFlightBytes, AesKeyCache keyCache) {
+        if (workers < 1 || maxInFlightBytes < 1) {
+            throw new IllegalArgumentException(String.format("Invalid extraction bounds: %d workers, %d bytes",
+                                                             workers, maxInFlightBytes));
+        }
+        this.workers = workers;
+        this.maxInFlightBytes = Math.min(maxInFlightBytes, Integer.MAX_VALUE);
+        this.keyCache = keyCache;
+    }
+
+    /**
+     *  Extracts the archive into the target directory. The first failure (e.g. a
+     *  {@link EntryDecoder.WrongPasswordException}) stops the submission of further entries and is rethrown once the
+     *  entries in flight have completed.
+     */
+    public CompletedEvent extract(Path archive, Path targetDirectory, char[] password) throws IOException {
+        final long start = System.nanoTime();
+        final Path root = targetDirectory.toAbsolutePath().normalize();
+        final Semaphore inFlight = new Semaphore((int) maxInFlightBytes);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong entriesCompleted = new AtomicLong();
+        final AtomicLong bytesCompleted = new AtomicLong();
+        final AtomicInteger entriesInFlight = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(workers, threadFactory());
+
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.EXTRACT);
+            CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            final List<CentralDirectoryEntry> files = reader.stream()
+                                                            .filter(e -> !e.isDirectory())
+                                                            .toList();
+            // A wrong password fails before any directory or file is created
+            final CentralDirectoryEntry encrypted = files.stream()
+                                                         .filter(CentralDirectoryEntry::isEncrypted)
+                                                         .findFirst()
+                                                         .orElse(null);
+            if (Objects.nonNull(encrypted)) {
+                PasswordVerifier.requireValid(reader, encrypted, password, keyCache);
+            }
+            try(var directories = reader.stream().filter(CentralDirectoryEntry::isDirectory)) {
+                for (CentralDirectoryEntry directory : (Iterable<CentralDirectoryEntry>) directories::iterator) {
+                    Files.createDirectories(resolve(root, directory));
+                }
+            }
+
+            final long entryCount = files.size();
+            final long totalBytes = files.stream().mapToLong(CentralDirectoryEntry::uncompressedSize).sum();
+            final long progressStep = Math.max(1, entryCount / PROGRESS_STEPS);
+            for (CentralDirectoryEntry entry : files) {
+                final int permits = (int) Math.max(1, Math.min(entry.compressedSize(), maxInFlightBytes));
+                inFlight.acquire(permits);
+                if (Objects.nonNull(failure.get())) {
+                    inFlight.release(permits);
+                    break;
+                }
+
+                METRICS.queueDepth(entriesInFlight.incrementAndGet());
+                executor.execute(METRICS.wrap(() -> {
+                    try(InputStream stream = EntryDecoder.open(reader, entry, password, keyCache)) {
+                        final Path target = resolve(root, entry);
+                        Files.createDirectories(target.getParent());
+                        copy(stream, target);
+
+                        final long bytes = bytesCompleted.addAndGet(entry.uncompressedSize());
+                        final long completed = entriesCompleted.incrementAndGet();
+                        if (completed % progressStep == 0 || completed == entryCount) {
+                            DEFAULT_BUS.post(new ProgressEvent(archive, entry.name(), completed, entryCount, bytes,
+                                                               totalBytes));
+                        }
+                    } catch(Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        entriesInFlight.decrementAndGet();
+                        inFlight.release(permits);
+                    }
+                }));
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Entries in flight must complete before the channel is closed
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch(IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final CompletedEvent completed = new CompletedEvent(archive, entriesCompleted.get(), bytesCompleted.get(),
+                                                            System.nanoTime() - start, failure.get());
+        DEFAULT_BUS.post(completed);
+        if (!completed.isSuccess()) {
+            if (completed.failure() instanceof IOException e) {
+                throw e;
+            }
+            throw new IOException(String.format("Extraction of %s failed", archive), completed.failure());
+        }
+        return completed;
+    }
+
+    private static Path resolve(Path root, CentralDirectoryEntry entry) throws IOException {
+        final Path target = root.resolve(entry.name()).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException(String.format("Entry %s resolves outside of %s", entry.name(), root));
+        }
+        return target;
+    }
+
+    private static void copy(InputStream stream, Path target) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try(OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                final long start = System.nanoTime();
+                out.write(buffer, 0, read);
+                METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, read, 0);
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+        return (r) -> {
+            Thread thread = new Thread(r, String.format("pz-extract-%d", count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+public class ParallelExtractorTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Parallel extraction of AES-256 archive - success with progress on event bus
+     *  + Parallel extraction of AES-256 archive - wrong password fails
+     */
+    @Test
+    @DisplayName("Test: Parallel extraction of an AES-256 archive completes with progress on the event bus")
+    public void test_ParallelExtractionEncryptedArchive_Success() throws IOException {
+        // Set up
+        Path archive = Zip4jCorpusGenerator.corpus(CorpusSpec.of(500, 16384)
+                                                             .withFolders(2, 5)
+                                                             .withEncryption(Zip4jEncryption.AES_256));
+        Path extractDir = Files.createDirectories(workingDir.resolve("parallel-extract"));
+        Path referenceDir = Files.createDirectories(workingDir.resolve("reference-extract"));
+
+        try(Zip4jWaitUtil.BusEventWaiter<ParallelExtractor.ProgressEvent> progress =
+                    Zip4jWaitUtil.expectBusEvent(ParallelExtractor.ProgressEvent.class,
+                                                 e -> e.archive().equals(archive) && e.entriesCompleted() < 500);
+            Zip4jWaitUtil.BusEventWaiter<ParallelExtractor.CompletedEvent> completion =
+                    Zip4jWaitUtil.expectBusEvent(ParallelExtractor.CompletedEvent.class,
+                                                 e -> e.archive().equals(archive))) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    new ParallelExtractor(Runtime.getRuntime().availableProcessors(), 1024 * 1024)
+                            .extract(archive, extractDir, Zip4jCorpusGenerator.PASSWORD.toCharArray());
+                } catch(IOException e) {
+                    // Reported through the completion event
+                }
+            });
+
+            progress.await("intermediate extraction progress");
+            ParallelExtractor.CompletedEvent completed = completion.await("completion of parallel extraction");
+            Assertions.assertTrue(completed.isSuccess(), String.format("Extraction failed: %s", completed.failure()));
+            Assertions.assertEquals(500, completed.entryCount(), "Unexpected number of entries extracted");
+            Assertions.assertEquals(500L * 16384, completed.bytes(), "Unexpected number of bytes extracted");
+
+            // Output matches a serial Zip4j extraction
+            new net.lingala.zip4j.ZipFile(archive.toFile(), Zip4jCorpusGenerator.PASSWORD.toCharArray())
+                    .extractAll(referenceDir.toString());
+            try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+                for (CentralDirectoryReader.CentralDirectoryEntry entry : reader.stream().toList()) {
+                    Assertions.assertArrayEquals(Files.readAllBytes(referenceDir.resolve(entry.name())),
+                                                 Files.readAllBytes(extractDir.resolve(entry.name())),
+                                                 String.format("Content of %s differs", entry.name()));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Parallel extraction of an AES-256 archive with the wrong password fails on the first entry")
+    public void test_ParallelExtractionEncryptedArchiveWrongPassword_Fails() throws IOException {
+        Path archive = Zip4jCorpusGenerator.corpus(CorpusSpec.of(500, 16384)
+                                                             .withFolders(2, 5)
+                                                             .withEncryption(Zip4jEncryption.AES_256));
+        Path extractDir = Files.createDirectories(workingDir.resolve("parallel-extract"));
+
+        try(Zip4jWaitUtil.BusEventWaiter<ParallelExtractor.CompletedEvent> completion =
+                    Zip4jWaitUtil.expectBusEvent(ParallelExtractor.CompletedEvent.class,
+                                                 e -> e.archive().equals(archive))) {
+            Assertions.assertThrows(EntryDecoder.WrongPasswordException.class,
+                                    () -> new ParallelExtractor(4).extract(archive, extractDir, "p".toCharArray()),
+                                    "Extraction with the wrong password did not fail");
+            ParallelExtractor.CompletedEvent completed = completion.await("failed parallel extraction");
+            Assertions.assertFalse(completed.isSuccess(), "Extraction was reported as successful");
+            Assertions.assertEquals(0, completed.entryCount(), "Entries were extracted with the wrong password");
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.EntryRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.METHOD_AES;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.*;
+
+/**
+ *  Writes archives by deflating (and optionally AES encrypting) independent entries concurrently on a thread pool.
+ *  Compressed payloads are consumed in submission order, so local headers are written with known sizes and the
+ *  central directory follows in the original entry order. The number of payloads in flight is bounded to twice the
+ *  parallelism and payloads above {@link #SPILL_THRESHOLD} are staged on disk rather than held in memory.
+ *
+ *  Zip standard encryption is not supported, as its header depends on the CRC of the entry.
+ */
+public class ParallelZipWriter {
+
+    public static final long SPILL_THRESHOLD = 4L * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int parallelism;
+    private final int compressionLevel;
+    private final Zip4jEncryption encryption;
+    private final char[] password;
+
+    public record EntrySource(String name, Path file, long lastModified) {
+        public static EntrySource of(Path file, String name) throws IOException {
+            return new EntrySource(name, file, Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+
+    public ParallelZipWriter(int parallelism, int compressionLevel) {
+        this(parallelism, compressionLevel, Zip4jEncryption.NONE, null);
+    }
+
+    public ParallelZipWriter(int parallelism, int compressionLevel, Zip4jEncryption encryption, char[] password) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Parallelism %d must be positive", parallelism));
+        }
+        if (encryption == Zip4jEncryption.ZIP_STANDARD) {
+            throw new IllegalArgumentException("Zip standard encryption cannot be written in parallel");
+        }
+        if (encryption.isEncrypted() && (password == null || password.length == 0)) {
+            throw new IllegalArgumentException("A password is required for encrypted archives");
+        }
+        this.parallelism = parallelism;
+        this.compressionLevel = compressionLevel;
+        this.encryption = encryption;
+        this.password = password;
+    }
+
+    /**
+     *  Writes the entries to the target archive, replacing any existing file.
+     *
+     *  @return the size of the archive written in bytes
+     */
+    public long write(Path target, List<EntrySource> entries) throws IOException {
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.ADD);
+            FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            final List<EntryRecord> records = writeEntries(channel, entries);
+
+            final long centralDirectoryOffset = channel.position();
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            for (EntryRecord record : records) {
+                final ByteBuffer encoded = centralDirectoryRecord(record);
+                if (encoded.remaining() > buffer.remaining()) {
+                    writeFully(channel, buffer.flip());
+                    buffer.clear();
+                }
+                buffer.put(encoded);
+            }
+            writeFully(channel, buffer.flip());
+
+            writeFully(channel, endOfCentralDirectory(records.size(), centralDirectoryOffset,
+                                                      channel.position() - centralDirectoryOffset));
+            return channel.position();
+        }
+    }
+
+    /**
+     *  Writes the local headers and payloads of the entries from the current position of the channel.
+     *
+     *  @return the records of the entries written, in order, for the central directory
+     */
+    List<EntryRecord> writeEntries(FileChannel channel, List<EntrySource> entries) throws IOException {
+        final ExecutorService pool = Executors.newFixedThreadPool(parallelism, threadFactory());
+        final Deque<Future<Payload>> window = new ArrayDeque<>();
+        final List<EntryRecord> records = new ArrayList<>(entries.size());
+
+        try {
+            int submitted = 0;
+            while (submitted < entries.size() || !window.isEmpty()) {
+                while (submitted < entries.size() && window.size() < 2 * parallelism) {
+                    final EntrySource source = entries.get(submitted++);
+                    window.add(pool.submit(METRICS.wrap(() -> compress(source))));
+                }
+                METRICS.queueDepth(window.size());
+
+                try(Payload payload = await(window.poll())) {
+                    final EntryRecord record = payload.record()
+                                                      .withLocalHeaderOffset(channel.position(), 0);
+                    writeFully(channel, localHeader(record));
+                    payload.transferTo(channel);
+                    records.add(record);
+                }
+            }
+            return records;
+        } finally {
+            // Compressions not started are dropped and those running are interrupted. The payloads compressed but
+            // not written are then closed, deleting any spill files.
+            pool.shutdownNow();
+            try {
+                while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // Payloads of running compressions can only be closed once they complete
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            window.forEach(ParallelZipWriter::closeCompleted);
+        }
+    }
+
+    private static void closeCompleted(Future<Payload> future) {
+        if (future.isDone() && !future.isCancelled()) {
+            try {
+                future.get().close();
+            } catch(ExecutionException | InterruptedException e) {
+                // Compression failed, so there is no payload to close
+            }
+        }
+    }
+
+    private Payload compress(EntrySource source) throws IOException {
+        final boolean deflate = compressionLevel != Deflater.NO_COMPRESSION;
+        final Deflater deflater = deflate ? new Deflater(compressionLevel, true) : null;
+        final CRC32 crc = new CRC32();
+        final byte[] input = new byte[BUFFER_SIZE];
+        final byte[] output = new byte[BUFFER_SIZE];
+        final Payload payload = new Payload();
+        final int strength = encryption.isEncrypted() ? encryption.getKeyStrength().getRawCode() : 0;
+
+        WinZipAes.DerivedKey key = null;
+        WinZipAes.Engine engine = null;
+        try(InputStream stream = Files.newInputStream(source.file())) {
+            if (encryption.isEncrypted()) {
+                final byte[] salt = new byte[WinZipAes.saltLength(strength)];
+                RANDOM.nextBytes(salt);
+                key = WinZipAes.derive(password, salt, strength);
+                engine = new WinZipAes.Engine(key);
+                payload.write(salt, 0, salt.length);
+                payload.write(key.verifier(), 0, WinZipAes.VERIFIER_LENGTH);
+            }
+
+            long size = 0;
+            for (int read; (read = stream.read(input)) != -1; ) {
+                crc.update(input, 0, read);
+                size += read;
+                if (deflate) {
+                    final long start = System.nanoTime();
+                    deflater.setInput(input, 0, read);
+                    while (!deflater.needsInput()) {
+                        emit(payload, engine, output, deflater.deflate(output));
+                    }
+                    METRICS.record(Zip4jMetrics.Phase.DEFLATE, start, read, 0);
+                } else {
+                    emit(payload, engine, input, read);
+                }
+            }
+            if (deflate) {
+                final long start = System.nanoTime();
+                deflater.finish();
+                while (!deflater.finished()) {
+                    emit(payload, engine, output, deflater.deflate(output));
+                }
+                METRICS.record(Zip4jMetrics.Phase.DEFLATE, start, 0, 1);
+            }
+            if (engine != null) {
+                payload.write(engine.finish(), 0, WinZipAes.MAC_LENGTH);
+            }
+
+            final int actualMethod = deflate ? METHOD_DEFLATE : METHOD_STORE;
+            final boolean encrypted = engine != null;
+            payload.record = new EntryRecord(source.name(),
+                                             FLAG_UTF8 | (encrypted ? FLAG_ENCRYPTED : 0),
+                                             encrypted ? METHOD_AES : actualMethod,
+                                             dosTime(source.lastModified()),
+                                             encrypted ? 0 : crc.getValue(),
+                                             payload.size(),
+                                             size,
+                                             0,
+                                             0,
+                                             encrypted ? aesExtra(WinZipAes.VENDOR_VERSION_AE2, strength,
+                                                                  actualMethod) : new byte[0],
+                                             DEFAULT_FILE_ATTRIBUTES);
+            return payload;
+        } catch(IOException | RuntimeException e) {
+            payload.close();
+            throw e;
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            if (key != null) {
+                key.wipe();
+            }
+        }
+    }
+
+    private static void emit(Payload payload, WinZipAes.Engine engine, byte[] data, int length) throws IOException {
+        if (engine != null) {
+            engine.encrypt(data, 0, length);
+        }
+        payload.write(data, 0, length);
+    }
+
+    private static Payload await(Future<Payload> future) throws IOException {
+        try {
+            return future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted whilst compressing entries", e);
+        } catch(ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to compress entry", e.getCause());
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+        return (r) -> {
+            Thread thread = new Thread(r, String.format("pz-deflate-%d", count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        final long start = System.nanoTime();
+        final int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, length, 0);
+    }
+
+    /**
+     *  Compressed entry data, held in memory up to the spill threshold and in a temporary file thereafter.
+     */
+    private static class Payload implements AutoCloseable {
+        private byte[] memory = new byte[BUFFER_SIZE];
+        private int memorySize;
+        private Path spillFile;
+        private FileChannel spill;
+        private long size;
+        private EntryRecord record;
+
+        EntryRecord record() {
+            return record;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void write(byte[] data, int offset, int length) throws IOException {
+            if (spill == null && memorySize + length > SPILL_THRESHOLD) {
+                spillFile = Files.createTempFile("pz-payload", ".tmp");
+                spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                writeFully(spill, ByteBuffer.wrap(memory, 0, memorySize));
+                memory = null;
+            }
+
+            if (spill != null) {
+                writeFully(spill, ByteBuffer.wrap(data, offset, length));
+            } else {
+                if (memorySize + length > memory.length) {
+                    memory = Arrays.copyOf(memory, Math.max(memory.length * 2, memorySize + length));
+                }
+                System.arraycopy(data, offset, memory, memorySize, length);
+                memorySize += length;
+            }
+            size += length;
+        }
+
+        void transferTo(WritableByteChannel target) throws IOException {
+            if (spill == null) {
+                writeFully(target, ByteBuffer.wrap(memory, 0, memorySize));
+                return;
+            }
+            final long start = System.nanoTime();
+            for (long position = 0; position < size; ) {
+                position += spill.transferTo(position, size - position, target);
+            }
+            METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, size, 0);
+        }
+
+        @Override
+        public void close() {
+            memory = null;
+            try {
+                if (spill != null) {
+                    spill.close();
+                    Files.deleteIfExists(spillFile);
+                }
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
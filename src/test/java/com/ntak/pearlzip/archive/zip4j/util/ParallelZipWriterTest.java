@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class ParallelZipWriterTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Parallel write - output readable by standard unzip and Zip4j
+     *  + Parallel write with a missing source - original failure raised and spilled payloads deleted
+     */
+    @Test
+    @DisplayName("Test: Parallel write produces archives readable by java.util.zip and Zip4j")
+    public void test_ParallelWrite_ByteCompatible() throws IOException {
+        // Set up
+        Path sourceDir = Files.createDirectories(workingDir.resolve("parallel-source"));
+        Path archive = workingDir.resolve("parallel.zip");
+        Path encryptedArchive = workingDir.resolve("parallel-aes.zip");
+        Path extractDir = Files.createDirectories(workingDir.resolve("parallel-extract"));
+        List<ParallelZipWriter.EntrySource> sources = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            Path file = Zip4jCorpusGenerator.generateFile(sourceDir.resolve(String.format("file-%d.bin", i)),
+                                                          i * 131L, 0.5, i);
+            sources.add(ParallelZipWriter.EntrySource.of(file, String.format("folder-%d/file-%d.bin", i % 5, i)));
+        }
+
+        // Unencrypted output is read (and CRC checked) by java.util.zip
+        new ParallelZipWriter(Runtime.getRuntime().availableProcessors(), Deflater.DEFAULT_COMPRESSION)
+                .write(archive, sources);
+        try(ZipFile zipFile = new ZipFile(archive.toFile())) {
+            Assertions.assertEquals(sources.size(), zipFile.size(), "Unexpected number of entries");
+            for (ParallelZipWriter.EntrySource source : sources) {
+                ZipEntry entry = zipFile.getEntry(source.name());
+                Assertions.assertNotNull(entry, String.format("Entry %s was not found", source.name()));
+                Assertions.assertArrayEquals(Files.readAllBytes(source.file()),
+                                             zipFile.getInputStream(entry).readAllBytes(),
+                                             String.format("Content of %s differs", source.name()));
+            }
+        }
+
+        // AES output is read by Zip4j
+        new ParallelZipWriter(Runtime.getRuntime().availableProcessors(), Deflater.DEFAULT_COMPRESSION,
+                              Zip4jEncryption.AES_256, Zip4jCorpusGenerator.PASSWORD.toCharArray())
+                .write(encryptedArchive, sources);
+        net.lingala.zip4j.ZipFile zip4jFile = new net.lingala.zip4j.ZipFile(encryptedArchive.toFile(),
+                                                                            Zip4jCorpusGenerator.PASSWORD
+                                                                                    .toCharArray());
+        Assertions.assertTrue(zip4jFile.isEncrypted(), "Archive was not flagged as encrypted");
+        zip4jFile.extractAll(extractDir.toString());
+        for (ParallelZipWriter.EntrySource source : sources) {
+            Assertions.assertArrayEquals(Files.readAllBytes(source.file()),
+                                         Files.readAllBytes(extractDir.resolve(source.name())),
+                                         String.format("Decrypted content of %s differs", source.name()));
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Parallel write with a missing source raises its failure and deletes spilled payloads")
+    public void test_ParallelWriteMissingSource_SpillFilesDeleted() throws IOException {
+        // Incompressible entries above the spill threshold are staged on disk
+        Path sourceDir = Files.createDirectories(workingDir.resolve("spill-source"));
+        List<ParallelZipWriter.EntrySource> sources = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Path file = Zip4jCorpusGenerator.generateFile(sourceDir.resolve(String.format("file-%d.bin", i)),
+                                                          ParallelZipWriter.SPILL_THRESHOLD + 65536, 0, i);
+            sources.add(ParallelZipWriter.EntrySource.of(file, String.format("file-%d.bin", i)));
+        }
+        // The failed entry is followed by a window of compressed payloads that are never written
+        sources.add(1, new ParallelZipWriter.EntrySource("missing.bin", sourceDir.resolve("missing.bin"), 0));
+        Set<Path> spillFilesBefore = spillFiles();
+
+        Assertions.assertThrows(NoSuchFileException.class,
+                                () -> new ParallelZipWriter(2, Deflater.DEFAULT_COMPRESSION)
+                                        .write(workingDir.resolve("spill.zip"), sources),
+                                "Failure of the missing source was not raised");
+
+        Set<Path> remaining = spillFiles();
+        remaining.removeAll(spillFilesBefore);
+        Assertions.assertTrue(remaining.isEmpty(), String.format("Spill files were not deleted: %s", remaining));
+    }
+
+    private static Set<Path> spillFiles() throws IOException {
+        try(Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(f -> f.getFileName().toString().startsWith("pz-payload"))
+                        .collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ *  Checks a password against the encryption header of a single entry before any extraction or listing work is done.
+ *  For AES the two byte password verifier following the salt is compared with that derived from the password; for
+ *  Zip standard encryption the check byte of the decrypted 12 byte header is compared. Only the local header and the
+ *  encryption header are read, so the cost is a single key derivation regardless of the size of the archive.
+ *
+ *  A match is not proof: a wrong password passes with a chance of 1 in 65536 (AES) or 1 in 256 (Zip standard), in
+ *  which case decryption itself fails on the authentication code or CRC.
+ */
+public class PasswordVerifier {
+
+    public enum Result {
+        NOT_ENCRYPTED, VALID, INVALID
+    }
+
+    /**
+     *  Verifies the password against the first encrypted entry of the archive.
+     */
+    public static Result verify(Path archive, char[] password) throws IOException {
+        try(CentralDirectoryReader reader = new CentralDirectoryReader(archive)) {
+            final CentralDirectoryEntry entry = firstEncryptedEntry(reader);
+            return Objects.isNull(entry) ? Result.NOT_ENCRYPTED : verify(reader, entry, password, null);
+        }
+    }
+
+    /**
+     *  @return the first encrypted file of the archive, or null if it is not encrypted
+     */
+    public static CentralDirectoryEntry firstEncryptedEntry(CentralDirectoryReader reader) throws IOException {
+        return reader.stream()
+                     .filter(e -> e.isEncrypted() && !e.isDirectory())
+                     .findFirst()
+                     .orElse(null);
+    }
+
+    /**
+     *  Verifies the password against the entry, taking AES keys from the given cache (if any) so that a subsequent
+     *  extraction does not derive the key again.
+     */
+    public static Result verify(CentralDirectoryReader reader, CentralDirectoryEntry entry, char[] password,
+            AesKeyCache keyCache) throws IOException {
+        if (!entry.isEncrypted()) {
+            return Result.NOT_ENCRYPTED;
+        }
+        if (Objects.isNull(password)) {
+            return Result.INVALID;
+        }
+
+        if (entry.isAes()) {
+            final int saltLength = WinZipAes.saltLength(entry.aesStrength());
+            final ByteBuffer header = reader.read(reader.dataOffset(entry), saltLength + WinZipAes.VERIFIER_LENGTH);
+            final byte[] salt = new byte[saltLength];
+            final byte[] verifier = new byte[WinZipAes.VERIFIER_LENGTH];
+            header.get(salt)
+                  .get(verifier);
+
+            final boolean cached = Objects.nonNull(keyCache);
+            final WinZipAes.DerivedKey key = cached ?
+                    keyCache.derive(reader.getArchive(), password, salt, entry.aesStrength()) :
+                    WinZipAes.derive(password, salt, entry.aesStrength());
+            try {
+                return WinZipAes.verify(key, verifier) ? Result.VALID : Result.INVALID;
+            } finally {
+                if (!cached) {
+                    key.wipe();
+                }
+            }
+        }
+
+        final byte[] header = new byte[ZipCrypto.HEADER_LENGTH];
+        reader.read(reader.dataOffset(entry), ZipCrypto.HEADER_LENGTH)
+              .get(header);
+        return new ZipCrypto(password).initialise(header, ZipCrypto.checkByte(entry)) ? Result.VALID :
+                Result.INVALID;
+    }
+
+    /**
+     *  @throws EntryDecoder.WrongPasswordException if the password does not match the entry
+     */
+    public static void requireValid(CentralDirectoryReader reader, CentralDirectoryEntry entry, char[] password,
+            AesKeyCache keyCache) throws IOException {
+        if (verify(reader, entry, password, keyCache) == Result.INVALID) {
+            throw new EntryDecoder.WrongPasswordException(String.format("Wrong password for %s", entry.name()));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class PasswordVerifierTest {
+
+    /*
+     *  Test cases:
+     *  + Password verification - wrong password detected from the encryption header of a single entry
+     */
+    @Test
+    @DisplayName("Test: Password verification detects a wrong password from the encryption header of a single entry")
+    public void test_PasswordVerifier_FailsFast(TestReporter reporter) throws IOException {
+        // Set up
+        Path ea = Paths.get("src", "test", "resources", "ea.zip").toAbsolutePath();
+        Path unencrypted = Paths.get("src", "test", "resources", "unencryptedArchive.zip").toAbsolutePath();
+        Assertions.assertEquals(PasswordVerifier.Result.VALID, PasswordVerifier.verify(ea, "password".toCharArray()),
+                                "Correct password was rejected");
+        Assertions.assertEquals(PasswordVerifier.Result.INVALID, PasswordVerifier.verify(ea, "wrong".toCharArray()),
+                                "Wrong password was accepted");
+        Assertions.assertEquals(PasswordVerifier.Result.NOT_ENCRYPTED,
+                                PasswordVerifier.verify(unencrypted, "password".toCharArray()),
+                                "Unencrypted archive was reported as encrypted");
+
+        for (Zip4jEncryption encryption : List.of(Zip4jEncryption.ZIP_STANDARD, Zip4jEncryption.AES_128,
+                                                  Zip4jEncryption.AES_256)) {
+            Path archive = Zip4jCorpusGenerator.corpus(CorpusSpec.of(8, 4 * 1024 * 1024)
+                                                                 .withCompressibility(0)
+                                                                 .withEncryption(encryption));
+            Assertions.assertEquals(PasswordVerifier.Result.VALID,
+                                    PasswordVerifier.verify(archive, Zip4jCorpusGenerator.PASSWORD.toCharArray()),
+                                    String.format("Correct password was rejected for %s", encryption));
+
+            // Only headers are read: the bytes read are independent of the size of the entries
+            Zip4jMetrics.Snapshot before = Zip4jMetrics.METRICS.snapshot();
+            long start = System.nanoTime();
+            try(Zip4jMetrics.Scope scope = Zip4jMetrics.METRICS.operation(Zip4jMetrics.Operation.OPEN)) {
+                Assertions.assertEquals(PasswordVerifier.Result.INVALID,
+                                        PasswordVerifier.verify(archive, "wrong".toCharArray()),
+                                        String.format("Wrong password was accepted for %s", encryption));
+            }
+            long elapsed = System.nanoTime() - start;
+            long bytesRead = Zip4jMetrics.METRICS.snapshot()
+                                                 .minus(before)
+                                                 .get(Zip4jMetrics.Operation.OPEN, Zip4jMetrics.Phase.DISK_IO)
+                                                 .bytes();
+            reporter.publishEntry(String.format("wrong-password-%s", encryption),
+                                  String.format("detected in %d ns reading %d bytes of %d", elapsed, bytesRead,
+                                                Files.size(archive)));
+            Assertions.assertTrue(bytesRead < 65536,
+                                  String.format("%d bytes were read to verify the %s password", bytesRead,
+                                                encryption));
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ *  Measures the wall-clock time, process CPU time, allocation and peak heap of each test, compares them against the
+ *  budgets checked in to {@value #BUDGETS_RESOURCE} and writes a JSON report per test to
+ *  {@code <report directory>/<test class>/<test method>.json}, tagged with the Zip4j and PearlZip versions under test
+ *  so that trends can be followed across upgrades.
+ *
+ *  Budgets are keyed {@code <test class>.<test method>.<measure>}, with measures {@code wall-ms}, {@code cpu-ms},
+ *  {@code allocated-mb} and {@code peak-heap-mb}; tests without budgets are reported but not checked. A test over
+ *  budget fails when the mode ({@value #KEY_MODE}) is {@code fail} and is otherwise reported with a warning, as
+ *  budgets are set for the build machines and other hardware may legitimately exceed them.
+ *
+ *  Allocation is that of threads alive at the end of the test, so threads that terminate during the test (e.g. the
+ *  pool of a completed extraction) are not counted. Peak heap sums the peaks of the individual heap pools and so is an
+ *  upper bound.
+ */
+public class PerformanceBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    public static final String BUDGETS_RESOURCE = "zip4j-perf-budgets.properties";
+    public static final String KEY_MODE = "configuration.ntak.pearl-zip.zip4j.perf.mode";
+    public static final String KEY_REPORT_DIR = "configuration.ntak.pearl-zip.zip4j.perf.report-dir";
+    public static final String KEY_ZIP4J_VERSION = "configuration.ntak.pearl-zip.zip4j.perf.zip4j-version";
+    public static final String KEY_PEARL_ZIP_VERSION = "configuration.ntak.pearl-zip.zip4j.perf.pearl-zip-version";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(PerformanceBudgetExtension.class);
+    private static final String KEY_START = "start";
+    private static final long MB = 1024 * 1024;
+    private static final Properties BUDGETS = loadBudgets();
+
+    public enum Measure {
+        WALL("wall-ms"), CPU("cpu-ms"), ALLOCATED("allocated-mb"), PEAK_HEAP("peak-heap-mb");
+
+        private final String key;
+
+        Measure(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    public enum Status {
+        PASS, WARN, FAIL, UNBUDGETED
+    }
+
+    private record Start(long wallNanos, long cpuNanos, Map<Long,Long> allocatedBytes) {
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        ManagementFactory.getMemoryPoolMXBeans()
+                         .stream()
+                         .filter(p -> p.getType() == MemoryType.HEAP)
+                         .forEach(MemoryPoolMXBean::resetPeakUsage);
+        context.getStore(NAMESPACE).put(KEY_START, new Start(System.nanoTime(), processCpuNanos(), allocatedBytes()));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        final Start start = context.getStore(NAMESPACE).remove(KEY_START, Start.class);
+        final long wallNanos = System.nanoTime() - start.wallNanos();
+        final long cpuNanos = processCpuNanos() - start.cpuNanos();
+        final long allocated = allocatedBytes().entrySet()
+                                               .stream()
+                                               .mapToLong(e -> e.getValue() -
+                                                       start.allocatedBytes().getOrDefault(e.getKey(), 0L))
+                                               .sum();
+        final long peakHeap = ManagementFactory.getMemoryPoolMXBeans()
+                                               .stream()
+                                               .filter(p -> p.getType() == MemoryType.HEAP)
+                                               .mapToLong(p -> p.getPeakUsage().getUsed())
+                                               .sum();
+
+        final Map<Measure,Long> measured = new EnumMap<>(Measure.class);
+        measured.put(Measure.WALL, TimeUnit.NANOSECONDS.toMillis(wallNanos));
+        measured.put(Measure.CPU, TimeUnit.NANOSECONDS.toMillis(cpuNanos));
+        measured.put(Measure.ALLOCATED, allocated / MB);
+        measured.put(Measure.PEAK_HEAP, peakHeap / MB);
+
+        final String prefix = String.format("%s.%s", context.getRequiredTestClass().getSimpleName(),
+                                            context.getRequiredTestMethod().getName());
+        final Map<Measure,Long> budgets = new EnumMap<>(Measure.class);
+        for (Measure measure : Measure.values()) {
+            final String budget = BUDGETS.getProperty(String.format("%s.%s", prefix, measure.getKey()));
+            if (Objects.nonNull(budget)) {
+                budgets.put(measure, Long.parseLong(budget.trim()));
+            }
+        }
+        final List<String> violations = budgets.entrySet()
+                                               .stream()
+                                               .filter(e -> measured.get(e.getKey()) > e.getValue())
+                                               .map(e -> String.format("%s %d > %d", e.getKey().getKey(),
+                                                                       measured.get(e.getKey()), e.getValue()))
+                                               .toList();
+        final boolean failOnViolation = "fail".equalsIgnoreCase(System.getProperty(KEY_MODE, "warn"));
+        final Status status = budgets.isEmpty() ? Status.UNBUDGETED :
+                violations.isEmpty() ? Status.PASS : failOnViolation ? Status.FAIL : Status.WARN;
+
+        writeReport(context, prefix, measured, budgets, violations, status);
+        if (status == Status.FAIL) {
+            Assertions.fail(String.format("%s exceeded its performance budget: %s", prefix, violations));
+        } else if (status == Status.WARN) {
+            context.publishReportEntry("performance-budget-warning",
+                                       String.format("%s exceeded its performance budget: %s", prefix, violations));
+        }
+    }
+
+    private static void writeReport(ExtensionContext context, String test, Map<Measure,Long> measured,
+            Map<Measure,Long> budgets, List<String> violations, Status status) {
+        final String report = String.format("""
+                                            {
+                                              "test": "%s",
+                                              "displayName": "%s",
+                                              "zip4jVersion": "%s",
+                                              "pearlZipVersion": "%s",
+                                              "javaVersion": "%s",
+                                              "status": "%s",
+                                              "measured": %s,
+                                              "budgets": %s,
+                                              "violations": [%s]
+                                            }
+                                            """,
+                                            test, escape(context.getDisplayName()),
+                                            System.getProperty(KEY_ZIP4J_VERSION, "unknown"),
+                                            System.getProperty(KEY_PEARL_ZIP_VERSION, "unknown"),
+                                            System.getProperty("java.version"), status, toJson(measured),
+                                            toJson(budgets),
+                                            violations.stream()
+                                                      .map(v -> String.format("\"%s\"", v))
+                                                      .collect(Collectors.joining(", ")));
+        try {
+            final Path dir = Path.of(System.getProperty(KEY_REPORT_DIR, "target/zip4j-perf"),
+                                     context.getRequiredTestClass().getSimpleName());
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve(String.format("%s.json", context.getRequiredTestMethod().getName())),
+                              report);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toJson(Map<Measure,Long> values) {
+        return values.entrySet()
+                     .stream()
+                     .map(e -> String.format("\"%s\": %d", e.getKey().getKey(), e.getValue()))
+                     .collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\")
+                    .replace("\"", "\\\"");
+    }
+
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static Map<Long,Long> allocatedBytes() {
+        final Map<Long,Long> allocated = new HashMap<>();
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            final long[] ids = threads.getAllThreadIds();
+            final long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    allocated.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        return allocated;
+    }
+
+    private static Properties loadBudgets() {
+        final Properties budgets = new Properties();
+        try(InputStream stream = PerformanceBudgetExtension.class.getClassLoader()
+                                                                 .getResourceAsStream(BUDGETS_RESOURCE)) {
+            if (Objects.nonNull(stream)) {
+                budgets.load(stream);
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return budgets;
+    }
+}
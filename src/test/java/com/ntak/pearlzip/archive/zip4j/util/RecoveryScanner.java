@@ -0,0 +1,432 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.*;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.FLAG_UTF8;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.METHOD_DEFLATE;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.METHOD_STORE;
+
+/**
+ *  Recovers the entries of a damaged archive (e.g. truncated by an interrupted transfer) without its central
+ *  directory, in a single forward pass over the local file headers. Payloads of known size are skipped without being
+ *  read; payloads followed by a data descriptor are delimited by inflating them (deflated entries) or by locating the
+ *  descriptor (stored or encrypted entries). Bytes that do not form a complete entry are reported as corrupt ranges
+ *  and the scan resumes at the next record signature. The scan stops at the central directory, if one is reached.
+ *
+ *  Memory is bounded by a fixed size buffer regardless of the size of the archive or its entries. On recovery,
+ *  stored unencrypted entries are copied with {@link FileChannel#transferTo} and verified against their CRC through
+ *  a mapping of the extracted file; other entries are decoded with {@link EntryDecoder}. An entry that fails
+ *  verification is reported as a corrupt range and not extracted.
+ */
+public class RecoveryScanner {
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x8;
+    private static final long MAP_SIZE = 64L * 1024 * 1024;
+    private static final long UINT32_MAX = 0xFFFFFFFFL;
+    private static final Charset CP437 = Charset.isSupported("IBM437") ? Charset.forName("IBM437") :
+            StandardCharsets.ISO_8859_1;
+
+    public record ByteRange(long start, long end) {
+        public long length() {
+            return end - start;
+        }
+    }
+
+    /**
+     *  An entry located from its local header, spanning from the header to the end of its data descriptor (if any).
+     */
+    public record RecoveredEntry(CentralDirectoryEntry entry, long dataOffset, long end) {
+    }
+
+    public record ScanResult(Path archive, long archiveSize, List<RecoveredEntry> entries,
+            List<ByteRange> corruptRanges) {
+        public boolean isIntact() {
+            return corruptRanges.isEmpty();
+        }
+
+        public long corruptBytes() {
+            return corruptRanges.stream()
+                                .mapToLong(ByteRange::length)
+                                .sum();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryHandler {
+        /**
+         *  @return false if the entry could not be recovered
+         */
+        boolean accept(RecoveredEntry entry) throws IOException;
+    }
+
+    /**
+     *  Lists the entries that can be located in the archive and the byte ranges that cannot be attributed to one.
+     */
+    public static ScanResult scan(Path archive) throws IOException {
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.OPEN);
+            FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            return scan(archive, channel, (e) -> true);
+        }
+    }
+
+    /**
+     *  Extracts every recoverable entry to the target directory during the scan.
+     *
+     *  @throws EntryDecoder.WrongPasswordException if the password does not match an encrypted entry
+     */
+    public static ScanResult recover(Path archive, Path targetDirectory, char[] password) throws IOException {
+        final Path root = targetDirectory.toAbsolutePath()
+                                         .normalize();
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.EXTRACT);
+            FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            return scan(archive, channel, (e) -> extract(archive, channel, e, root, password));
+        }
+    }
+
+    private static ScanResult scan(Path archive, FileChannel channel, EntryHandler handler) throws IOException {
+        final long size = channel.size();
+        final List<RecoveredEntry> entries = new ArrayList<>();
+        final List<ByteRange> corrupt = new ArrayList<>();
+        // Shared by every signature search of the scan
+        final ByteBuffer window = ByteBuffer.allocate(BUFFER_SIZE)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+
+        long position = 0;
+        long corruptStart = -1;
+        while (position < size) {
+            final int signature = size - position >= 4 ? read(channel, position, 4).getInt(0) : 0;
+            if (signature == SIG_CENTRAL_DIRECTORY || signature == SIG_END_OF_CENTRAL_DIRECTORY ||
+                    signature == SIG_ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                break;
+            }
+
+            final RecoveredEntry located = signature == SIG_LOCAL_FILE_HEADER ?
+                    locate(channel, window, size, position, entries.size()) : null;
+            if (Objects.nonNull(located)) {
+                if (corruptStart >= 0) {
+                    addRange(corrupt, corruptStart, position);
+                    corruptStart = -1;
+                }
+                if (handler.accept(located)) {
+                    entries.add(located);
+                } else {
+                    addRange(corrupt, position, located.end());
+                }
+                position = located.end();
+                continue;
+            }
+
+            if (corruptStart < 0) {
+                corruptStart = position;
+            }
+            position = findSignature(channel, window, size, position + 1);
+        }
+        if (corruptStart >= 0) {
+            addRange(corrupt, corruptStart, position);
+        }
+        return new ScanResult(archive, size, List.copyOf(entries), List.copyOf(corrupt));
+    }
+
+    /**
+     *  Parses the local header at the position and delimits the entry.
+     *
+     *  @return the entry, or null if the header is implausible or the entry is incomplete
+     */
+    private static RecoveredEntry locate(FileChannel channel, ByteBuffer window, long size, long position,
+            long index) throws IOException {
+        final long start = System.nanoTime();
+        if (position + LOCAL_FILE_HEADER_SIZE > size) {
+            return null;
+        }
+        final ByteBuffer header = read(channel, position, LOCAL_FILE_HEADER_SIZE);
+        final int flags = Short.toUnsignedInt(header.getShort(6));
+        final int method = Short.toUnsignedInt(header.getShort(8));
+        final long dosTime = Integer.toUnsignedLong(header.getInt(10));
+        long crc = Integer.toUnsignedLong(header.getInt(14));
+        long compressedSize = Integer.toUnsignedLong(header.getInt(18));
+        long uncompressedSize = Integer.toUnsignedLong(header.getInt(22));
+        final int nameLength = Short.toUnsignedInt(header.getShort(26));
+        final int extraLength = Short.toUnsignedInt(header.getShort(28));
+        final long dataOffset = position + LOCAL_FILE_HEADER_SIZE + nameLength + extraLength;
+        if (nameLength == 0 || dataOffset > size ||
+                (method != METHOD_STORE && method != METHOD_DEFLATE && method != METHOD_AES)) {
+            return null;
+        }
+
+        final ByteBuffer variable = read(channel, position + LOCAL_FILE_HEADER_SIZE, nameLength + extraLength);
+        final byte[] encodedName = new byte[nameLength];
+        variable.get(encodedName);
+        final String name = new String(encodedName, (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : CP437);
+
+        boolean zip64 = false;
+        int aesStrength = 0;
+        int actualMethod = method;
+        for (int e = nameLength, end = nameLength + extraLength; e + 4 <= end; ) {
+            final int headerId = Short.toUnsignedInt(variable.getShort(e));
+            final int dataSize = Short.toUnsignedInt(variable.getShort(e + 2));
+            final int d = e + 4;
+            if (d + dataSize > end) {
+                return null;
+            }
+            if (headerId == EXTRA_ZIP64 && dataSize >= 16) {
+                // Both sizes are present in a local header, uncompressed first
+                zip64 = true;
+                uncompressedSize = variable.getLong(d);
+                compressedSize = variable.getLong(d + 8);
+            } else if (headerId == EXTRA_AES && dataSize >= 7) {
+                aesStrength = Byte.toUnsignedInt(variable.get(d + 4));
+                actualMethod = Short.toUnsignedInt(variable.getShort(d + 5));
+            }
+            e = d + dataSize;
+        }
+        if (method == METHOD_AES && (aesStrength == 0 ||
+                (actualMethod != METHOD_STORE && actualMethod != METHOD_DEFLATE))) {
+            return null;
+        }
+
+        long end = dataOffset + compressedSize;
+        if ((flags & FLAG_DATA_DESCRIPTOR) != 0) {
+            final boolean encrypted = (flags & ZipRecordWriter.FLAG_ENCRYPTED) != 0;
+            compressedSize = method == METHOD_DEFLATE && !encrypted ? inflatedLength(channel, dataOffset) :
+                    descriptorDistance(channel, window, size, dataOffset, zip64);
+            if (compressedSize < 0) {
+                return null;
+            }
+
+            long descriptor = dataOffset + compressedSize;
+            final int descriptorSize = zip64 ? 20 : 12;
+            if (descriptor + 4 <= size && read(channel, descriptor, 4).getInt(0) == SIG_DATA_DESCRIPTOR) {
+                descriptor += 4;
+            }
+            if (descriptor + descriptorSize > size) {
+                return null;
+            }
+            final ByteBuffer fields = read(channel, descriptor, descriptorSize);
+            crc = Integer.toUnsignedLong(fields.getInt(0));
+            final long recordedSize = zip64 ? fields.getLong(4) : Integer.toUnsignedLong(fields.getInt(4));
+            uncompressedSize = zip64 ? fields.getLong(12) : Integer.toUnsignedLong(fields.getInt(8));
+            if (recordedSize != compressedSize) {
+                return null;
+            }
+            end = descriptor + descriptorSize;
+        }
+        if (end > size || compressedSize >= UINT32_MAX && !zip64) {
+            return null;
+        }
+
+        METRICS.record(Zip4jMetrics.Phase.HEADER_PARSE, start, LOCAL_FILE_HEADER_SIZE + nameLength + extraLength,
+                       1);
+        return new RecoveredEntry(new CentralDirectoryEntry(index, name, flags, method, crc, compressedSize,
+                                                            uncompressedSize, position, 0, dosTime, 0, aesStrength,
+                                                            actualMethod, -1, 0),
+                                  dataOffset, end);
+    }
+
+    /**
+     *  @return the length of the deflate stream at the offset, or -1 if it is invalid or incomplete
+     */
+    private static long inflatedLength(FileChannel channel, long offset) throws IOException {
+        final Inflater inflater = new Inflater(true);
+        final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        final byte[] output = new byte[BUFFER_SIZE];
+        try {
+            long position = offset;
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    input.clear();
+                    final long start = System.nanoTime();
+                    final int read = channel.read(input, position);
+                    if (read <= 0) {
+                        return -1;
+                    }
+                    METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, read, 0);
+                    position += read;
+                    inflater.setInput(input.flip());
+                }
+                final long start = System.nanoTime();
+                final int inflated = inflater.inflate(output);
+                METRICS.record(Zip4jMetrics.Phase.INFLATE, start, inflated, 0);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    return -1;
+                }
+            }
+            return inflater.getBytesRead();
+        } catch(DataFormatException e) {
+            return -1;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     *  Locates the data descriptor of an entry whose payload cannot be delimited by inflation, as the first
+     *  descriptor signature whose recorded compressed size matches its distance from the payload.
+     *
+     *  @return the compressed size, or -1 if no descriptor is found
+     */
+    private static long descriptorDistance(FileChannel channel, ByteBuffer window, long size, long dataOffset,
+            boolean zip64) throws IOException {
+        for (long candidate = findSignature(channel, window, size, dataOffset, SIG_DATA_DESCRIPTOR); candidate < size;
+             candidate = findSignature(channel, window, size, candidate + 1, SIG_DATA_DESCRIPTOR)) {
+            if (candidate + 4 + (zip64 ? 20 : 12) > size) {
+                break;
+            }
+            final ByteBuffer fields = read(channel, candidate + 4, zip64 ? 12 : 8);
+            final long recordedSize = zip64 ? fields.getLong(4) : Integer.toUnsignedLong(fields.getInt(4));
+            if (recordedSize == candidate - dataOffset) {
+                return recordedSize;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *  @return the offset of the next local header, central directory or end record signature from the position, or
+     *  the size of the archive if there is none
+     */
+    private static long findSignature(FileChannel channel, ByteBuffer window, long size,
+            long position) throws IOException {
+        return findSignature(channel, window, size, position, SIG_LOCAL_FILE_HEADER, SIG_CENTRAL_DIRECTORY,
+                             SIG_END_OF_CENTRAL_DIRECTORY, SIG_ZIP64_END_OF_CENTRAL_DIRECTORY);
+    }
+
+    private static long findSignature(FileChannel channel, ByteBuffer window, long size, long position,
+            int... signatures) throws IOException {
+        while (position + 4 <= size) {
+            window.clear()
+                  .limit((int) Math.min(BUFFER_SIZE, size - position));
+            readFully(channel, window, position);
+            for (int p = 0; p + 4 <= window.limit(); p++) {
+                // Every record signature starts with "PK"
+                if (window.get(p) != 'P' || window.get(p + 1) != 'K') {
+                    continue;
+                }
+                final int signature = window.getInt(p);
+                for (int candidate : signatures) {
+                    if (signature == candidate) {
+                        return position + p;
+                    }
+                }
+            }
+            // Windows overlap by the length of a signature less one byte
+            position += Math.max(1, window.limit() - 3);
+        }
+        return size;
+    }
+
+    private static boolean extract(Path archive, FileChannel channel, RecoveredEntry recovered, Path root,
+            char[] password) throws IOException {
+        final CentralDirectoryEntry entry = recovered.entry();
+        final Path target = root.resolve(entry.name())
+                                .normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException(String.format("Entry %s resolves outside of %s", entry.name(), root));
+        }
+        if (entry.isDirectory()) {
+            Files.createDirectories(target);
+            return true;
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            if (entry.method() == METHOD_STORE && !entry.isEncrypted()) {
+                transfer(channel, recovered.dataOffset(), entry, target);
+            } else {
+                try(InputStream stream = EntryDecoder.open(channel, archive, entry, recovered.dataOffset(), password,
+                                                           null)) {
+                    final long start = System.nanoTime();
+                    final long written = Files.copy(stream, target, StandardCopyOption.REPLACE_EXISTING);
+                    METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, written, 1);
+                }
+            }
+            return true;
+        } catch(EntryDecoder.WrongPasswordException e) {
+            throw e;
+        } catch(IOException e) {
+            Files.deleteIfExists(target);
+            return false;
+        }
+    }
+
+    /**
+     *  Copies a stored entry without passing it through the heap, then verifies the CRC of the extracted file.
+     */
+    private static void transfer(FileChannel channel, long dataOffset, CentralDirectoryEntry entry,
+            Path target) throws IOException {
+        final long size = entry.compressedSize();
+        final CRC32 crc = new CRC32();
+        try(FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final long start = System.nanoTime();
+            for (long copied = 0; copied < size; ) {
+                final long transferred = channel.transferTo(dataOffset + copied, size - copied, out);
+                if (transferred <= 0) {
+                    throw new EOFException(String.format("Archive ends within %s", entry.name()));
+                }
+                copied += transferred;
+            }
+            METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, size, 1);
+
+            for (long position = 0; position < size; position += MAP_SIZE) {
+                final MappedByteBuffer mapped = out.map(FileChannel.MapMode.READ_ONLY, position,
+                                                        Math.min(MAP_SIZE, size - position));
+                crc.update(mapped);
+            }
+        }
+        if (crc.getValue() != entry.crc()) {
+            throw new IOException(String.format("CRC of %s does not match", entry.name()));
+        }
+    }
+
+    private static void addRange(List<ByteRange> ranges, long start, long end) {
+        if (!ranges.isEmpty() && ranges.get(ranges.size() - 1).end() == start) {
+            start = ranges.remove(ranges.size() - 1).start();
+        }
+        ranges.add(new ByteRange(start, end));
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, position);
+        return buffer.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        final long start = System.nanoTime();
+        final int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + length - buffer.remaining()) < 0) {
+                throw new EOFException(String.format("Archive ends before offset %d", position + length));
+            }
+        }
+        METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, length, 0);
+    }
+}
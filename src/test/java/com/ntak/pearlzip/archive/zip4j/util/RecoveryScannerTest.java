@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+public class RecoveryScannerTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Recovery scan of corrupt archives - recoverable entries extracted and corrupt ranges reported
+     */
+    @Test
+    @DisplayName("Test: Recovery scan of corrupt archives extracts recoverable entries and reports corrupt ranges")
+    public void test_RecoveryScanner_CorruptArchive(TestReporter reporter) throws IOException {
+        // faulty.zip has no recognisable records
+        Path faulty = Paths.get("src", "test", "resources", "faulty.zip").toAbsolutePath();
+        RecoveryScanner.ScanResult faultyScan = RecoveryScanner.scan(faulty);
+        Assertions.assertTrue(faultyScan.entries().isEmpty(), "Entries were recovered from faulty.zip");
+        Assertions.assertEquals(List.of(new RecoveryScanner.ByteRange(0, Files.size(faulty))),
+                                faultyScan.corruptRanges(), "Unexpected corrupt ranges of faulty.zip");
+
+        // An intact archive is recovered in full
+        CorpusSpec spec = CorpusSpec.of(50, 4096)
+                                    .withFolders(1, 3)
+                                    .withEncryption(Zip4jEncryption.AES_256);
+        Path source = Zip4jCorpusGenerator.corpus(spec);
+        RecoveryScanner.ScanResult intact = RecoveryScanner.scan(source);
+        Assertions.assertTrue(intact.isIntact(), String.format("Corruption reported: %s", intact.corruptRanges()));
+        Assertions.assertEquals(spec.entryCount(), intact.entries().size(), "Not every entry was located");
+
+        // Damaged header of entry 10 and truncation within entry 40, as from an interrupted transfer
+        Path archive = workingDir.resolve("truncated.zip");
+        Path extractDir = workingDir.resolve("recovered");
+        byte[] content = Files.readAllBytes(source);
+        RecoveryScanner.RecoveredEntry damaged = intact.entries().get(10);
+        Arrays.fill(content, (int) damaged.entry().localHeaderOffset(), (int) damaged.entry().localHeaderOffset() + 20,
+                    (byte) 0x33);
+        RecoveryScanner.RecoveredEntry truncated = intact.entries().get(40);
+        Files.write(archive, Arrays.copyOf(content, (int) truncated.dataOffset() + 100));
+
+        // Zip4j cannot read the archive without its central directory
+        Assertions.assertThrows(net.lingala.zip4j.exception.ZipException.class,
+                                () -> new net.lingala.zip4j.ZipFile(archive.toFile()).getFileHeaders(),
+                                "Truncated archive was read by Zip4j");
+
+        RecoveryScanner.ScanResult result = RecoveryScanner.recover(archive, extractDir,
+                                                                    Zip4jCorpusGenerator.PASSWORD.toCharArray());
+        reporter.publishEntry("recovery", String.format("%d entries recovered, %d corrupt bytes in %s",
+                                                        result.entries().size(), result.corruptBytes(),
+                                                        result.corruptRanges()));
+        Assertions.assertEquals(39, result.entries().size(), "Unexpected number of entries recovered");
+        Assertions.assertEquals(List.of(new RecoveryScanner.ByteRange(damaged.entry().localHeaderOffset(),
+                                                                      damaged.end()),
+                                        new RecoveryScanner.ByteRange(truncated.entry().localHeaderOffset(),
+                                                                      Files.size(archive))),
+                                result.corruptRanges(), "Unexpected corrupt ranges");
+
+        // Recovered entries match those of the intact archive
+        net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(source.toFile(),
+                                                                          Zip4jCorpusGenerator.PASSWORD.toCharArray());
+        for (RecoveryScanner.RecoveredEntry recovered : result.entries()) {
+            try(InputStream expected = zipFile.getInputStream(zipFile.getFileHeader(recovered.entry().name()))) {
+                Assertions.assertArrayEquals(expected.readAllBytes(),
+                                             Files.readAllBytes(extractDir.resolve(recovered.entry().name())),
+                                             String.format("%s was not recovered intact", recovered.entry().name()));
+            }
+        }
+        Assertions.assertFalse(Files.exists(extractDir.resolve(damaged.entry().name())),
+                               "Damaged entry was extracted");
+        Assertions.assertFalse(Files.exists(extractDir.resolve(truncated.entry().name())),
+                               "Truncated entry was extracted");
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  Settings backed by a properties file, such as {@code CURRENT_SETTINGS} and the settings file. Changes are applied
+ *  to the in-memory properties immediately and persisted on a background thread once no further change has been made
+ *  for the debounce interval, so a burst of changes (e.g. applying an options dialog) costs a single write and the
+ *  caller (e.g. the FX thread) never waits on the disk. Writes go to a temporary file in the same directory which
+ *  is then renamed over the settings file, so readers never see a partially written file. A failed background write
+ *  is logged as it happens and rethrown by the next {@link #flush()}.
+ *
+ *  {@link #overlay(Map) Overlays} change the in-memory properties only and are never persisted, so tests can vary
+ *  settings without backing up and restoring the settings file.
+ */
+public class SettingsStore implements AutoCloseable {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 250L;
+
+    private static final System.Logger LOGGER = System.getLogger(SettingsStore.class.getName());
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor((r) -> {
+        Thread thread = new Thread(r, "pz-settings-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path settingsFile;
+    private final Properties settings;
+    private final long debounceMillis;
+    // Persisted values of overlaid keys (null if absent), by key
+    private final Map<String,String> overlaid = new HashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private ScheduledFuture<?> pending;
+    private IOException failure;
+
+    /**
+     *  Restores a file to its content when the snapshot was taken, if it has since changed.
+     */
+    public static class FileSnapshot implements AutoCloseable {
+        private final Path file;
+        private final byte[] content;
+
+        private FileSnapshot(Path file, byte[] content) {
+            this.file = file;
+            this.content = content;
+        }
+
+        public List<String> lines() {
+            return Objects.isNull(content) ? List.of() :
+                    new String(content, StandardCharsets.UTF_8).lines()
+                                                               .toList();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (Objects.isNull(content)) {
+                Files.deleteIfExists(file);
+            } else if (!Files.exists(file) || !Arrays.equals(content, Files.readAllBytes(file))) {
+                replace(file, out -> out.write(content));
+            }
+        }
+    }
+
+    /**
+     *  Reverts the overlaid settings to their previous values on close.
+     */
+    public interface Overlay extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    public SettingsStore(Path settingsFile, Properties settings) {
+        this(settingsFile, settings, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public SettingsStore(Path settingsFile, Properties settings, long debounceMillis) {
+        this.settingsFile = settingsFile;
+        this.settings = settings;
+        this.debounceMillis = debounceMillis;
+    }
+
+    public static FileSnapshot snapshot(Path file) throws IOException {
+        return new FileSnapshot(file, Files.exists(file) ? Files.readAllBytes(file) : null);
+    }
+
+    public String get(String key) {
+        return settings.getProperty(key);
+    }
+
+    /**
+     *  Number of times the settings file has been written by this store.
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public void set(String key, String value) {
+        setAll(Map.of(key, value));
+    }
+
+    public synchronized void setAll(Map<String,String> values) {
+        values.forEach((key, value) -> {
+            if (overlaid.containsKey(key)) {
+                // Takes effect once the overlay is closed
+                overlaid.put(key, value);
+            } else {
+                settings.setProperty(key, value);
+            }
+        });
+        schedule();
+    }
+
+    public synchronized void remove(String key) {
+        if (overlaid.containsKey(key)) {
+            overlaid.put(key, null);
+        } else {
+            settings.remove(key);
+        }
+        schedule();
+    }
+
+    /**
+     *  Sets the values in memory only until the returned overlay is closed. Overlays may be nested but must be closed
+     *  in the reverse order to which they were opened.
+     */
+    public synchronized Overlay overlay(Map<String,String> values) {
+        final Map<String,String> previous = new HashMap<>();
+        final Set<String> opened = new HashSet<>();
+        values.forEach((key, value) -> {
+            previous.put(key, settings.getProperty(key));
+            if (!overlaid.containsKey(key)) {
+                overlaid.put(key, settings.getProperty(key));
+                opened.add(key);
+            }
+            settings.setProperty(key, value);
+        });
+
+        return () -> {
+            synchronized(this) {
+                previous.forEach((key, value) -> {
+                    final String restored = opened.contains(key) ? overlaid.remove(key) : value;
+                    if (Objects.isNull(restored)) {
+                        settings.remove(key);
+                    } else {
+                        settings.setProperty(key, restored);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     *  Writes any pending changes and waits for the write to complete.
+     *
+     *  @throws IOException if the latest write failed
+     */
+    public void flush() throws IOException {
+        final ScheduledFuture<?> flush;
+        synchronized(this) {
+            if (Objects.nonNull(pending) && pending.cancel(false)) {
+                pending = null;
+                flush = WRITER.schedule(this::write, 0, TimeUnit.MILLISECONDS);
+            } else {
+                // A write in progress (if any) is completed first, as the writer is single threaded
+                flush = WRITER.schedule(() -> {}, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+        try {
+            flush.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing settings", e);
+        } catch(ExecutionException e) {
+            throw new IOException("Unable to write settings", e.getCause());
+        }
+
+        synchronized(this) {
+            if (Objects.nonNull(failure)) {
+                final IOException e = failure;
+                failure = null;
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void schedule() {
+        if (Objects.nonNull(pending)) {
+            pending.cancel(false);
+        }
+        pending = WRITER.schedule(this::write, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void write() {
+        final Properties persisted = new Properties();
+        synchronized(this) {
+            pending = null;
+            persisted.putAll(settings);
+            overlaid.forEach((key, value) -> {
+                if (Objects.isNull(value)) {
+                    persisted.remove(key);
+                } else {
+                    persisted.setProperty(key, value);
+                }
+            });
+        }
+
+        try {
+            replace(settingsFile, out -> persisted.store(out, null));
+            writes.incrementAndGet();
+        } catch(IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, String.format("Unable to write settings to %s", settingsFile), e);
+            synchronized(this) {
+                failure = e;
+            }
+        }
+    }
+
+    private static void replace(Path file, Writer writer) throws IOException {
+        final Path dir = file.toAbsolutePath()
+                             .getParent();
+        Files.createDirectories(dir);
+        final Path staging = Files.createTempFile(dir, String.format(".%s", file.getFileName()), ".tmp");
+        try {
+            try(OutputStream out = Files.newOutputStream(staging)) {
+                writer.write(out);
+            }
+            try {
+                Files.move(staging, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch(AtomicMoveNotSupportedException e) {
+                Files.move(staging, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static com.ntak.pearlzip.archive.zip4j.constants.Zip4jConstants.KEY_SPLIT_ARCHIVE_SIZE;
+
+public class SettingsStoreTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Settings store - changes coalesced into atomic background writes, overlays not persisted
+     */
+    @Test
+    @DisplayName("Test: Settings store coalesces changes into atomic background writes and does not persist overlays")
+    public void test_SettingsStore_CoalescedWrites() throws IOException {
+        // Set up
+        Path settingsFile = workingDir.resolve("settings.properties");
+        Properties settings = new Properties();
+
+        try(SettingsStore store = new SettingsStore(settingsFile, settings, 60000)) {
+            // A burst of changes is applied in memory and costs a single write
+            for (int i = 0; i <= 100; i++) {
+                store.set("configuration.zip4j.default-compression-level", String.valueOf(i % 10));
+                store.set("configuration.zip4j.default-compression-method", i % 2 == 0 ? "DEFLATE" : "STORE");
+            }
+            Assertions.assertEquals("0", settings.getProperty("configuration.zip4j.default-compression-level"),
+                                    "Change was not applied in memory");
+            Assertions.assertEquals(0, store.getWrites(), "Settings were written before the debounce interval");
+            store.flush();
+            Assertions.assertEquals(1, store.getWrites(), "Changes were not coalesced into a single write");
+
+            // Overlays are visible in memory but never persisted
+            try(SettingsStore.Overlay overlay = store.overlay(Map.of(KEY_SPLIT_ARCHIVE_SIZE, "65536",
+                                                                     "configuration.zip4j.default-compression-level",
+                                                                     "9"))) {
+                Assertions.assertEquals("65536", store.get(KEY_SPLIT_ARCHIVE_SIZE), "Overlay was not applied");
+                store.set("configuration.zip4j.default-compression-method", "STORE");
+                store.flush();
+                Properties persisted = new Properties();
+                try(InputStream stream = Files.newInputStream(settingsFile)) {
+                    persisted.load(stream);
+                }
+                Assertions.assertNull(persisted.getProperty(KEY_SPLIT_ARCHIVE_SIZE), "Overlay was persisted");
+                Assertions.assertEquals("0", persisted.getProperty("configuration.zip4j.default-compression-level"),
+                                        "Overlay replaced the persisted value");
+                Assertions.assertEquals("STORE",
+                                        persisted.getProperty("configuration.zip4j.default-compression-method"),
+                                        "Change made under an overlay was not persisted");
+            }
+            Assertions.assertNull(store.get(KEY_SPLIT_ARCHIVE_SIZE), "Overlay was not removed on close");
+            Assertions.assertEquals("0", store.get("configuration.zip4j.default-compression-level"),
+                                    "Overlaid value was not restored on close");
+
+            // Writes are renamed into place, leaving no staging files behind
+            try(Stream<Path> files = Files.list(workingDir)) {
+                Assertions.assertTrue(files.noneMatch(f -> f.getFileName().toString().endsWith(".tmp")),
+                                      "Staging files were left behind");
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.CentralDirectoryEntry;
+import com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.EndOfCentralDirectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.ntak.pearlzip.archive.constants.ArchiveConstants.CURRENT_SETTINGS;
+import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static com.ntak.pearlzip.archive.zip4j.constants.Zip4jConstants.KEY_SPLIT_ARCHIVE_SIZE;
+import static com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.*;
+import static com.ntak.pearlzip.archive.zip4j.util.ParallelZipWriter.writeFully;
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.endOfCentralDirectory;
+import static com.ntak.pearlzip.archive.zip4j.util.ZipRecordWriter.relocate;
+
+/**
+ *  Splits an archive into volumes following the Zip4j naming convention (.z01, .z02, ... and a final .zip). Entries
+ *  are copied as stored in the source archive (local header, payload and data descriptor) straight into the current
+ *  volume with {@link FileChannel#transferTo}, so no entry is recompressed and no intermediate archive is written.
+ *  Each volume is closed (and a {@link VolumeCompletedEvent} posted on the default event bus) as soon as it is full.
+ *
+ *  Headers never span volumes; payloads may. Encrypted entries (ZipCrypto or AES) are split in the same way: their
+ *  cipher text, AES salt, verifier and authentication code are copied unchanged, so no password is required and
+ *  nothing is decrypted or re-encrypted.
+ */
+public class SplitArchiveWriter {
+
+    public static final long MIN_SPLIT_SIZE = 65536L;
+
+    private static final int SPLIT_SIGNATURE_SIZE = 4;
+
+    private final long splitSize;
+
+    public record VolumeCompletedEvent(Path archive, Path volume, int volumeNumber, long size) {
+    }
+
+    public record SplitCompletedEvent(Path archive, List<Path> volumes, long encryptedEntries, long bytesWritten,
+            long durationNanos) {
+    }
+
+    public SplitArchiveWriter(long splitSize) {
+        if (splitSize < MIN_SPLIT_SIZE) {
+            throw new IllegalArgumentException(String.format("Split size %d is below the minimum of %d", splitSize,
+                                                             MIN_SPLIT_SIZE));
+        }
+        this.splitSize = splitSize;
+    }
+
+    /**
+     *  Split writer using the split size of the current Zip4j settings ({@code KEY_SPLIT_ARCHIVE_SIZE}).
+     */
+    public static SplitArchiveWriter fromSettings() {
+        final String splitSize = CURRENT_SETTINGS.getProperty(KEY_SPLIT_ARCHIVE_SIZE);
+        if (Objects.isNull(splitSize)) {
+            throw new IllegalStateException(String.format("%s is not set", KEY_SPLIT_ARCHIVE_SIZE));
+        }
+        return new SplitArchiveWriter(Long.parseLong(splitSize.trim()));
+    }
+
+    public static Path volumePath(Path target, int volumeNumber) {
+        final String fileName = target.getFileName().toString();
+        final String baseName = fileName.toLowerCase().endsWith(".zip") ?
+                fileName.substring(0, fileName.length() - 4) : fileName;
+        return target.resolveSibling(String.format("%s.z%02d", baseName, volumeNumber));
+    }
+
+    /**
+     *  Splits the source archive into volumes alongside the target, the last of which is the target itself.
+     */
+    public SplitCompletedEvent split(Path source, Path target) throws IOException {
+        final long start = System.nanoTime();
+        try(Zip4jMetrics.Scope scope = METRICS.operation(Zip4jMetrics.Operation.SPLIT);
+            CentralDirectoryReader reader = new CentralDirectoryReader(source);
+            VolumeChannel volumes = new VolumeChannel(target)) {
+            final EndOfCentralDirectory eocd = reader.endOfCentralDirectory();
+            if (eocd.diskNumber() != 0 || eocd.centralDirectoryDisk() != 0) {
+                throw new IOException(String.format("%s is already a split archive", source));
+            }
+
+            final List<CentralDirectoryEntry> entries = reader.stream().toList();
+            final long[] offsets = new long[entries.size()];
+            final int[] disks = new int[entries.size()];
+            long encryptedEntries = 0;
+            for (CentralDirectoryEntry entry : entries) {
+                encryptedEntries += entry.isEncrypted() ? 1 : 0;
+                final long dataOffset = reader.dataOffset(entry);
+                final int headerLength = (int) (dataOffset - entry.localHeaderOffset());
+                volumes.reserve(headerLength);
+                offsets[(int) entry.index()] = volumes.position();
+                disks[(int) entry.index()] = volumes.volumeIndex();
+                volumes.write(reader.read(entry.localHeaderOffset(), headerLength));
+                volumes.transferFrom(reader.getChannel(), dataOffset, payloadLength(reader, entry, dataOffset));
+            }
+
+            final ByteBuffer[] records = new ByteBuffer[entries.size()];
+            long centralDirectorySize = 0;
+            for (CentralDirectoryEntry entry : entries) {
+                records[(int) entry.index()] = relocate(reader.read(entry.recordOffset(), entry.recordLength()),
+                                                        offsets[(int) entry.index()], disks[(int) entry.index()]);
+                centralDirectorySize += entry.recordLength();
+            }
+
+            int centralDirectoryDisk = -1;
+            long centralDirectoryOffset = 0;
+            long entriesOnDisk = 0;
+            for (ByteBuffer record : records) {
+                if (volumes.reserve(record.remaining())) {
+                    entriesOnDisk = 0;
+                }
+                if (centralDirectoryDisk < 0) {
+                    centralDirectoryDisk = volumes.volumeIndex();
+                    centralDirectoryOffset = volumes.position();
+                }
+                volumes.write(record);
+                entriesOnDisk++;
+            }
+            if (centralDirectoryDisk < 0) {
+                centralDirectoryDisk = volumes.volumeIndex();
+                centralDirectoryOffset = volumes.position();
+            }
+
+            final ByteBuffer probe = endOfCentralDirectory(0, 0, entriesOnDisk, entries.size(),
+                                                           centralDirectoryOffset, centralDirectorySize, 0);
+            if (volumes.reserve(probe.remaining())) {
+                entriesOnDisk = 0;
+            }
+            volumes.write(endOfCentralDirectory(volumes.volumeIndex(), centralDirectoryDisk, entriesOnDisk,
+                                                entries.size(), centralDirectoryOffset, centralDirectorySize,
+                                                volumes.position()));
+
+            final List<Path> written = volumes.finish();
+            final SplitCompletedEvent completed = new SplitCompletedEvent(target, written, encryptedEntries,
+                                                                          volumes.bytesWritten(),
+                                                                          System.nanoTime() - start);
+            DEFAULT_BUS.post(completed);
+            return completed;
+        }
+    }
+
+    private static long payloadLength(CentralDirectoryReader reader, CentralDirectoryEntry entry,
+            long dataOffset) throws IOException {
+        if (!entry.hasDataDescriptor()) {
+            return entry.compressedSize();
+        }
+        final boolean zip64 = entry.compressedSize() >= 0xFFFFFFFFL || entry.uncompressedSize() >= 0xFFFFFFFFL;
+        final long descriptorOffset = dataOffset + entry.compressedSize();
+        final boolean signed = reader.read(descriptorOffset, 4).getInt(0) == SIG_DATA_DESCRIPTOR;
+        return entry.compressedSize() + (signed ? 4 : 0) + 4 + (zip64 ? 16 : 8);
+    }
+
+    /**
+     *  Sequence of volumes of at most the split size. Completed volumes are named .z01, .z02, ... in order; the last
+     *  volume is renamed to the target on finish.
+     */
+    private class VolumeChannel implements AutoCloseable {
+        private final Path target;
+        private final List<Path> volumes = new ArrayList<>();
+        private FileChannel current;
+        private long bytesWritten;
+        private boolean finished;
+
+        VolumeChannel(Path target) throws IOException {
+            this.target = target;
+            open();
+            // Split archives start with the data descriptor signature as a marker
+            write(ByteBuffer.allocate(SPLIT_SIGNATURE_SIZE)
+                            .order(ByteOrder.LITTLE_ENDIAN)
+                            .putInt(0, SIG_DATA_DESCRIPTOR));
+        }
+
+        int volumeIndex() {
+            return volumes.size() - 1;
+        }
+
+        long position() throws IOException {
+            return current.position();
+        }
+
+        long bytesWritten() {
+            return bytesWritten;
+        }
+
+        /**
+         *  Ensures the given number of bytes fit into the current volume, starting a new volume if not.
+         *
+         *  @return whether a new volume was started
+         */
+        boolean reserve(int length) throws IOException {
+            if (length > splitSize) {
+                throw new IOException(String.format("Header of %d bytes exceeds the split size %d", length,
+                                                    splitSize));
+            }
+            if (current.position() + length > splitSize) {
+                next();
+                return true;
+            }
+            return false;
+        }
+
+        void write(ByteBuffer buffer) throws IOException {
+            bytesWritten += buffer.remaining();
+            writeFully(current, buffer);
+        }
+
+        void transferFrom(FileChannel source, long position, long length) throws IOException {
+            for (long end = position + length; position < end; ) {
+                final long capacity = splitSize - current.position();
+                if (capacity == 0) {
+                    next();
+                    continue;
+                }
+                final long start = System.nanoTime();
+                final long transferred = source.transferTo(position, Math.min(capacity, end - position), current);
+                METRICS.record(Zip4jMetrics.Phase.DISK_IO, start, transferred, 0);
+                position += transferred;
+                bytesWritten += transferred;
+            }
+        }
+
+        List<Path> finish() throws IOException {
+            current.close();
+            final Path last = volumes.remove(volumes.size() - 1);
+            Files.move(last, target, StandardCopyOption.REPLACE_EXISTING);
+            volumes.add(target);
+            DEFAULT_BUS.post(new VolumeCompletedEvent(target, target, volumes.size(), Files.size(target)));
+            finished = true;
+            return List.copyOf(volumes);
+        }
+
+        private void open() throws IOException {
+            final Path volume = volumePath(target, volumes.size() + 1);
+            current = FileChannel.open(volume, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            volumes.add(volume);
+        }
+
+        private void next() throws IOException {
+            current.close();
+            final Path completed = volumes.get(volumes.size() - 1);
+            DEFAULT_BUS.post(new VolumeCompletedEvent(target, completed, volumes.size(), Files.size(completed)));
+            open();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                current.close();
+                for (Path volume : volumes) {
+                    Files.deleteIfExists(volume);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+public class SplitArchiveWriterTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Streaming split of an unencrypted zip archive - volume events and no intermediate archive
+     *  + Split an encrypted zip archive - cipher text copied unchanged and authenticated by Zip4j
+     */
+    @Test
+    @DisplayName("Test: Streaming split of an unencrypted zip archive emits volumes as they complete")
+    public void test_StreamingSplitUnencryptedZipArchive_Success() throws IOException {
+        // Set up
+        Path srcArchive = Zip4jCorpusGenerator.corpus(CorpusSpec.of(16, 65536)
+                                                                .withCompressibility(0)
+                                                                .withFolders(1, 2));
+        Path tgtArchive = Files.createDirectories(workingDir.resolve("split")).resolve("split.zip");
+        Path extractDir = Files.createDirectories(workingDir.resolve("extract"));
+        try(Zip4jWaitUtil.BusEventWaiter<SplitArchiveWriter.VolumeCompletedEvent> firstVolume =
+                    Zip4jWaitUtil.expectBusEvent(SplitArchiveWriter.VolumeCompletedEvent.class,
+                                                 e -> e.archive().equals(tgtArchive) && e.volumeNumber() == 1);
+            Zip4jWaitUtil.BusEventWaiter<SplitArchiveWriter.VolumeCompletedEvent> lastVolume =
+                    Zip4jWaitUtil.expectBusEvent(SplitArchiveWriter.VolumeCompletedEvent.class,
+                                                 e -> e.volume().equals(tgtArchive))) {
+            SplitArchiveWriter.SplitCompletedEvent completed =
+                    new SplitArchiveWriter(SplitArchiveWriter.MIN_SPLIT_SIZE).split(srcArchive, tgtArchive);
+
+            // Volumes were reported as they were completed
+            Assertions.assertEquals(SplitArchiveWriter.volumePath(tgtArchive, 1),
+                                    firstVolume.await("first volume").volume(), "First volume was not reported");
+            Assertions.assertEquals(completed.volumes().size(), lastVolume.await("last volume").volumeNumber(),
+                                    "Last volume number was not as anticipated");
+            Assertions.assertTrue(completed.volumes().size() > 1, "Archive was not split");
+            for (Path volume : completed.volumes()) {
+                Assertions.assertTrue(Files.size(volume) <= SplitArchiveWriter.MIN_SPLIT_SIZE,
+                                      String.format("Volume %s exceeds the split size", volume));
+            }
+
+            // No intermediate copy: bytes written match the source plus the split marker
+            Assertions.assertEquals(Files.size(srcArchive) + 4, completed.bytesWritten(),
+                                    "Unexpected number of bytes written");
+
+            // Zip4j reads the split archive
+            net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(tgtArchive.toFile());
+            Assertions.assertTrue(zipFile.isSplitArchive(), "Archive is not recognised as split");
+            zipFile.extractAll(extractDir.toString());
+            try(Stream<Path> files = Files.walk(extractDir)) {
+                Assertions.assertEquals(16, files.filter(Files::isRegularFile).count(),
+                                        "Unexpected number of extracted files");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Split an encrypted zip archive succeeds without decrypting its entries")
+    public void test_SplitEncryptedZipArchive_Success() throws IOException {
+        // Set up
+        Path srcArchive = Zip4jCorpusGenerator.corpus(CorpusSpec.of(16, 65536)
+                                                                .withCompressibility(0)
+                                                                .withEncryption(Zip4jEncryption.AES_256));
+        Path tgtArchive = Files.createDirectories(workingDir.resolve("split")).resolve("encrypted-split.zip");
+        Path extractDir = Files.createDirectories(workingDir.resolve("extract"));
+        SplitArchiveWriter.SplitCompletedEvent completed =
+                new SplitArchiveWriter(SplitArchiveWriter.MIN_SPLIT_SIZE).split(srcArchive, tgtArchive);
+
+        // Volume count: every volume but the last is full, bar headers deferred to the next volume
+        long srcSize = Files.size(srcArchive);
+        long minVolumes = (srcSize + 4 + SplitArchiveWriter.MIN_SPLIT_SIZE - 1) / SplitArchiveWriter.MIN_SPLIT_SIZE;
+        Assertions.assertEquals(16, completed.encryptedEntries(), "Entries were not encrypted");
+        Assertions.assertTrue(completed.volumes().size() >= minVolumes &&
+                                      completed.volumes().size() <= minVolumes + 1,
+                              String.format("Unexpected volume count %d", completed.volumes().size()));
+        for (Path volume : completed.volumes()) {
+            Assertions.assertTrue(Files.size(volume) <= SplitArchiveWriter.MIN_SPLIT_SIZE,
+                                  String.format("Volume %s exceeds the split size", volume));
+        }
+
+        // Cipher text is copied as is: the entries of the joined volumes are byte identical to the source
+        long entriesLength;
+        try(CentralDirectoryReader reader = new CentralDirectoryReader(srcArchive)) {
+            entriesLength = reader.endOfCentralDirectory().centralDirectoryOffset();
+        }
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (Path volume : completed.volumes()) {
+            joined.write(Files.readAllBytes(volume));
+        }
+        Assertions.assertArrayEquals(Arrays.copyOfRange(Files.readAllBytes(srcArchive), 0, (int) entriesLength),
+                                     Arrays.copyOfRange(joined.toByteArray(), 4, 4 + (int) entriesLength),
+                                     "Entries were altered by the split");
+
+        // Integrity: Zip4j decrypts the split archive, checking the authentication code of every entry
+        net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(tgtArchive.toFile(),
+                                                                          Zip4jCorpusGenerator.PASSWORD
+                                                                                  .toCharArray());
+        Assertions.assertTrue(zipFile.isSplitArchive(), "Archive is not recognised as split");
+        zipFile.extractAll(extractDir.toString());
+        try(CentralDirectoryReader reader = new CentralDirectoryReader(srcArchive)) {
+            for (CentralDirectoryReader.CentralDirectoryEntry entry :
+                    reader.stream().filter(e -> !e.isDirectory()).toList()) {
+                try(InputStream expected = EntryDecoder.open(reader, entry,
+                                                             Zip4jCorpusGenerator.PASSWORD.toCharArray())) {
+                    Assertions.assertArrayEquals(expected.readAllBytes(),
+                                                 Files.readAllBytes(extractDir.resolve(entry.name())),
+                                                 String.format("Content of %s differs", entry.name()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+
+/**
+ *  Writes a report of the {@link Zip4jMetrics} recorded during each test to
+ *  {@code <report directory>/<test class>/<test method>.txt}, so the phase responsible for a slow test can be seen
+ *  without a profiler. The report directory is taken from the system property
+ *  {@code configuration.ntak.pearl-zip.zip4j.metrics.report-dir} (default {@code target/zip4j-timings}).
+ *
+ *  Only the utilities in this package are instrumented. Tests that drive PearlZip through its UI run the Zip4j
+ *  plugin's own code and so usually record no phases, in which case no report is written.
+ */
+public class TimingReportExtension implements BeforeEachCallback, AfterEachCallback {
+
+    public static final String KEY_REPORT_DIR = "configuration.ntak.pearl-zip.zip4j.metrics.report-dir";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(TimingReportExtension.class);
+    private static final String KEY_SNAPSHOT = "snapshot";
+    private static final String KEY_START = "start";
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        // Queue depths are peaks since the last reset, so they are reset to attribute them to this test
+        METRICS.reset();
+        context.getStore(NAMESPACE).put(KEY_SNAPSHOT, METRICS.snapshot());
+        context.getStore(NAMESPACE).put(KEY_START, System.nanoTime());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        final long wallNanos = System.nanoTime() - context.getStore(NAMESPACE).remove(KEY_START, Long.class);
+        final Zip4jMetrics.Snapshot delta = METRICS.snapshot()
+                                                   .minus(context.getStore(NAMESPACE)
+                                                                 .remove(KEY_SNAPSHOT, Zip4jMetrics.Snapshot.class));
+        if (delta.phases().isEmpty()) {
+            return;
+        }
+
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format("test: %s%n", context.getDisplayName()));
+        report.append(String.format("wall: %.3f ms%n", toMillis(wallNanos)));
+        report.append(String.format("%-10s %-15s %8s %12s %10s %14s %8s%n", "operation", "phase", "count",
+                                    "total ms", "max ms", "bytes", "entries"));
+        delta.phases().forEach((operation, phases) -> phases.forEach(
+                (phase, s) -> report.append(String.format("%-10s %-15s %8d %12.3f %10.3f %14d %8d%n", operation,
+                                                          phase, s.count(), toMillis(s.totalNanos()),
+                                                          toMillis(s.maxNanos()), s.bytes(), s.entries()))));
+        delta.maxQueueDepths().forEach((operation, depth) -> report.append(
+                String.format("max queue depth %s: %d%n", operation, depth)));
+
+        try {
+            final Path dir = Path.of(System.getProperty(KEY_REPORT_DIR, "target/zip4j-timings"),
+                                     context.getRequiredTestClass().getSimpleName());
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve(String.format("%s.txt", context.getRequiredTestMethod().getName())),
+                              report);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
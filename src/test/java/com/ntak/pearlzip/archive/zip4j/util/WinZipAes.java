@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static com.ntak.pearlzip.archive.zip4j.util.Zip4jMetrics.METRICS;
+
+/**
+ *  WinZip AE-1/AE-2 primitives: PBKDF2-HMAC-SHA1 key derivation, AES in CTR mode with a little endian counter
+ *  starting at 1 and a HMAC-SHA1 authentication code (truncated to 10 bytes) over the cipher text.
+ */
+public class WinZipAes {
+
+    public static final int ITERATIONS = 1000;
+    public static final int VERIFIER_LENGTH = 2;
+    public static final int MAC_LENGTH = 10;
+    public static final int VENDOR_VERSION_AE2 = 2;
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int KEYSTREAM_BLOCKS = 256;
+
+    public record DerivedKey(byte[] encryptionKey, byte[] macKey, byte[] verifier) {
+        public void wipe() {
+            Arrays.fill(encryptionKey, (byte) 0);
+            Arrays.fill(macKey, (byte) 0);
+            Arrays.fill(verifier, (byte) 0);
+        }
+    }
+
+    public static int keyLength(int strength) {
+        return switch(strength) {
+            case 1 -> 16;
+            case 2 -> 24;
+            case 3 -> 32;
+            default -> throw new IllegalArgumentException(String.format("Unknown AES strength %d", strength));
+        };
+    }
+
+    public static int saltLength(int strength) {
+        return keyLength(strength) / 2;
+    }
+
+    public static int overhead(int strength) {
+        return saltLength(strength) + VERIFIER_LENGTH + MAC_LENGTH;
+    }
+
+    public static DerivedKey derive(char[] password, byte[] salt, int strength) {
+        final long start = System.nanoTime();
+        final int keyLength = keyLength(strength);
+        final PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, (2 * keyLength + VERIFIER_LENGTH) * 8);
+        try {
+            final byte[] derived = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1")
+                                                   .generateSecret(spec)
+                                                   .getEncoded();
+            try {
+                return new DerivedKey(Arrays.copyOfRange(derived, 0, keyLength),
+                                      Arrays.copyOfRange(derived, keyLength, 2 * keyLength),
+                                      Arrays.copyOfRange(derived, 2 * keyLength, 2 * keyLength + VERIFIER_LENGTH));
+            } finally {
+                Arrays.fill(derived, (byte) 0);
+            }
+        } catch(GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA1 is not available", e);
+        } finally {
+            spec.clearPassword();
+            METRICS.record(Zip4jMetrics.Phase.KEY_DERIVATION, start, 0, 1);
+        }
+    }
+
+    public static boolean verify(DerivedKey key, byte[] storedVerifier) {
+        return MessageDigest.isEqual(key.verifier(), storedVerifier);
+    }
+
+    /**
+     *  Stateful CTR/HMAC engine for a single entry. Not thread safe.
+     */
+    public static class Engine {
+        private final Cipher aes;
+        private final Mac hmac;
+        private final byte[] counterBlocks = new byte[BLOCK_SIZE * KEYSTREAM_BLOCKS];
+        private final byte[] keystream = new byte[BLOCK_SIZE * KEYSTREAM_BLOCKS];
+        private long counter = 1;
+        private int keystreamPosition = keystream.length;
+
+        public Engine(DerivedKey key) {
+            try {
+                aes = Cipher.getInstance("AES/ECB/NoPadding");
+                aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key.encryptionKey(), "AES"));
+                hmac = Mac.getInstance("HmacSHA1");
+                hmac.init(new SecretKeySpec(key.macKey(), "HmacSHA1"));
+            } catch(GeneralSecurityException e) {
+                throw new IllegalStateException("AES/HmacSHA1 is not available", e);
+            }
+        }
+
+        public void encrypt(byte[] data, int offset, int length) {
+            transform(data, offset, length);
+            hmac.update(data, offset, length);
+        }
+
+        public void decrypt(byte[] data, int offset, int length) {
+            hmac.update(data, offset, length);
+            transform(data, offset, length);
+        }
+
+        public byte[] finish() {
+            return Arrays.copyOf(hmac.doFinal(), MAC_LENGTH);
+        }
+
+        private void transform(byte[] data, int offset, int length) {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                if (keystreamPosition == keystream.length) {
+                    refillKeystream();
+                }
+                data[i] ^= keystream[keystreamPosition++];
+            }
+        }
+
+        private void refillKeystream() {
+            for (int block = 0; block < KEYSTREAM_BLOCKS; block++, counter++) {
+                final int base = block * BLOCK_SIZE;
+                Arrays.fill(counterBlocks, base, base + BLOCK_SIZE, (byte) 0);
+                for (int b = 0; b < Long.BYTES; b++) {
+                    counterBlocks[base + b] = (byte) (counter >>> (b * 8));
+                }
+            }
+            try {
+                aes.update(counterBlocks, 0, counterBlocks.length, keystream, 0);
+            } catch(GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+            keystreamPosition = 0;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import net.lingala.zip4j.io.outputstream.SplitOutputStream;
+import net.lingala.zip4j.io.outputstream.ZipOutputStream;
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.model.enums.CompressionMethod;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ *  Generates synthetic archives on demand for scaling scenarios. Entry names, folder layout, sizes, timestamps and
+ *  content are derived from the seed of the {@link CorpusSpec}, so the same specification always yields the same
+ *  logical archive (encrypted archives differ only in their random salts). Content is streamed through a fixed size
+ *  buffer, hence multi-GB corpora can be produced with constant memory.
+ *
+ *  Generated corpora are cached under {@code java.io.tmpdir/pz-corpus} by specification and reused on later requests.
+ */
+public class Zip4jCorpusGenerator {
+
+    public static final String PASSWORD = "password";
+    public static final long DEFAULT_SEED = 0x5EEDL;
+    public static final long MIN_SPLIT_SIZE = 65536L;
+    public static final Path CORPUS_ROOT = Paths.get(System.getProperty("java.io.tmpdir"), "pz-corpus");
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final long EPOCH_MILLIS = 1609459200000L; // 2021-01-01T00:00:00Z
+
+    public record CorpusSpec(long seed, int entryCount, int folderDepth, int folderFanOut, long entrySize,
+            double compressibility, Zip4jEncryption encryption, long splitSize) {
+
+        public CorpusSpec {
+            if (entryCount < 0 || folderDepth < 0 || folderFanOut < 1 || entrySize < 0) {
+                throw new IllegalArgumentException(String.format("Invalid corpus specification: entryCount=%d, "
+                                                                         + "folderDepth=%d, folderFanOut=%d, "
+                                                                         + "entrySize=%d", entryCount, folderDepth,
+                                                                 folderFanOut, entrySize));
+            }
+            if (compressibility < 0 || compressibility > 1) {
+                throw new IllegalArgumentException(String.format("Compressibility %s is not within [0,1]",
+                                                                 compressibility));
+            }
+            if (splitSize != 0 && splitSize < MIN_SPLIT_SIZE) {
+                throw new IllegalArgumentException(String.format("Split size %d is below the minimum of %d",
+                                                                 splitSize, MIN_SPLIT_SIZE));
+            }
+            encryption = Objects.requireNonNullElse(encryption, Zip4jEncryption.NONE);
+        }
+
+        public static CorpusSpec of(int entryCount, long entrySize) {
+            return new CorpusSpec(DEFAULT_SEED, entryCount, 0, 1, entrySize, 0.5, Zip4jEncryption.NONE, 0);
+        }
+
+        public CorpusSpec withSeed(long seed) {
+            return new CorpusSpec(seed, entryCount, folderDepth, folderFanOut, entrySize, compressibility, encryption,
+                                  splitSize);
+        }
+
+        public CorpusSpec withFolders(int folderDepth, int folderFanOut) {
+            return new CorpusSpec(seed, entryCount, folderDepth, folderFanOut, entrySize, compressibility, encryption,
+                                  splitSize);
+        }
+
+        public CorpusSpec withCompressibility(double compressibility) {
+            return new CorpusSpec(seed, entryCount, folderDepth, folderFanOut, entrySize, compressibility, encryption,
+                                  splitSize);
+        }
+
+        public CorpusSpec withEncryption(Zip4jEncryption encryption) {
+            return new CorpusSpec(seed, entryCount, folderDepth, folderFanOut, entrySize, compressibility, encryption,
+                                  splitSize);
+        }
+
+        public CorpusSpec withSplitSize(long splitSize) {
+            return new CorpusSpec(seed, entryCount, folderDepth, folderFanOut, entrySize, compressibility, encryption,
+                                  splitSize);
+        }
+
+        public long totalSize() {
+            return entryCount * entrySize;
+        }
+
+        public String identifier() {
+            return String.format("corpus-%x-%d-%dx%d-%d-%d-%s-%d", seed, entryCount, folderDepth, folderFanOut,
+                                 entrySize, Math.round(compressibility * 100), encryption.name().toLowerCase(),
+                                 splitSize);
+        }
+
+        public String entryName(int index) {
+            final StringBuilder name = new StringBuilder();
+            long divisor = 1;
+            for (int level = 0; level < folderDepth; level++) {
+                name.append(String.format("d%d-%d/", level, (index / divisor) % folderFanOut));
+                divisor *= folderFanOut;
+            }
+            return name.append(String.format("entry-%d.bin", index)).toString();
+        }
+    }
+
+    /**
+     *  Returns the archive for the given specification, generating it on first use.
+     */
+    public static Path corpus(CorpusSpec spec) throws IOException {
+        final Path directory = CORPUS_ROOT.resolve(spec.identifier());
+        final Path archive = directory.resolve(String.format("%s.zip", spec.identifier()));
+        if (Files.exists(archive)) {
+            return archive;
+        }
+
+        Files.createDirectories(directory);
+        final Path staging = Files.createTempDirectory(CORPUS_ROOT, "staging");
+        try {
+            final Path stagedArchive = generate(spec, staging.resolve(archive.getFileName()));
+            try(var volumes = Files.list(staging)) {
+                for (Path volume : volumes.toList()) {
+                    // The main .zip volume is moved last so that its presence implies a complete corpus
+                    if (!volume.equals(stagedArchive)) {
+                        Files.move(volume, directory.resolve(volume.getFileName()),
+                                   StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+            Files.move(stagedArchive, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            try(var leftovers = Files.list(staging)) {
+                for (Path leftover : leftovers.toList()) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+            Files.deleteIfExists(staging);
+        }
+        return archive;
+    }
+
+    /**
+     *  Writes the archive for the given specification to the target path. Split volumes are written alongside the
+     *  target using the Zip4j naming convention (.z01, .z02, ...).
+     */
+    public static Path generate(CorpusSpec spec, Path target) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final char[] password = spec.encryption().isEncrypted() ? PASSWORD.toCharArray() : null;
+
+        try(OutputStream fileStream = spec.splitSize() > 0 ? new SplitOutputStream(target.toFile(), spec.splitSize()) :
+                Files.newOutputStream(target);
+            ZipOutputStream zipStream = new ZipOutputStream(fileStream, password)) {
+            for (int i = 0; i < spec.entryCount(); i++) {
+                ZipParameters parameters = spec.encryption().apply(new ZipParameters());
+                parameters.setCompressionMethod(CompressionMethod.DEFLATE);
+                parameters.setFileNameInZip(spec.entryName(i));
+                parameters.setLastModifiedFileTime(EPOCH_MILLIS + i * 1000L);
+                parameters.setEntrySize(spec.entrySize());
+
+                zipStream.putNextEntry(parameters);
+                writeContent(zipStream, buffer, spec.entrySize(), spec.compressibility(), spec.seed() ^ i);
+                zipStream.closeEntry();
+            }
+        }
+        return target;
+    }
+
+    /**
+     *  Writes a standalone file of pseudo random content, e.g. as input for add and split scenarios.
+     */
+    public static Path generateFile(Path target, long size, double compressibility, long seed) throws IOException {
+        try(OutputStream fileStream = Files.newOutputStream(target)) {
+            writeContent(fileStream, new byte[BUFFER_SIZE], size, compressibility, seed);
+        }
+        return target;
+    }
+
+    private static void writeContent(OutputStream stream, byte[] buffer, long size, double compressibility,
+            long seed) throws IOException {
+        final Random random = new Random(seed);
+
+        for (long remaining = size; remaining > 0; ) {
+            // Random prefix followed by a repeated byte gives a stable compression ratio per chunk
+            int length = (int) Math.min(buffer.length, remaining);
+            int randomBytes = (int) (length * (1 - compressibility));
+            for (int i = 0; i < randomBytes; ) {
+                for (long value = random.nextLong(), n = Math.min(randomBytes - i, Long.BYTES); n-- > 0;
+                     value >>= Byte.SIZE) {
+                    buffer[i++] = (byte) value;
+                }
+            }
+            Arrays.fill(buffer, randomBytes, length, (byte) (seed & 0x7F));
+            stream.write(buffer, 0, length);
+            remaining -= length;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class Zip4jCorpusGeneratorTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Generate an archive twice from the same specification - identical archives
+     *  + Generate split archives twice from the same specification - identical volumes
+     *  + Generate archives from different seeds - archives differ
+     *  + Create a specification with invalid counts - failure names the invalid values
+     */
+
+    @Test
+    @DisplayName("Test: Generate an archive twice from the same specification yields identical archives")
+    public void test_GenerateSameSeed_IdenticalArchives() throws IOException {
+        final CorpusSpec spec = CorpusSpec.of(50, 4096)
+                                          .withFolders(2, 3);
+
+        Path first = Zip4jCorpusGenerator.generate(spec, workingDir.resolve("first.zip"));
+        Path second = Zip4jCorpusGenerator.generate(spec, workingDir.resolve("second.zip"));
+
+        Assertions.assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second),
+                                     "Archives generated from the same specification differ");
+    }
+
+    @Test
+    @DisplayName("Test: Generate split archives twice from the same specification yields identical volumes")
+    public void test_GenerateSameSeedSplit_IdenticalVolumes() throws IOException {
+        final CorpusSpec spec = CorpusSpec.of(8, 65536)
+                                          .withSplitSize(Zip4jCorpusGenerator.MIN_SPLIT_SIZE);
+        Path firstDir = Files.createDirectories(workingDir.resolve("first"));
+        Path secondDir = Files.createDirectories(workingDir.resolve("second"));
+
+        Zip4jCorpusGenerator.generate(spec, firstDir.resolve("corpus.zip"));
+        Zip4jCorpusGenerator.generate(spec, secondDir.resolve("corpus.zip"));
+
+        try(Stream<Path> volumes = Files.list(firstDir)) {
+            List<Path> firstVolumes = volumes.sorted().toList();
+            Assertions.assertTrue(firstVolumes.size() > 1, "Archive was not split into volumes");
+            for (Path volume : firstVolumes) {
+                Path other = secondDir.resolve(volume.getFileName());
+                Assertions.assertTrue(Files.exists(other), String.format("Volume %s was not generated again",
+                                                                         volume.getFileName()));
+                Assertions.assertArrayEquals(Files.readAllBytes(volume), Files.readAllBytes(other),
+                                             String.format("Volume %s differs", volume.getFileName()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Generate archives from different seeds yields different archives")
+    public void test_GenerateDifferentSeed_ArchivesDiffer() throws IOException {
+        final CorpusSpec spec = CorpusSpec.of(10, 4096);
+
+        Path first = Zip4jCorpusGenerator.generate(spec, workingDir.resolve("first.zip"));
+        Path second = Zip4jCorpusGenerator.generate(spec.withSeed(spec.seed() + 1), workingDir.resolve("second.zip"));
+
+        Assertions.assertFalse(Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(second)),
+                               "Archives generated from different seeds are identical");
+    }
+
+    @Test
+    @DisplayName("Test: Create a specification with a negative entry count fails with the invalid values")
+    public void test_CreateInvalidSpec_Fails() {
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                                                             () -> CorpusSpec.of(-1, 16));
+        Assertions.assertTrue(e.getMessage().contains("entryCount=-1"),
+                              String.format("Message %s did not name the entry count", e.getMessage()));
+    }
+}
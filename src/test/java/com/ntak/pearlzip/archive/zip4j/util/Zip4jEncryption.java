@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.model.enums.AesKeyStrength;
+import net.lingala.zip4j.model.enums.EncryptionMethod;
+
+/**
+ *  Encryption variants exercised by the Zip4j TestFX scenarios and benchmarks.
+ */
+public enum Zip4jEncryption {
+    NONE(EncryptionMethod.NONE, null),
+    ZIP_STANDARD(EncryptionMethod.ZIP_STANDARD, null),
+    AES_128(EncryptionMethod.AES, AesKeyStrength.KEY_STRENGTH_128),
+    AES_256(EncryptionMethod.AES, AesKeyStrength.KEY_STRENGTH_256);
+
+    private final EncryptionMethod method;
+    private final AesKeyStrength keyStrength;
+
+    Zip4jEncryption(EncryptionMethod method, AesKeyStrength keyStrength) {
+        this.method = method;
+        this.keyStrength = keyStrength;
+    }
+
+    public boolean isEncrypted() {
+        return method != EncryptionMethod.NONE;
+    }
+
+    public EncryptionMethod getMethod() {
+        return method;
+    }
+
+    public AesKeyStrength getKeyStrength() {
+        return keyStrength;
+    }
+
+    public ZipParameters apply(ZipParameters parameters) {
+        parameters.setEncryptFiles(isEncrypted());
+        if (isEncrypted()) {
+            parameters.setEncryptionMethod(method);
+        }
+        if (method == EncryptionMethod.AES) {
+            parameters.setAesKeyStrength(keyStrength);
+        }
+        return parameters;
+    }
+}
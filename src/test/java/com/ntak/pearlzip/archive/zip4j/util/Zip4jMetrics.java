@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ *  Timers, byte and entry counters per operation and phase of the Zip4j utilities, plus the peak queue depth of each
+ *  operation. The operation is held per thread (see {@link #operation(Operation)}) and carried over to worker
+ *  threads by {@link #wrap(Runnable)}, so primitives shared by several operations (e.g. key derivation or disk
+ *  writes) are attributed to the operation they run for. Phases may nest: inflation includes reading its input.
+ *
+ *  Totals are exposed over JMX once {@link #register()} is called, and every sample is passed to registered
+ *  {@link MetricsSink sinks}.
+ */
+public class Zip4jMetrics implements Zip4jMetricsMXBean {
+
+    public static final Zip4jMetrics METRICS = new Zip4jMetrics();
+    public static final String OBJECT_NAME = "com.ntak.pearlzip.archive.zip4j:type=Zip4jMetrics";
+
+    private static final ThreadLocal<Operation> CURRENT_OPERATION = ThreadLocal.withInitial(() -> Operation.NONE);
+
+    public enum Operation {
+        NONE, OPEN, ADD, DELETE, SPLIT, ENCRYPT, EXTRACT
+    }
+
+    public enum Phase {
+        HEADER_PARSE, KEY_DERIVATION, INFLATE, DEFLATE, DISK_IO, FX_UPDATE
+    }
+
+    public record Sample(Operation operation, Phase phase, long nanos, long bytes, long entries) {
+    }
+
+    public record PhaseStats(long count, long totalNanos, long maxNanos, long bytes, long entries) {
+        /**
+         *  Activity since the earlier statistics. The maximum cannot be differenced and is that of the later ones.
+         */
+        public PhaseStats minus(PhaseStats earlier) {
+            return new PhaseStats(count - earlier.count, totalNanos - earlier.totalNanos,
+                                  count == earlier.count ? 0 : maxNanos, bytes - earlier.bytes,
+                                  entries - earlier.entries);
+        }
+    }
+
+    public record Snapshot(Map<Operation,Map<Phase,PhaseStats>> phases, Map<Operation,Long> maxQueueDepths) {
+        public PhaseStats get(Operation operation, Phase phase) {
+            return phases.getOrDefault(operation, Map.of())
+                         .getOrDefault(phase, new PhaseStats(0, 0, 0, 0, 0));
+        }
+
+        /**
+         *  Activity since the earlier snapshot; operations and phases without activity are omitted.
+         */
+        public Snapshot minus(Snapshot earlier) {
+            final Map<Operation,Map<Phase,PhaseStats>> delta = new EnumMap<>(Operation.class);
+            phases.forEach((operation, stats) -> stats.forEach((phase, s) -> {
+                final PhaseStats difference = s.minus(earlier.get(operation, phase));
+                if (difference.count() > 0) {
+                    delta.computeIfAbsent(operation, o -> new EnumMap<>(Phase.class))
+                         .put(phase, difference);
+                }
+            }));
+            return new Snapshot(delta, maxQueueDepths);
+        }
+    }
+
+    /**
+     *  Restores the previous operation of the thread on close.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder entries = new LongAdder();
+
+        PhaseStats snapshot() {
+            return new PhaseStats(count.sum(), totalNanos.sum(), maxNanos.get(), bytes.sum(), entries.sum());
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            bytes.reset();
+            entries.reset();
+        }
+    }
+
+    private final Stats[][] stats = new Stats[Operation.values().length][Phase.values().length];
+    private final AtomicLong[] maxQueueDepths = new AtomicLong[Operation.values().length];
+    private final List<MetricsSink> sinks = new CopyOnWriteArrayList<>();
+    private boolean registered;
+
+    private Zip4jMetrics() {
+        for (Operation operation : Operation.values()) {
+            maxQueueDepths[operation.ordinal()] = new AtomicLong();
+            for (Phase phase : Phase.values()) {
+                stats[operation.ordinal()][phase.ordinal()] = new Stats();
+            }
+        }
+    }
+
+    /**
+     *  Registers the metrics with the platform MBean server under {@link #OBJECT_NAME}, if not already registered.
+     */
+    public synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+            registered = true;
+        } catch(JMException e) {
+            throw new IllegalStateException(String.format("Unable to register %s", OBJECT_NAME), e);
+        }
+    }
+
+    public void addSink(MetricsSink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(MetricsSink sink) {
+        sinks.remove(sink);
+    }
+
+    public Operation currentOperation() {
+        return CURRENT_OPERATION.get();
+    }
+
+    /**
+     *  Attributes samples recorded by the current thread to the operation until the scope is closed.
+     */
+    public Scope operation(Operation operation) {
+        final Operation previous = CURRENT_OPERATION.get();
+        CURRENT_OPERATION.set(operation);
+        return () -> CURRENT_OPERATION.set(previous);
+    }
+
+    /**
+     *  Runs the task under the operation of the submitting thread.
+     */
+    public Runnable wrap(Runnable task) {
+        final Operation operation = currentOperation();
+        return () -> {
+            try(Scope scope = operation(operation)) {
+                task.run();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        final Operation operation = currentOperation();
+        return () -> {
+            try(Scope scope = operation(operation)) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     *  Records a phase of the current operation that started at the given {@link System#nanoTime()}.
+     */
+    public void record(Phase phase, long startNanos, long bytes, long entries) {
+        final long nanos = System.nanoTime() - startNanos;
+        final Operation operation = currentOperation();
+        final Stats s = stats[operation.ordinal()][phase.ordinal()];
+        s.count.increment();
+        s.totalNanos.add(nanos);
+        s.maxNanos.accumulateAndGet(nanos, Math::max);
+        if (bytes != 0) {
+            s.bytes.add(bytes);
+        }
+        if (entries != 0) {
+            s.entries.add(entries);
+        }
+        if (!sinks.isEmpty()) {
+            final Sample sample = new Sample(operation, phase, nanos, bytes, entries);
+            sinks.forEach(sink -> sink.record(sample));
+        }
+    }
+
+    public void queueDepth(long depth) {
+        maxQueueDepths[currentOperation().ordinal()].accumulateAndGet(depth, Math::max);
+    }
+
+    public Snapshot snapshot() {
+        final Map<Operation,Map<Phase,PhaseStats>> phases = new EnumMap<>(Operation.class);
+        final Map<Operation,Long> depths = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            final Map<Phase,PhaseStats> operationStats = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                final PhaseStats s = stats[operation.ordinal()][phase.ordinal()].snapshot();
+                if (s.count() > 0) {
+                    operationStats.put(phase, s);
+                }
+            }
+            if (!operationStats.isEmpty()) {
+                phases.put(operation, Collections.unmodifiableMap(operationStats));
+            }
+            final long depth = maxQueueDepths[operation.ordinal()].get();
+            if (depth > 0) {
+                depths.put(operation, depth);
+            }
+        }
+        return new Snapshot(Collections.unmodifiableMap(phases), Collections.unmodifiableMap(depths));
+    }
+
+    @Override
+    public Map<String,Long> getCounts() {
+        return flatten(PhaseStats::count);
+    }
+
+    @Override
+    public Map<String,Long> getTotalNanos() {
+        return flatten(PhaseStats::totalNanos);
+    }
+
+    @Override
+    public Map<String,Long> getMaxNanos() {
+        return flatten(PhaseStats::maxNanos);
+    }
+
+    @Override
+    public Map<String,Long> getBytes() {
+        return flatten(PhaseStats::bytes);
+    }
+
+    @Override
+    public Map<String,Long> getEntries() {
+        return flatten(PhaseStats::entries);
+    }
+
+    @Override
+    public Map<String,Long> getMaxQueueDepths() {
+        final Map<String,Long> depths = new TreeMap<>();
+        snapshot().maxQueueDepths().forEach((operation, depth) -> depths.put(operation.name(), depth));
+        return depths;
+    }
+
+    @Override
+    public void reset() {
+        for (Operation operation : Operation.values()) {
+            maxQueueDepths[operation.ordinal()].set(0);
+            for (Phase phase : Phase.values()) {
+                stats[operation.ordinal()][phase.ordinal()].reset();
+            }
+        }
+    }
+
+    private Map<String,Long> flatten(ToLongFunction<PhaseStats> value) {
+        final Map<String,Long> flattened = new TreeMap<>();
+        snapshot().phases().forEach((operation, phases) -> phases.forEach(
+                (phase, s) -> flattened.put(String.format("%s.%s", operation, phase), value.applyAsLong(s))));
+        return flattened;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import java.util.Map;
+
+/**
+ *  JMX view of {@link Zip4jMetrics}. Keys are of the form {@code OPERATION.PHASE} (or {@code OPERATION} for queue
+ *  depths).
+ */
+public interface Zip4jMetricsMXBean {
+
+    Map<String,Long> getCounts();
+
+    Map<String,Long> getTotalNanos();
+
+    Map<String,Long> getMaxNanos();
+
+    Map<String,Long> getBytes();
+
+    Map<String,Long> getEntries();
+
+    Map<String,Long> getMaxQueueDepths();
+
+    void reset();
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.zip4j.util.Zip4jCorpusGenerator.CorpusSpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Zip4jMetricsTest {
+
+    @TempDir
+    Path workingDir;
+
+    /*
+     *  Test cases:
+     *  + Zip4j metrics - phases of parallel extraction recorded, published to sinks and over JMX
+     */
+    @Test
+    @DisplayName("Test: Parallel extraction records its phases in the Zip4j metrics, sinks and JMX")
+    public void test_Zip4jMetrics_PhasesRecorded() throws Exception {
+        // Set up
+        Path archive = Zip4jCorpusGenerator.corpus(CorpusSpec.of(100, 16384)
+                                                             .withFolders(1, 5)
+                                                             .withEncryption(Zip4jEncryption.AES_256));
+        Queue<Zip4jMetrics.Sample> samples = new ConcurrentLinkedQueue<>();
+        MetricsSink sink = samples::add;
+
+        Zip4jMetrics.Snapshot before = Zip4jMetrics.METRICS.snapshot();
+        Zip4jMetrics.METRICS.addSink(sink);
+        try {
+            new ParallelExtractor(4).extract(archive, workingDir, Zip4jCorpusGenerator.PASSWORD.toCharArray());
+            Zip4jMetrics.Snapshot delta = Zip4jMetrics.METRICS.snapshot()
+                                                              .minus(before);
+
+            for (Zip4jMetrics.Phase phase : List.of(Zip4jMetrics.Phase.HEADER_PARSE,
+                                                    Zip4jMetrics.Phase.KEY_DERIVATION,
+                                                    Zip4jMetrics.Phase.INFLATE, Zip4jMetrics.Phase.DISK_IO)) {
+                Assertions.assertTrue(delta.get(Zip4jMetrics.Operation.EXTRACT, phase).count() > 0,
+                                      String.format("Phase %s of extraction was not recorded", phase));
+            }
+            Assertions.assertEquals(100, delta.get(Zip4jMetrics.Operation.EXTRACT,
+                                                   Zip4jMetrics.Phase.INFLATE).entries(),
+                                    "Unexpected number of entries inflated");
+            Assertions.assertTrue(delta.maxQueueDepths().getOrDefault(Zip4jMetrics.Operation.EXTRACT, 0L) > 0,
+                                  "Queue depth of extraction was not recorded");
+            Assertions.assertTrue(samples.stream().anyMatch(s -> s.operation() == Zip4jMetrics.Operation.EXTRACT &&
+                                          s.phase() == Zip4jMetrics.Phase.KEY_DERIVATION),
+                                  "Key derivation samples were not passed to the sink");
+            Assertions.assertEquals(Zip4jMetrics.Operation.NONE, Zip4jMetrics.METRICS.currentOperation(),
+                                    "Operation was not restored after extraction");
+
+            // Totals are exposed over JMX
+            Zip4jMetrics.METRICS.register();
+            Map<String,Long> totals = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                                                         new ObjectName(Zip4jMetrics.OBJECT_NAME),
+                                                         Zip4jMetricsMXBean.class)
+                                         .getTotalNanos();
+            Assertions.assertTrue(totals.getOrDefault("EXTRACT.INFLATE", 0L) > 0,
+                                  "Inflation time was not exposed over JMX");
+        } finally {
+            Zip4jMetrics.METRICS.removeSink(sink);
+        }
+    }
+}
@@ -19,19 +19,18 @@ import java.nio.file.Path;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 
 import static com.ntak.pearlzip.ui.constants.ResourceConstants.DSV;
 import static com.ntak.testfx.NativeFileChooserUtil.chooseFile;
 import static com.ntak.testfx.TestFXConstants.PLATFORM;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class Zip4jTestUtil {
     public static void simOpenEncryptedArchive(FxRobot robot, Path archive, boolean init, boolean inNewWindow,
             String password) {
         PearlZipFXUtil.simOpenArchive(robot, archive, init, inNewWindow);
-        PasswordField pwField = robot.lookup("#textPassword").queryAs(PasswordField.class);
-        robot.clickOn(pwField).sleep(250, TimeUnit.MILLISECONDS);
+        PasswordField pwField = Zip4jWaitUtil.waitForNode(robot, "#textPassword");
+        robot.clickOn(pwField);
+        Zip4jWaitUtil.waitForFxEvents();
         TypeUtil.typeString(robot, password);
         Button btnContinue = robot.lookup("#btnContinue").queryAs(Button.class);
         robot.clickOn(btnContinue);
@@ -41,14 +40,15 @@ public class Zip4jTestUtil {
             String password) throws IOException {
         if (init) {
             robot.clickOn("#btnNew", MouseButton.PRIMARY);
-            robot.sleep(50, MILLISECONDS);
+            Zip4jWaitUtil.waitForNode(robot, "#mnuNewArchive");
             robot.clickOn("#mnuNewArchive", MouseButton.PRIMARY);
 
             robot.clickOn((t) -> Optional.ofNullable(t.getId()).orElse("")
                                       .equals("com.ntak.pearlzip.archive.zip4j.pub.Zip4jArchiveWriteService.new-options"));
 
             if (Objects.nonNull(password)) {
-                robot.clickOn("#checkEnableEncryption").sleep(250, MILLISECONDS);
+                robot.clickOn("#checkEnableEncryption");
+                Zip4jWaitUtil.waitForFxEvents();
             }
 
             for (String k : comboOptions.keySet()) {
@@ -60,7 +60,8 @@ public class Zip4jTestUtil {
                 }
             }
 
-            robot.clickOn("#textEncryptionPassword").sleep(250, MILLISECONDS);
+            robot.clickOn("#textEncryptionPassword");
+            Zip4jWaitUtil.waitForFxEvents();
             TypeUtil.typeString(robot, password);
 
             // Click on first tab
@@ -74,11 +75,11 @@ public class Zip4jTestUtil {
         FormUtil.selectComboBoxEntry(robot, cmbArchiveFormat, archiveFormat);
 
         robot.clickOn("#btnCreate", MouseButton.PRIMARY);
-        robot.sleep(50, MILLISECONDS);
+        Zip4jWaitUtil.waitForFxEvents();
 
         Files.deleteIfExists(archive);
         chooseFile(PLATFORM, robot, archive);
-        robot.sleep(50, MILLISECONDS);
+        Zip4jWaitUtil.waitForPath(archive, "archive to be created", Files::exists);
 
         Assertions.assertTrue(Files.exists(archive), "Archive was not created");
     }
@@ -0,0 +1,329 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.ui.model.FXArchiveInfo;
+import com.ntak.pearlzip.ui.util.JFXUtil;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.scene.Node;
+import javafx.scene.control.DialogPane;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.jupiter.api.Assertions;
+import org.testfx.api.FxRobot;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ *  Condition based waits used in place of fixed robot sleeps. Conditions backed by JavaFX observables are re-evaluated
+ *  on the FX thread whenever the observable is invalidated, with a periodic re-check as a safety net for state that
+ *  is not observable (e.g. the archive info registry). Expiry of the timeout fails the test with diagnostics of the
+ *  state last observed.
+ */
+public class Zip4jWaitUtil {
+
+    public static final long DEFAULT_TIMEOUT = Long.getLong("configuration.ntak.pearl-zip.testfx.wait-timeout", 30000L);
+    private static final long RECHECK_INTERVAL = 25L;
+    private static final int MAX_RECORDED_EVENTS = 20;
+
+    public static void waitForFxEvents() {
+        WaitForAsyncUtils.waitForFxEvents();
+    }
+
+    public static void waitFor(String description, Supplier<String> diagnostics, List<? extends Observable> triggers,
+            BooleanSupplier condition) {
+        waitFor(description, diagnostics, triggers, condition, DEFAULT_TIMEOUT, MILLISECONDS);
+    }
+
+    public static void waitFor(String description, Supplier<String> diagnostics, List<? extends Observable> triggers,
+            BooleanSupplier condition, long timeout, TimeUnit unit) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final InvalidationListener listener = (o) -> {
+            if (latch.getCount() > 0 && condition.getAsBoolean()) {
+                latch.countDown();
+            }
+        };
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        JFXUtil.runLater(() -> {
+            triggers.forEach(t -> t.addListener(listener));
+            listener.invalidated(null);
+        });
+        try {
+            while (!latch.await(RECHECK_INTERVAL, MILLISECONDS)) {
+                if (System.nanoTime() > deadline) {
+                    Assertions.fail(timeoutMessage(description, timeout, unit, evaluateOnFx(diagnostics)));
+                }
+                JFXUtil.runLater(() -> listener.invalidated(null));
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Assertions.fail(String.format("Interrupted while waiting for %s", description));
+        } finally {
+            JFXUtil.runLater(() -> triggers.forEach(t -> t.removeListener(listener)));
+        }
+    }
+
+    public static void waitUntil(String description, Supplier<String> diagnostics, BooleanSupplier condition) {
+        waitUntil(description, diagnostics, condition, DEFAULT_TIMEOUT, MILLISECONDS);
+    }
+
+    public static void waitUntil(String description, Supplier<String> diagnostics, BooleanSupplier condition,
+            long timeout, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                Assertions.fail(timeoutMessage(description, timeout, unit, diagnostics.get()));
+            }
+            WaitForAsyncUtils.sleep(RECHECK_INTERVAL, MILLISECONDS);
+        }
+    }
+
+    public static <T extends Node> T waitForNode(FxRobot robot, String query) {
+        final AtomicReference<T> node = new AtomicReference<>();
+        waitFor(String.format("node %s to be shown", query), Zip4jWaitUtil::describeWindows,
+                List.of(Window.getWindows()),
+                () -> robot.lookup(query)
+                           .<T>tryQuery()
+                           .filter(Node::isVisible)
+                           .map(n -> {
+                               node.set(n);
+                               return true;
+                           })
+                           .orElse(false)
+        );
+        return node.get();
+    }
+
+    public static DialogPane waitForDialog(FxRobot robot) {
+        return waitForDialog(robot, (d) -> true);
+    }
+
+    public static DialogPane waitForDialog(FxRobot robot, Predicate<DialogPane> condition) {
+        final AtomicReference<DialogPane> dialogPane = new AtomicReference<>();
+        waitFor("dialog pane to be shown", () -> String.format("%s; dialogs: %s", describeWindows(),
+                                                               robot.lookup(".dialog-pane")
+                                                                    .queryAllAs(DialogPane.class)
+                                                                    .stream()
+                                                                    .map(d -> String.format("[header=%s, content=%s]",
+                                                                                            d.getHeaderText(),
+                                                                                            d.getContentText()))
+                                                                    .collect(Collectors.joining(","))),
+                List.of(Window.getWindows()),
+                () -> robot.lookup(".dialog-pane")
+                           .queryAllAs(DialogPane.class)
+                           .stream()
+                           .filter(condition)
+                           .findFirst()
+                           .map(d -> {
+                               dialogPane.set(d);
+                               return true;
+                           })
+                           .orElse(false)
+        );
+        return dialogPane.get();
+    }
+
+    public static Stage waitForStage(String description, Predicate<Stage> condition) {
+        final AtomicReference<Stage> stage = new AtomicReference<>();
+        final List<Observable> triggers = new ArrayList<>();
+        triggers.add(Window.getWindows());
+        triggers.addAll(stages().map(Stage::titleProperty).toList());
+
+        waitFor(description, Zip4jWaitUtil::describeWindows, triggers,
+                () -> stages().filter(condition)
+                              .findFirst()
+                              .map(s -> {
+                                  stage.set(s);
+                                  return true;
+                              })
+                              .orElse(false)
+        );
+        return stage.get();
+    }
+
+    public static Stage waitForStageTitle(String titleFragment) {
+        return waitForStage(String.format("stage with title containing %s", titleFragment),
+                            s -> Objects.nonNull(s.getTitle()) && s.getTitle().contains(titleFragment));
+    }
+
+    public static FXArchiveInfo waitForArchiveInfo(String archivePath) {
+        final AtomicReference<FXArchiveInfo> archiveInfo = new AtomicReference<>();
+        waitFor(String.format("archive %s to be opened", archivePath), Zip4jWaitUtil::describeWindows,
+                List.of(Window.getWindows()),
+                () -> JFXUtil.lookupArchiveInfo(archivePath)
+                             .map(i -> {
+                                 archiveInfo.set(i);
+                                 return true;
+                             })
+                             .orElse(false)
+        );
+        return archiveInfo.get();
+    }
+
+    public static void waitForFiles(FXArchiveInfo archiveInfo, String description, Predicate<FXArchiveInfo> condition) {
+        final Object files = archiveInfo.getFiles();
+        final List<Observable> triggers = files instanceof Observable o ? List.of(o) : List.of();
+
+        waitFor(description, () -> String.format("Files in archive: %s", archiveInfo.getFiles()
+                                                                                      .stream()
+                                                                                      .map(FileInfo::getFileName)
+                                                                                      .toList()),
+                triggers, () -> condition.test(archiveInfo)
+        );
+    }
+
+    public static void waitForFileCount(FXArchiveInfo archiveInfo, int minimumCount) {
+        waitForFiles(archiveInfo, String.format("at least %d files in archive", minimumCount),
+                     (i) -> i.getFiles().size() >= minimumCount);
+    }
+
+    public static void waitForFileName(FXArchiveInfo archiveInfo, String fileName) {
+        waitForFiles(archiveInfo, String.format("file %s in archive", fileName),
+                     (i) -> i.getFiles().stream().anyMatch(f -> f.getFileName().equals(fileName)));
+    }
+
+    /**
+     *  Waits for the condition to hold for the path. A condition that throws (e.g. reading an archive still being
+     *  written) is retried, and the last exception thrown is reported if the wait times out.
+     */
+    public static void waitForPath(Path path, String description, Predicate<Path> condition) {
+        final AtomicReference<RuntimeException> lastFailure = new AtomicReference<>();
+        waitUntil(description, () -> String.format("Path %s exists: %s; siblings: %s; last failure: %s", path,
+                                                   Files.exists(path), listDirectory(path.getParent()),
+                                                   lastFailure.get()),
+                  () -> {
+                      try {
+                          return condition.test(path);
+                      } catch(RuntimeException e) {
+                          lastFailure.set(e);
+                          return false;
+                      }
+                  });
+    }
+
+    public static <T> BusEventWaiter<T> expectBusEvent(Class<T> type, Predicate<T> condition) {
+        BusEventWaiter<T> waiter = new BusEventWaiter<>(type, condition);
+        DEFAULT_BUS.register(waiter);
+        return waiter;
+    }
+
+    private static Stream<Stage> stages() {
+        return Window.getWindows()
+                     .stream()
+                     .filter(Stage.class::isInstance)
+                     .map(Stage.class::cast);
+    }
+
+    private static List<Path> listDirectory(Path directory) {
+        if (Objects.isNull(directory) || !Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try(Stream<Path> entries = Files.list(directory)) {
+            return entries.toList();
+        } catch(IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static String describeWindows() {
+        return String.format("Windows: %s", Window.getWindows()
+                                                   .stream()
+                                                   .map(w -> w instanceof Stage s ?
+                                                           String.format("Stage[title=%s, showing=%s]", s.getTitle(),
+                                                                         s.isShowing()) :
+                                                           w.getClass().getSimpleName())
+                                                   .collect(Collectors.joining(",")));
+    }
+
+    private static String evaluateOnFx(Supplier<String> diagnostics) {
+        try {
+            return WaitForAsyncUtils.waitFor(1, TimeUnit.SECONDS, WaitForAsyncUtils.asyncFx(diagnostics::get));
+        } catch(Exception e) {
+            return String.format("<diagnostics unavailable: %s>", e.getMessage());
+        }
+    }
+
+    private static String timeoutMessage(String description, long timeout, TimeUnit unit, String diagnostics) {
+        return String.format("Timed out after %d %s waiting for %s. %s", timeout, unit.name().toLowerCase(),
+                             description, diagnostics);
+    }
+
+    public static class BusEventWaiter<T> implements AutoCloseable {
+        private final Class<T> type;
+        private final Predicate<T> condition;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicReference<T> match = new AtomicReference<>();
+        private final Deque<String> observedEvents = new ArrayDeque<>();
+
+        private BusEventWaiter(Class<T> type, Predicate<T> condition) {
+            this.type = type;
+            this.condition = condition;
+        }
+
+        @Subscribe
+        public void onEvent(Object event) {
+            synchronized(observedEvents) {
+                observedEvents.addLast(String.valueOf(event));
+                if (observedEvents.size() > MAX_RECORDED_EVENTS) {
+                    observedEvents.removeFirst();
+                }
+            }
+
+            if (latch.getCount() > 0 && type.isInstance(event) && condition.test(type.cast(event))) {
+                match.set(type.cast(event));
+                latch.countDown();
+            }
+        }
+
+        public T await(String description) {
+            return await(description, DEFAULT_TIMEOUT, MILLISECONDS);
+        }
+
+        public T await(String description, long timeout, TimeUnit unit) {
+            try {
+                if (!latch.await(timeout, unit)) {
+                    String events;
+                    synchronized(observedEvents) {
+                        events = String.join(",", observedEvents);
+                    }
+                    Assertions.fail(timeoutMessage(description, timeout, unit,
+                                                   String.format("Last events on bus: [%s]", events)));
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Assertions.fail(String.format("Interrupted while waiting for %s", description));
+            } finally {
+                close();
+            }
+            return match.get();
+        }
+
+        @Override
+        public void close() {
+            if (DEFAULT_BUS.isRegistered(this)) {
+                DEFAULT_BUS.unregister(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+/**
+ *  Traditional PKWARE (Zip standard) decryption. Entry data is preceded by a 12 byte encryption header, the last byte
+ *  of which is a check byte against the CRC (or the modification time when a data descriptor is used).
+ */
+public class ZipCrypto {
+
+    public static final int HEADER_LENGTH = 12;
+
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int n = 0; n < CRC_TABLE.length; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++) {
+                c = (c & 1) != 0 ? 0xEDB88320 ^ (c >>> 1) : c >>> 1;
+            }
+            CRC_TABLE[n] = c;
+        }
+    }
+
+    private int key0 = 0x12345678;
+    private int key1 = 0x23456789;
+    private int key2 = 0x34567890;
+
+    public ZipCrypto(char[] password) {
+        for (char c : password) {
+            updateKeys((byte) c);
+        }
+    }
+
+    /**
+     *  Expected value of the final header byte for the entry.
+     */
+    public static int checkByte(CentralDirectoryReader.CentralDirectoryEntry entry) {
+        return (int) (entry.hasDataDescriptor() ? (entry.dosTime() >>> 8) & 0xFF : (entry.crc() >>> 24) & 0xFF);
+    }
+
+    /**
+     *  Decrypts the encryption header in place and returns whether its check byte matches, i.e. whether the password
+     *  is (with a 1 in 256 chance of a false positive) correct.
+     */
+    public boolean initialise(byte[] header, int expectedCheckByte) {
+        decrypt(header, 0, HEADER_LENGTH);
+        return Byte.toUnsignedInt(header[HEADER_LENGTH - 1]) == expectedCheckByte;
+    }
+
+    public void decrypt(byte[] data, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            final int temp = (key2 | 2) & 0xFFFF;
+            final byte plain = (byte) (data[i] ^ ((temp * (temp ^ 1)) >>> 8));
+            updateKeys(plain);
+            data[i] = plain;
+        }
+    }
+
+    private void updateKeys(byte b) {
+        key0 = crc32(key0, b);
+        key1 = (key1 + (key0 & 0xFF)) * 134775813 + 1;
+        key2 = crc32(key2, (byte) (key1 >>> 24));
+    }
+
+    private static int crc32(int crc, byte b) {
+        return (crc >>> 8) ^ CRC_TABLE[(crc ^ b) & 0xFF];
+    }
+}
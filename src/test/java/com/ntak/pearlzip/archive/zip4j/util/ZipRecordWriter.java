@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2021 92AK
+ */
+
+package com.ntak.pearlzip.archive.zip4j.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static com.ntak.pearlzip.archive.zip4j.util.CentralDirectoryReader.*;
+
+/**
+ *  Encodes zip header records (local file header, central directory record, end of central directory) including the
+ *  zip64 forms where sizes, offsets or the entry count exceed the limits of the classic fields.
+ */
+public class ZipRecordWriter {
+
+    public static final int METHOD_STORE = 0;
+    public static final int METHOD_DEFLATE = 8;
+    public static final int FLAG_ENCRYPTED = 0x1;
+    public static final int FLAG_UTF8 = 0x800;
+    public static final int VERSION_DEFAULT = 20;
+    public static final int VERSION_ZIP64 = 45;
+    public static final int VERSION_AES = 51;
+    public static final int VERSION_MADE_BY_UNIX = 0x0300;
+    public static final int DEFAULT_FILE_ATTRIBUTES = 0100644 << 16;
+
+    private static final long UINT32_MAX = 0xFFFFFFFFL;
+    private static final int UINT16_MAX = 0xFFFF;
+
+    public record EntryRecord(String name, int flags, int method, long dosTime, long crc, long compressedSize,
+            long uncompressedSize, long localHeaderOffset, int diskNumber, byte[] extra, int externalAttributes) {
+
+        public byte[] encodedName() {
+            return name.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public boolean sizesRequireZip64() {
+            return compressedSize >= UINT32_MAX || uncompressedSize >= UINT32_MAX;
+        }
+
+        public boolean offsetRequiresZip64() {
+            return localHeaderOffset >= UINT32_MAX;
+        }
+
+        public int versionNeeded() {
+            if (method == METHOD_AES) {
+                return VERSION_AES;
+            }
+            return sizesRequireZip64() || offsetRequiresZip64() ? VERSION_ZIP64 : VERSION_DEFAULT;
+        }
+
+        public EntryRecord withLocalHeaderOffset(long localHeaderOffset, int diskNumber) {
+            return new EntryRecord(name, flags, method, dosTime, crc, compressedSize, uncompressedSize,
+                                   localHeaderOffset, diskNumber, extra, externalAttributes);
+        }
+    }
+
+    public static ByteBuffer localHeader(EntryRecord entry) {
+        final byte[] name = entry.encodedName();
+        final boolean zip64 = entry.sizesRequireZip64();
+        final int extraLength = entry.extra().length + (zip64 ? 20 : 0);
+        final ByteBuffer buffer = allocate(LOCAL_FILE_HEADER_SIZE + name.length + extraLength);
+
+        buffer.putInt(SIG_LOCAL_FILE_HEADER)
+              .putShort((short) entry.versionNeeded())
+              .putShort((short) entry.flags())
+              .putShort((short) entry.method())
+              .putInt((int) entry.dosTime())
+              .putInt((int) entry.crc())
+              .putInt((int) (zip64 ? UINT32_MAX : entry.compressedSize()))
+              .putInt((int) (zip64 ? UINT32_MAX : entry.uncompressedSize()))
+              .putShort((short) name.length)
+              .putShort((short) extraLength)
+              .put(name);
+        if (zip64) {
+            buffer.putShort((short) EXTRA_ZIP64)
+                  .putShort((short) 16)
+                  .putLong(entry.uncompressedSize())
+                  .putLong(entry.compressedSize());
+        }
+        return buffer.put(entry.extra()).flip();
+    }
+
+    public static ByteBuffer centralDirectoryRecord(EntryRecord entry) {
+        final byte[] name = entry.encodedName();
+        final boolean zip64Uncompressed = entry.uncompressedSize() >= UINT32_MAX;
+        final boolean zip64Compressed = entry.compressedSize() >= UINT32_MAX;
+        final boolean zip64Offset = entry.offsetRequiresZip64();
+        final int zip64Length = 8 * ((zip64Uncompressed ? 1 : 0) + (zip64Compressed ? 1 : 0) + (zip64Offset ? 1 : 0));
+        final int extraLength = entry.extra().length + (zip64Length > 0 ? 4 + zip64Length : 0);
+        final ByteBuffer buffer = allocate(CENTRAL_DIRECTORY_HEADER_SIZE + name.length + extraLength);
+
+        buffer.putInt(SIG_CENTRAL_DIRECTORY)
+              .putShort((short) (VERSION_MADE_BY_UNIX | entry.versionNeeded()))
+              .putShort((short) entry.versionNeeded())
+              .putShort((short) entry.flags())
+              .putShort((short) entry.method())
+              .putInt((int) entry.dosTime())
+              .putInt((int) entry.crc())
+              .putInt((int) (zip64Compressed ? UINT32_MAX : entry.compressedSize()))
+              .putInt((int) (zip64Uncompressed ? UINT32_MAX : entry.uncompressedSize()))
+              .putShort((short) name.length)
+              .putShort((short) extraLength)
+              .putShort((short) 0)
+              .putShort((short) entry.diskNumber())
+              .putShort((short) 0)
+              .putInt(entry.externalAttributes())
+              .putInt((int) (zip64Offset ? UINT32_MAX : entry.localHeaderOffset()))
+              .put(name);
+        if (zip64Length > 0) {
+            buffer.putShort((short) EXTRA_ZIP64)
+                  .putShort((short) zip64Length);
+            if (zip64Uncompressed) {
+                buffer.putLong(entry.uncompressedSize());
+            }
+            if (zip64Compressed) {
+                buffer.putLong(entry.compressedSize());
+            }
+            if (zip64Offset) {
+                buffer.putLong(entry.localHeaderOffset());
+            }
+        }
+        return buffer.put(entry.extra()).flip();
+    }
+
+    /**
+     *  End of central directory for a single volume archive, preceded by the zip64 record and locator if required.
+     */
+    public static ByteBuffer endOfCentralDirectory(long entryCount, long centralDirectoryOffset,
+            long centralDirectorySize) {
+        return endOfCentralDirectory(entryCount, centralDirectoryOffset, centralDirectorySize, new byte[0]);
+    }
+
+    /**
+     *  End of central directory for a single volume archive with the given archive comment.
+     */
+    public static ByteBuffer endOfCentralDirectory(long entryCount, long centralDirectoryOffset,
+            long centralDirectorySize, byte[] comment) {
+        return endOfCentralDirectory(0, 0, entryCount, entryCount, centralDirectoryOffset, centralDirectorySize,
+                                     centralDirectoryOffset + centralDirectorySize, comment);
+    }
+
+    /**
+     *  End of central directory for the given disk. The end record offset is the position of the (zip64) end record
+     *  within its volume, as referenced by the zip64 locator.
+     */
+    public static ByteBuffer endOfCentralDirectory(int diskNumber, int centralDirectoryDisk, long entriesOnDisk,
+            long entryCount, long centralDirectoryOffset, long centralDirectorySize, long endRecordOffset) {
+        return endOfCentralDirectory(diskNumber, centralDirectoryDisk, entriesOnDisk, entryCount,
+                                     centralDirectoryOffset, centralDirectorySize, endRecordOffset, new byte[0]);
+    }
+
+    private static ByteBuffer endOfCentralDirectory(int diskNumber, int centralDirectoryDisk, long entriesOnDisk,
+            long entryCount, long centralDirectoryOffset, long centralDirectorySize, long endRecordOffset,
+            byte[] comment) {
+        final boolean zip64 = entryCount >= UINT16_MAX || entriesOnDisk >= UINT16_MAX ||
+                centralDirectoryOffset >= UINT32_MAX || centralDirectorySize >= UINT32_MAX;
+        final ByteBuffer buffer = allocate((zip64 ? 76 : 0) + END_OF_CENTRAL_DIRECTORY_SIZE + comment.length);
+
+        if (zip64) {
+            buffer.putInt(SIG_ZIP64_END_OF_CENTRAL_DIRECTORY)
+                  .putLong(44)
+                  .putShort((short) (VERSION_MADE_BY_UNIX | VERSION_ZIP64))
+                  .putShort((short) VERSION_ZIP64)
+                  .putInt(diskNumber)
+                  .putInt(centralDirectoryDisk)
+                  .putLong(entriesOnDisk)
+                  .putLong(entryCount)
+                  .putLong(centralDirectorySize)
+                  .putLong(centralDirectoryOffset)
+                  .putInt(SIG_ZIP64_LOCATOR)
+                  .putInt(diskNumber)
+                  .putLong(endRecordOffset)
+                  .putInt(diskNumber + 1);
+        }
+        buffer.putInt(SIG_END_OF_CENTRAL_DIRECTORY)
+              .putShort((short) Math.min(diskNumber, UINT16_MAX))
+              .putShort((short) Math.min(centralDirectoryDisk, UINT16_MAX))
+              .putShort((short) Math.min(entriesOnDisk, UINT16_MAX))
+              .putShort((short) Math.min(entryCount, UINT16_MAX))
+              .putInt((int) Math.min(centralDirectorySize, UINT32_MAX))
+              .putInt((int) Math.min(centralDirectoryOffset, UINT32_MAX))
+              .putShort((short) comment.length)
+              .put(comment);
+        return buffer.flip();
+    }
+
+    /**
+     *  Rewrites the local header offset and disk number of an encoded central directory record in place, including
+     *  the zip64 extra field where the offset is held there. All other fields (e.g. AES extra data) are retained.
+     */
+    public static ByteBuffer relocate(ByteBuffer record, long localHeaderOffset, int diskNumber) {
+        final int p = record.position();
+        record.putShort(p + 34, (short) diskNumber);
+        if (Integer.toUnsignedLong(record.getInt(p + 42)) != UINT32_MAX) {
+            if (localHeaderOffset >= UINT32_MAX) {
+                throw new IllegalArgumentException(String.format("Offset %d requires a zip64 extra field",
+                                                                 localHeaderOffset));
+            }
+            record.putInt(p + 42, (int) localHeaderOffset);
+            return record;
+        }
+
+        final int nameLength = Short.toUnsignedInt(record.getShort(p + 28));
+        final int extraLength = Short.toUnsignedInt(record.getShort(p + 30));
+        for (int e = p + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength, end = e + extraLength; e + 4 <= end; ) {
+            final int dataSize = Short.toUnsignedInt(record.getShort(e + 2));
+            if (Short.toUnsignedInt(record.getShort(e)) == EXTRA_ZIP64) {
+                int d = e + 4;
+                d += Integer.toUnsignedLong(record.getInt(p + 24)) == UINT32_MAX ? 8 : 0;
+                d += Integer.toUnsignedLong(record.getInt(p + 20)) == UINT32_MAX ? 8 : 0;
+                record.putLong(d, localHeaderOffset);
+                return record;
+            }
+            e += 4 + dataSize;
+        }
+        throw new IllegalArgumentException("Central directory record has no zip64 offset");
+    }
+
+    public static byte[] aesExtra(int vendorVersion, int strength, int actualMethod) {
+        return allocate(11).putShort((short) EXTRA_AES)
+                           .putShort((short) 7)
+                           .putShort((short) vendorVersion)
+                           .put((byte) 'A')
+                           .put((byte) 'E')
+                           .put((byte) strength)
+                           .putShort((short) actualMethod)
+                           .array();
+    }
+
+    public static long dosTime(long epochMillis) {
+        final LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (time.getYear() - 1980) << 25) | ((long) time.getMonthValue() << 21) |
+                ((long) time.getDayOfMonth() << 16) | ((long) time.getHour() << 11) | ((long) time.getMinute() << 5) |
+                (time.getSecond() >> 1);
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size)
+                         .order(ByteOrder.LITTLE_ENDIAN);
+    }
+}